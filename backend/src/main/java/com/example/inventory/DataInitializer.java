@@ -7,10 +7,13 @@ import com.example.inventory.repository.ProductRepository;
 import com.example.inventory.repository.UserRepository;
 
 import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+// seeds products, so the id sequences must be aligned first
 @Component
+@DependsOn("sequenceSeeder")
 public class DataInitializer {
 
     private final ProductRepository productRepo;
@@ -0,0 +1,31 @@
+package com.example.inventory.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AnalyticsExecutorConfig {
+
+    /**
+     * Bounded pool for dashboard fan-out. When it is saturated, new sections
+     * are rejected and reported as failed instead of queueing without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor analyticsExecutor(
+            @Value("${analytics.dashboard.pool-size:8}") int poolSize,
+            @Value("${analytics.dashboard.queue-capacity:64}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analytics-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.inventory.config;
+
+import com.example.inventory.service.AnalyticsRollupService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Regenerates the analytics rollup tables at startup.
+ * Run once with: mvn spring-boot:run -Dspring-boot.run.arguments=--analytics.rollup.rebuild-on-startup=true
+ */
+@Component
+@ConditionalOnProperty(name = "analytics.rollup.rebuild-on-startup", havingValue = "true")
+public class RollupRebuildRunner implements CommandLineRunner {
+
+    private final AnalyticsRollupService rollupService;
+
+    public RollupRebuildRunner(AnalyticsRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @Override
+    public void run(String... args) {
+        Map<String, Object> result = rollupService.rebuild();
+        System.out.println("✔ Analytics rollups rebuilt: " + result);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.inventory.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past ids written while the tables still
+ * used AUTO_INCREMENT. MySQL has no sequences, so Hibernate keeps each one
+ * as a one-row table (next_val) that starts at 1 when first created.
+ *
+ * Runs once the EntityManagerFactory (and so the schema update) is ready,
+ * before anything can allocate an id.
+ */
+@Component
+public class SequenceSeeder {
+
+    // table → sequence table, and the allocationSize declared on the entity
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "order_items", "order_items_seq",
+            "orders", "orders_seq",
+            "products", "products_seq"
+    );
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbc;
+
+    public SequenceSeeder(JdbcTemplate jdbc, EntityManagerFactory entityManagerFactory) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void seed() {
+        SEQUENCES.forEach((table, sequence) -> {
+            try {
+                Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+
+                // a pooled block hands out (next_val - allocation, next_val]
+                long floor = (maxId == null ? 0 : maxId) + ALLOCATION_SIZE + 1;
+                int moved = jdbc.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor);
+
+                if (moved > 0) System.out.println("✔ Sequence " + sequence + " moved to " + floor);
+            } catch (DataAccessException ex) {
+                System.out.println("⚠ Could not seed sequence " + sequence + ": " + ex.getMostSpecificCause().getMessage());
+            }
+        });
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.LowStockItemDto;
+import com.example.inventory.service.AnalyticsCache;
+import com.example.inventory.service.AnalyticsRollupService;
 import com.example.inventory.service.AnalyticsService;
+import com.example.inventory.service.DashboardService;
 import com.example.inventory.service.ProductService;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,10 +26,22 @@ public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
     private final ProductService productService;
-
-    public AnalyticsController(AnalyticsService analyticsService, ProductService productService) {
+    private final AnalyticsRollupService rollupService;
+    private final AnalyticsCache analyticsCache;
+    private final DashboardService dashboardService;
+
+    public AnalyticsController(
+            AnalyticsService analyticsService,
+            ProductService productService,
+            AnalyticsRollupService rollupService,
+            AnalyticsCache analyticsCache,
+            DashboardService dashboardService
+    ) {
         this.analyticsService = analyticsService;
         this.productService = productService;
+        this.rollupService = rollupService;
+        this.analyticsCache = analyticsCache;
+        this.dashboardService = dashboardService;
     }
 
     // MAIN SUMMARY
@@ -28,19 +50,83 @@ public class AnalyticsController {
         return ResponseEntity.ok(analyticsService.getAnalyticsSummary());
     }
 
-    // DAILY SALES GRAPH
+    // COMPOSITE DASHBOARD (all sections fetched concurrently, partial on timeout)
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> dashboard() {
+        return ResponseEntity.ok(dashboardService.dashboard());
+    }
+
+    // DAILY SALES GRAPH (from/to as in sales-series; default the last 30 days in the zone)
     @GetMapping("/sales-daily")
-    public ResponseEntity<?> salesDaily() {
-        return ResponseEntity.ok(analyticsService.getAnalyticsDailySales());
+    public ResponseEntity<?> salesDaily(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "UTC") String zone
+    ) {
+        ZoneId zoneId = ZoneId.of(zone);
+
+        // default end is the next local midnight, so the cache key is stable for the day
+        Instant end = (to == null || to.isBlank())
+                ? LocalDate.now(zoneId).plusDays(1).atStartOfDay(zoneId).toInstant()
+                : parseBoundary(to, zoneId);
+        Instant start = (from == null || from.isBlank())
+                ? end.minus(Duration.ofDays(30))
+                : parseBoundary(from, zoneId);
+
+        return ResponseEntity.ok(analyticsService.getAnalyticsDailySales(start, end, zoneId));
+    }
+
+    // SALES SERIES (from/to as ISO instant or yyyy-MM-dd, to exclusive)
+    @GetMapping("/sales-series")
+    public ResponseEntity<?> salesSeries(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "UTC") String zone
+    ) {
+        ZoneId zoneId = ZoneId.of(zone);
+        AnalyticsService.Granularity g = AnalyticsService.Granularity.valueOf(granularity.trim().toUpperCase());
+
+        Instant end = (to == null || to.isBlank()) ? Instant.now() : parseBoundary(to, zoneId);
+        Instant start = (from == null || from.isBlank())
+                ? end.minus(Duration.ofDays(30))
+                : parseBoundary(from, zoneId);
+
+        return ResponseEntity.ok(analyticsService.salesSeries(start, end, g, zoneId));
+    }
+
+    // TOP PRODUCTS (approximate with error bounds, or exact=true for audits)
+    @GetMapping("/top-products")
+    public ResponseEntity<?> topProducts(
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) String day,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean exact
+    ) {
+        LocalDate d = (day == null || day.isBlank()) ? null : LocalDate.parse(day);
+        return ResponseEntity.ok(analyticsService.topProducts(k, d, category, exact));
     }
 
     // ⭐ FIXED LOW STOCK — uses ProductService.lowStock()
     @GetMapping("/low-stock")
-    public ResponseEntity<?> lowStock(@RequestParam(defaultValue = "5") int threshold) {
+    public ResponseEntity<?> lowStock(
+            @RequestParam(defaultValue = "5") int threshold,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
 
         Map<String, Object> result = new HashMap<>();
         result.put("threshold", threshold);
-        result.put("items", productService.lowStock(threshold)); // FINAL FIX
+
+        if (page != null) {
+            Page<LowStockItemDto> p = productService.lowStock(threshold, page, size);
+            result.put("items", p.getContent());
+            result.put("count", p.getTotalElements());
+            result.put("page", p.getNumber());
+            result.put("totalPages", p.getTotalPages());
+        } else {
+            result.put("items", productService.lowStock(threshold)); // FINAL FIX
+        }
 
         return ResponseEntity.ok(result);
     }
@@ -50,9 +136,29 @@ public class AnalyticsController {
     public ResponseEntity<?> lowStockSummary(@RequestParam(defaultValue = "5") int threshold) {
         return ResponseEntity.ok(analyticsService.getAnalyticsLowStockSummary(threshold));
     }
-}
-
-
 
+    // REBUILD ROLLUPS FROM RAW ORDERS (after schema / data fixes)
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups() {
+        return ResponseEntity.ok(rollupService.rebuild());
+    }
 
+    // CACHE HIT / MISS COUNTS AND RECOMPUTE TIMES
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(analyticsCache.stats());
+    }
 
+    // ISO instant, or a plain date meaning start of that day in the zone
+    private static Instant parseBoundary(String value, ZoneId zone) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ignore) {}
+
+        try {
+            return LocalDate.parse(value).atStartOfDay(zone).toInstant();
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.CustomerDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.service.CustomerService;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/customers")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CustomerController {
+
+    private final CustomerService service;
+
+    public CustomerController(CustomerService service) {
+        this.service = service;
+    }
+
+    // Lookup by email (matched case-insensitively)
+    @GetMapping
+    public ResponseEntity<CustomerDto> byEmail(@RequestParam String email) {
+        CustomerDto dto = service.findByEmail(email);
+        if (dto == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(dto);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CustomerDto> get(@PathVariable Long id) {
+        CustomerDto dto = service.get(id);
+        if (dto == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(dto);
+    }
+
+    // Order history, newest first
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<Page<OrderSummaryDto>> orders(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(service.orders(id, page, size));
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.inventory.controller;
 
-import com.example.inventory.model.Product;
+import com.example.inventory.dto.LowStockItemDto;
+import com.example.inventory.service.OutboxPublisher;
 import com.example.inventory.service.ProductService;
+import com.example.inventory.service.SseStockEventSink;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/low-stock")
@@ -13,16 +18,43 @@ import java.util.List;
 public class LowStockController {
 
     private final ProductService service;
+    private final SseStockEventSink sseSink;
+    private final OutboxPublisher outboxPublisher;
 
-    public LowStockController(ProductService service) {
+    public LowStockController(
+            ProductService service,
+            SseStockEventSink sseSink,
+            OutboxPublisher outboxPublisher
+    ) {
         this.service = service;
+        this.sseSink = sseSink;
+        this.outboxPublisher = outboxPublisher;
     }
 
-    // support threshold query param
+    // support threshold query param; page/size switch to a paged response
     @GetMapping
-    public ResponseEntity<?> getLowStock(@RequestParam(required = false, defaultValue = "5") int threshold) {
-        List<Product> list = service.lowStock(threshold);
+    public ResponseEntity<?> getLowStock(
+            @RequestParam(required = false, defaultValue = "5") int threshold,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false, defaultValue = "50") int size
+    ) {
+        if (page != null) {
+            return ResponseEntity.ok(service.lowStock(threshold, page, size));
+        }
+        List<LowStockItemDto> list = service.lowStock(threshold);
         return ResponseEntity.ok(list);
     }
-}
 
+    // push channel: threshold crossings as they commit (replaces polling)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return sseSink.subscribe();
+    }
+
+    @GetMapping("/events/stats")
+    public ResponseEntity<?> eventStats() {
+        Map<String, Object> stats = outboxPublisher.stats();
+        stats.put("sseSubscribers", sseSink.subscribers());
+        return ResponseEntity.ok(stats);
+    }
+}
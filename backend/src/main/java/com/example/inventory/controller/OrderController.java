@@ -1,14 +1,31 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.BulkOrderResultDto;
+import com.example.inventory.dto.BulkStatusRequestDto;
+import com.example.inventory.dto.BulkStatusResultDto;
 import com.example.inventory.dto.OrderRequestDto;
 import com.example.inventory.dto.OrderResponseDto;
+import com.example.inventory.dto.OrderSliceDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.dto.OrderTicketDto;
+import com.example.inventory.service.IdempotencyService;
+import com.example.inventory.service.OrderArchiveService;
+import com.example.inventory.service.OrderBulkService;
+import com.example.inventory.service.OrderQueueService;
+import com.example.inventory.service.OrderStatusBulkService;
 import com.example.inventory.service.OrderService;
 import com.example.inventory.service.OrderExportService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 
@@ -19,18 +36,86 @@ public class OrderController {
 
     private final OrderService orderService;
     private final OrderExportService exportService;
+    private final OrderBulkService bulkService;
+    private final IdempotencyService idempotency;
+    private final OrderQueueService orderQueue;
+    private final OrderStatusBulkService statusBulk;
+    private final OrderArchiveService archive;
 
-    public OrderController(OrderService orderService, OrderExportService exportService) {
+    public OrderController(
+            OrderService orderService,
+            OrderExportService exportService,
+            OrderBulkService bulkService,
+            IdempotencyService idempotency,
+            OrderQueueService orderQueue,
+            OrderStatusBulkService statusBulk,
+            OrderArchiveService archive
+    ) {
         this.orderService = orderService;
         this.exportService = exportService;
+        this.bulkService = bulkService;
+        this.idempotency = idempotency;
+        this.orderQueue = orderQueue;
+        this.statusBulk = statusBulk;
+        this.archive = archive;
     }
+    // With an Idempotency-Key, a retry returns the first response (Idempotent-Replayed: true)
     @PostMapping
-    public ResponseEntity<OrderResponseDto> create(@RequestBody OrderRequestDto dto) {
-        OrderResponseDto created = orderService.createOrder(dto);
-        return ResponseEntity.created(URI.create("/api/orders/" + created.id)).body(created);
+    public ResponseEntity<OrderResponseDto> create(
+            @RequestBody OrderRequestDto dto,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        if (idempotencyKey == null) {
+            OrderResponseDto created = orderService.createOrder(dto);
+            return ResponseEntity.created(URI.create("/api/orders/" + created.id)).body(created);
+        }
+
+        IdempotencyService.Outcome out = idempotency.createOrder(idempotencyKey, dto);
+        return ResponseEntity.created(URI.create("/api/orders/" + out.order().id))
+                .header("Idempotent-Replayed", String.valueOf(out.replayed()))
+                .body(out.order());
+    }
+    // Validated and queued; the order is created by a background worker
+    @PostMapping("/async")
+    public ResponseEntity<OrderTicketDto> submitAsync(@RequestBody OrderRequestDto dto) {
+        OrderTicketDto ticket = orderQueue.submit(dto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/tickets/" + ticket.id))
+                .body(ticket);
+    }
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<OrderTicketDto> ticket(@PathVariable Long id) {
+        OrderTicketDto dto = orderQueue.get(id);
+        if (dto == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(dto);
+    }
+    // One event with the current status, then one with the outcome
+    @GetMapping(value = "/tickets/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter ticketEvents(@PathVariable Long id) {
+        return orderQueue.subscribe(id);
+    }
+    @GetMapping("/tickets/stats")
+    public ResponseEntity<Map<String, Object>> ticketStats() {
+        return ResponseEntity.ok(orderQueue.stats());
+    }
+    @GetMapping("/idempotency/stats")
+    public ResponseEntity<Map<String, Object>> idempotencyStats() {
+        return ResponseEntity.ok(idempotency.stats());
+    }
+    // Streamed NDJSON (application/x-ndjson) or CSV (text/csv); ?format= overrides the content type
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv", "application/json", "text/plain"})
+    public ResponseEntity<BulkOrderResultDto> bulk(
+            InputStream body,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            @RequestParam(required = false) String format
+    ) throws IOException {
+        String f = format != null
+                ? format.toLowerCase()
+                : (contentType != null && contentType.contains("csv") ? OrderBulkService.FORMAT_CSV : OrderBulkService.FORMAT_NDJSON);
+        return ResponseEntity.ok(bulkService.ingest(body, f));
     }
     @GetMapping
-    public ResponseEntity<Page<OrderResponseDto>> list(
+    public ResponseEntity<Page<OrderSummaryDto>> list(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(name = "customerName", required = false) String customerName,
@@ -40,39 +125,75 @@ public class OrderController {
             @RequestParam(required = false) String createdAfter,
             @RequestParam(required = false) String createdBefore,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String sortDir
+            @RequestParam(required = false) String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeItems
     ) {
 
         String finalCustomer = (customerName != null && !customerName.isBlank())
                 ? customerName
                 : (customer != null && !customer.isBlank() ? customer : null);
 
-        Instant from = null, to = null;
-
-        try {
-            if (createdAfter != null && !createdAfter.isBlank())
-                from = Instant.parse(createdAfter);
-        } catch (DateTimeParseException ignore) {}
-
-        try {
-            if (createdBefore != null && !createdBefore.isBlank())
-                to = Instant.parse(createdBefore);
-        } catch (DateTimeParseException ignore) {}
-
-        Page<OrderResponseDto> result = orderService.listOrdersPaged(
+        Page<OrderSummaryDto> result = orderService.listOrdersPaged(
                 finalCustomer,
                 minTotal,
                 maxTotal,
-                from,
-                to,
+                parseInstant(createdAfter),
+                parseInstant(createdBefore),
                 page,
                 size,
                 sortBy,
-                sortDir
+                sortDir,
+                includeItems
         );
 
         return ResponseEntity.ok(result);
     }
+    // Keyset listing: newest first by default; pass nextCursor back as ?cursor=
+    @GetMapping("/cursor")
+    public ResponseEntity<OrderSliceDto> listByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(name = "customerName", required = false) String customerName,
+            @RequestParam(required = false) Double minTotal,
+            @RequestParam(required = false) Double maxTotal,
+            @RequestParam(required = false) String createdAfter,
+            @RequestParam(required = false) String createdBefore,
+            @RequestParam(required = false) String sortDir,
+            @RequestParam(required = false) String count,
+            @RequestParam(defaultValue = "false") boolean includeItems
+    ) {
+        return ResponseEntity.ok(orderService.listOrdersCursor(
+                customerName,
+                minTotal,
+                maxTotal,
+                parseInstant(createdAfter),
+                parseInstant(createdBefore),
+                cursor,
+                size,
+                sortDir,
+                count,
+                includeItems
+        ));
+    }
+    // Hot / archived table sizes and recent archive runs
+    @GetMapping("/archive/stats")
+    public ResponseEntity<Map<String, Object>> archiveStats() {
+        return ResponseEntity.ok(archive.stats());
+    }
+    // Archive closed orders past the configured age now (also runs on a schedule)
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> archiveRun() {
+        return ResponseEntity.ok(archive.archive());
+    }
+    // mode = contains | prefix | email | fuzzy
+    @GetMapping("/search")
+    public ResponseEntity<List<OrderSummaryDto>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "contains") String mode,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(orderService.searchCustomers(q, mode, size));
+    }
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponseDto> get(@PathVariable Long id) {
         OrderResponseDto dto = orderService.get(id);
@@ -87,11 +208,22 @@ public class OrderController {
     public ResponseEntity<OrderResponseDto> updateStatus(@PathVariable Long id, @RequestParam String status) {
         return ResponseEntity.ok(orderService.updateStatus(id, status));
     }
+    // Many orders at once: {"status": "SHIPPED", "ids": [...]} or a filter instead of ids
+    @PatchMapping("/status")
+    public ResponseEntity<BulkStatusResultDto> updateStatusBulk(@RequestBody BulkStatusRequestDto dto) {
+        return ResponseEntity.ok(statusBulk.apply(dto));
+    }
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id) {
         orderService.delete(id);
         return ResponseEntity.noContent().build();
     }
+    private static Instant parseInstant(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Instant.parse(value);
+        } catch (DateTimeParseException ignore) {}
+        return null;
+    }
     @GetMapping("/export/excel")
     public ResponseEntity<byte[]> exportExcel() throws Exception {
         byte[] bytes = exportService.exportExcel().readAllBytes();
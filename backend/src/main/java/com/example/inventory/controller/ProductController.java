@@ -2,6 +2,7 @@ package com.example.inventory.controller;
 
 import com.example.inventory.dto.ProductDTO;
 import com.example.inventory.model.Product;
+import com.example.inventory.service.HotStockService;
 import com.example.inventory.service.ProductService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +17,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService service;
+    private final HotStockService hotStock;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, HotStockService hotStock) {
         this.service = service;
+        this.hotStock = hotStock;
     }
     @GetMapping
     public ResponseEntity<?> search(
@@ -30,12 +33,31 @@ public class ProductController {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean facets
     ) {
+        // with facets=true: {results: <page>, facets: {...}}
+        if (facets)
+            return ResponseEntity.ok(
+                    service.searchWithFacets(q, minPrice, maxPrice, minStock, maxStock, category, sort, page, size)
+            );
         return ResponseEntity.ok(
                 service.search(q, minPrice, maxPrice, minStock, maxStock, category, sort, page, size)
         );
     }
+    // Product picker autocomplete: name word / sku / brand prefix, best sellers first
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(service.suggest(prefix, limit));
+    }
+    // In-memory search index size and recent query latency
+    @GetMapping("/search/stats")
+    public ResponseEntity<?> searchStats() {
+        return ResponseEntity.ok(service.searchStats());
+    }
     @GetMapping("/{id}")
     public ResponseEntity<?> get(@PathVariable Long id) {
         return ResponseEntity.ok(service.get(id));
@@ -50,6 +72,25 @@ public class ProductController {
         Product updated = service.update(id, dto);
         return ResponseEntity.ok(updated);
     }
+    @PostMapping("/{id}/stock-adjustments")
+    public ResponseEntity<?> adjustStock(@PathVariable Long id, @RequestParam int delta) {
+        service.adjustStock(id, delta);
+        return ResponseEntity.ok(service.get(id));
+    }
+
+    // Hot-SKU mode: split stock across slots for flash-sale throughput
+    @PostMapping("/{id}/hot")
+    public ResponseEntity<?> enableHot(@PathVariable Long id, @RequestParam(defaultValue = "8") int slots) {
+        return ResponseEntity.ok(hotStock.enable(id, slots));
+    }
+    @DeleteMapping("/{id}/hot")
+    public ResponseEntity<?> disableHot(@PathVariable Long id) {
+        return ResponseEntity.ok(hotStock.disable(id));
+    }
+    @GetMapping("/hot/stats")
+    public ResponseEntity<?> hotStats() {
+        return ResponseEntity.ok(hotStock.stats());
+    }
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id) {
         service.delete(id);
@@ -0,0 +1,62 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.ReorderRequestDto;
+import com.example.inventory.service.ReplenishmentService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/replenishment")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReplenishmentController {
+
+    private final ReplenishmentService service;
+
+    public ReplenishmentController(ReplenishmentService service) {
+        this.service = service;
+    }
+
+    // Evaluate low-stock products now (also runs on a schedule)
+    @PostMapping("/run")
+    public ResponseEntity<?> run() {
+        return ResponseEntity.ok(service.evaluate());
+    }
+
+    // Timing and throughput of recent runs, newest first
+    @GetMapping("/runs")
+    public ResponseEntity<?> runs() {
+        return ResponseEntity.ok(service.recentRuns());
+    }
+
+    @GetMapping("/purchase-orders")
+    public ResponseEntity<?> list(
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(service.list(status, page, size));
+    }
+
+    @GetMapping("/purchase-orders/{id}")
+    public ResponseEntity<?> get(@PathVariable Long id) {
+        return ResponseEntity.ok(service.get(id));
+    }
+
+    // Manual reorder lines, grouped into one purchase order per supplier
+    @PostMapping("/purchase-orders")
+    public ResponseEntity<?> create(@RequestBody List<ReorderRequestDto> lines) {
+        return ResponseEntity.ok(service.createManual(lines));
+    }
+
+    @PostMapping("/purchase-orders/{id}/receive")
+    public ResponseEntity<?> receive(@PathVariable Long id) {
+        return ResponseEntity.ok(service.receive(id));
+    }
+
+    @PostMapping("/purchase-orders/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        return ResponseEntity.ok(service.cancel(id));
+    }
+}
@@ -16,6 +16,9 @@ public class AnalyticsResponse {
     // category → count
     private Map<String, Long> categoryCounts;
 
+    // brand → count
+    private Map<String, Long> brandCounts;
+
     // price ranges (0–20000, 20000–50000, etc.)
     private List<PriceSegmentDto> priceSegments;
 
@@ -27,6 +30,12 @@ public class AnalyticsResponse {
 
     // daily sales trend
     private List<DailySalesDto> dailySales;
+
+    // section → milliseconds spent (dashboard endpoint)
+    private Map<String, Long> sectionMillis;
+
+    // sections that failed or timed out; their fields are left empty
+    private List<String> failedSections;
 }
 
 
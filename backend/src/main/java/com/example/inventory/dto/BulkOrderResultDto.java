@@ -0,0 +1,23 @@
+package com.example.inventory.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkOrderResultDto {
+    public int total;
+    public int created;
+    public int failed;
+    public int chunks;
+    public long millis;
+    public List<Row> rows = new ArrayList<>();
+
+    public static class Row {
+        // first input line of the order (1-based, header included for CSV)
+        public int line;
+        public String ref;
+        // CREATED / FAILED
+        public String status;
+        public Long orderId;
+        public String error;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.inventory.dto;
+
+import java.util.List;
+
+public class BulkStatusRequestDto {
+    // target status
+    public String status;
+
+    // either explicit ids ...
+    public List<Long> ids;
+
+    // ... or a filter (same fields as the order listing, plus current status)
+    public String customerName;
+    public Double minTotal;
+    public Double maxTotal;
+    public String createdAfter;
+    public String createdBefore;
+    public String fromStatus;
+}
@@ -0,0 +1,21 @@
+package com.example.inventory.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkStatusResultDto {
+    public String status;
+    public int matched;
+    public int applied;
+    // already in the target status
+    public int unchanged;
+    public int rejected;
+    // e.g. "SHIPPED -> CANCELLED": 12, "insufficient stock": 1, "not found": 3
+    public Map<String, Integer> rejectedReasons = new LinkedHashMap<>();
+    // first few rejected ids, for follow-up
+    public List<Long> rejectedIds = new ArrayList<>();
+    public int chunks;
+    public long millis;
+}
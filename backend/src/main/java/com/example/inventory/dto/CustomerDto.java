@@ -0,0 +1,13 @@
+package com.example.inventory.dto;
+
+import java.time.Instant;
+
+public class CustomerDto {
+    public Long id;
+    public String email;
+    public String name;
+    public long orderCount;
+    public double lifetimeSpend;
+    public Instant firstOrderAt;
+    public Instant lastOrderAt;
+}
@@ -0,0 +1,27 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Low-stock row with severity / reorder fields computed by the query.
+ * Field names match Product so existing clients read it unchanged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockItemDto {
+    private Long id;
+    private String sku;
+    private String name;
+    private String category;
+    private String brand;
+    private Integer stock;
+    private Double price;
+    private Integer reorderLevel;
+
+    private String severity;            // CRITICAL / LOW / MEDIUM
+    private Boolean reorderFlag;        // stock <= reorderLevel
+    private Integer reorderSuggestion;  // max(reorderLevel - stock, 0)
+}
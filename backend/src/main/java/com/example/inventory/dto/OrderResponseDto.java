@@ -1,15 +1,9 @@
 package com.example.inventory.dto;
 
-import java.time.Instant;
 import java.util.List;
 
-public class OrderResponseDto {
-    public Long id;
-    public String customerName;
-    public String customerEmail;
-    public Double total;
-    public String status;
-    public Instant createdAt;
+// Full order: the summary fields plus its lines
+public class OrderResponseDto extends OrderSummaryDto {
     public List<Item> items;
 
     public static class Item {
@@ -20,5 +14,3 @@ public class OrderResponseDto {
         public Integer quantity;
     }
 }
-
-
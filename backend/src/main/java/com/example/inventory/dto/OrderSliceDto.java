@@ -0,0 +1,15 @@
+package com.example.inventory.dto;
+
+import java.util.List;
+
+public class OrderSliceDto {
+    // OrderSummaryDto rows; full OrderResponseDto with ?includeItems=true
+    public List<OrderSummaryDto> content;
+    public int size;
+    public boolean hasNext;
+    // pass back as ?cursor= for the next slice; null on the last one
+    public String nextCursor;
+    // only with ?count=approx|exact
+    public Long totalCount;
+    public boolean countApproximate;
+}
@@ -0,0 +1,30 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.model.OrderStatus;
+
+import java.time.Instant;
+
+// Listing row: order header plus line count, read without loading items
+public class OrderSummaryDto {
+    public Long id;
+    public String customerName;
+    public String customerEmail;
+    public Double total;
+    public String status;
+    public Instant createdAt;
+    public Long itemCount;
+
+    public OrderSummaryDto() {}
+
+    // JPQL / criteria constructor projection
+    public OrderSummaryDto(Long id, String customerName, String customerEmail, Double total,
+                           OrderStatus status, Instant createdAt, Long itemCount) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.total = total;
+        this.status = status == null ? null : status.name();
+        this.createdAt = createdAt;
+        this.itemCount = itemCount;
+    }
+}
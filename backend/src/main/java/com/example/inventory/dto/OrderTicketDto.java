@@ -0,0 +1,15 @@
+package com.example.inventory.dto;
+
+import java.time.Instant;
+
+public class OrderTicketDto {
+    public Long id;
+    // QUEUED / PROCESSING / CREATED / FAILED
+    public String status;
+    public Long orderId;
+    public String error;
+    public Instant createdAt;
+    public Instant completedAt;
+    // submit → outcome, once completed
+    public Long latencyMillis;
+}
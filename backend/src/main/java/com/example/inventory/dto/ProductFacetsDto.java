@@ -0,0 +1,12 @@
+package com.example.inventory.dto;
+
+import java.util.Map;
+
+public class ProductFacetsDto {
+    public long total;
+    public Map<String, Long> categories;
+    public Map<String, Long> brands;
+    public Map<String, Long> priceRanges;
+    public Map<String, Long> stockBands;
+    public double facetMillis;
+}
@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.model.Product;
+import org.springframework.data.domain.Page;
+
+public class ProductSearchResponseDto {
+    public Page<Product> results;
+    public ProductFacetsDto facets;   // null while the search index is loading
+}
@@ -0,0 +1,11 @@
+package com.example.inventory.dto;
+
+public class ProductSuggestionDto {
+    public Long id;
+    public String sku;
+    public String name;
+    public String brand;
+    public Double price;
+    public String matched;   // name | sku | brand
+    public long unitsSold;
+}
@@ -0,0 +1,24 @@
+package com.example.inventory.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class PurchaseOrderDto {
+    public Long id;
+    public String supplier;
+    public String status;
+    public String source;
+    public Instant createdAt;
+    public Instant receivedAt;
+    public Integer totalUnits;
+    public List<Line> lines;
+
+    public static class Line {
+        public Long id;
+        public Long productId;
+        public String sku;
+        public String productName;
+        public Integer quantity;
+        public Integer stockAtSuggestion;
+    }
+}
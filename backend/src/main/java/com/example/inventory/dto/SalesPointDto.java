@@ -0,0 +1,16 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesPointDto {
+    private OffsetDateTime bucketStart;
+    private Long orders;
+    private Double revenue;
+}
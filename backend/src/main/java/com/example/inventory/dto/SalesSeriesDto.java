@@ -0,0 +1,24 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesSeriesDto {
+
+    private String granularity;
+    private String zone;
+
+    // [from, to) aligned to bucket boundaries in the requested zone
+    private OffsetDateTime from;
+    private OffsetDateTime to;
+
+    // one point per bucket, empty buckets zero-filled
+    private List<SalesPointDto> points;
+}
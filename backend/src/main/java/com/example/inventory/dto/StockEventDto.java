@@ -0,0 +1,35 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEventDto {
+
+    // outbox id; increases monotonically, lets consumers drop redeliveries
+    private Long eventId;
+
+    // REORDER_LEVEL_REACHED / REORDER_LEVEL_RECOVERED / CRITICAL_REACHED / CRITICAL_RECOVERED
+    private String type;
+
+    private Long productId;
+    private String sku;
+    private String name;
+
+    private Integer oldStock;
+    private Integer newStock;
+    private Integer reorderLevel;
+
+    // severity band after the change (CRITICAL / LOW / OK)
+    private String severity;
+
+    // what raised it: PRODUCT_CREATE / PRODUCT_UPDATE / STOCK_ADJUSTMENT / PURCHASE_ORDER / ORDER / RECONCILE
+    private String source;
+
+    private Instant occurredAt;
+}
@@ -0,0 +1,20 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopProductEstimateDto {
+    private Long productId;
+    private String productName;
+    private Long quantitySold;
+
+    // true count lies in [quantitySold - errorBound, quantitySold]
+    private Long errorBound;
+
+    // true when the item is certainly in the top K
+    private Boolean guaranteed;
+}
@@ -0,0 +1,26 @@
+package com.example.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopProductsDto {
+
+    private int k;
+    private String day;        // null → all-time
+    private String category;   // null → all categories
+    private boolean exact;
+
+    // units counted in this scope
+    private long totalUnits;
+
+    // upper bound on any item's overestimate (0 in exact mode)
+    private long maxError;
+
+    private List<TopProductEstimateDto> items;
+}
@@ -40,6 +40,26 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    // ================================
+    //  NOT ENOUGH STOCK TO RESERVE
+    // ================================
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<?> handleInsufficientStock(InsufficientStockException ex) {
+        ResponseEntity<Map<String, Object>> res = build(HttpStatus.CONFLICT, ex.getMessage());
+        res.getBody().put("productId", ex.getProductId());
+        res.getBody().put("requested", ex.getRequested());
+        res.getBody().put("available", ex.getAvailable());
+        return res;
+    }
+
+    // ================================
+    //  IDEMPOTENCY KEY REUSED / IN USE
+    // ================================
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return build(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
     // ================================
     //  AUTHENTICATION FAILURE
     // ================================
@@ -0,0 +1,20 @@
+package com.example.inventory.exception;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+    private final int requested;
+    private final Integer available;
+
+    public InsufficientStockException(Long productId, int requested, Integer available) {
+        super("Insufficient stock for product " + productId
+                + ": requested " + requested + ", available " + (available == null ? 0 : available));
+        this.productId = productId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public Long getProductId() { return productId; }
+    public int getRequested() { return requested; }
+    public Integer getAvailable() { return available; }
+}
@@ -0,0 +1,48 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Cold tier of orders: DELIVERED / CANCELLED orders past the archive age,
+ * moved here by OrderArchiveService with their original ids. Same columns
+ * as orders, so the listing specifications apply unchanged; read-only.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "orders_archive",
+        indexes = {
+                @Index(name = "idx_orders_archive_created_id", columnList = "created_at, id"),
+                @Index(name = "idx_orders_archive_customer_created", columnList = "customer_id, created_at")
+        }
+)
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    private String customerName;
+    private String customerEmail;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    private Double total;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
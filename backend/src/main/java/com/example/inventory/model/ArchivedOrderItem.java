@@ -0,0 +1,29 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Line of an ArchivedOrder, keeping its original order_items id
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "order_items_archive",
+        indexes = {
+                @Index(columnList = "order_id")
+        }
+)
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    private Long productId;
+    private String productName;
+    private Double unitPrice;
+    private Integer quantity;
+}
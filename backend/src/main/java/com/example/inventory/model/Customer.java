@@ -0,0 +1,48 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One buyer, deduplicated by normalized (trimmed, lowercased) email.
+ * Orders point here through orders.customer_id; the counters are kept
+ * current by CustomerService on every order write.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "customers",
+        uniqueConstraints = @UniqueConstraint(columnNames = "email")
+)
+public class Customer {
+
+    // IDENTITY: rows are created by a native upsert, not by persist()
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    // latest name seen on this customer's orders
+    private String name;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "lifetime_spend", nullable = false)
+    private Double lifetimeSpend = 0.0;
+
+    @Column(name = "first_order_at")
+    private Instant firstOrderAt;
+
+    @Column(name = "last_order_at")
+    private Instant lastOrderAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+}
@@ -0,0 +1,35 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Order-level sales rollup for one UTC hour.
+ * Maintained by AnalyticsRollupService on every order write.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "sales_rollup_hourly",
+        uniqueConstraints = @UniqueConstraint(columnNames = "bucket_start")
+)
+public class HourlySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // start of the UTC hour this row aggregates
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false)
+    private Double revenue = 0.0;
+}
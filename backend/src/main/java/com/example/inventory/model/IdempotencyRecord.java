@@ -0,0 +1,46 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Outcome of an order create sent with an Idempotency-Key header.
+ * Written in the same transaction as the order, so a committed order
+ * always has its key and a rolled back one never does.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "idempotency_keys",
+        indexes = {
+                @Index(columnList = "expires_at")
+        }
+)
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String key;
+
+    // SHA-256 of the request body; a reused key with another body is rejected
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // stored OrderResponseDto JSON, replayed as-is
+    @Lob
+    @Column(name = "response_body", nullable = false)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -1,20 +1,39 @@
 package com.example.inventory.model;
 
+import com.example.inventory.exception.OrderStatusException;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        indexes = {
+                // keyset listing: ORDER BY created_at, id with a (created_at, id) seek
+                @Index(name = "idx_orders_created_id", columnList = "created_at, id"),
+                // customer search: exact email and prefix modes
+                @Index(name = "idx_orders_customer_email", columnList = "customer_email"),
+                @Index(name = "idx_orders_customer_name", columnList = "customer_name"),
+                // per-customer history: WHERE customer_id = ? ORDER BY created_at
+                @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at")
+        }
+)
 public class Order {
 
+    // Pooled sequence like OrderItem, so bulk ingestion can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private String customerName;
     private String customerEmail;
+
+    // Customer row matched by normalized email; null when the order has no email
+    @Column(name = "customer_id")
+    private Long customerId;
     private Double total = 0.0;
 
     @Enumerated(EnumType.STRING)
@@ -31,15 +50,15 @@ public class Order {
         updatedAt = Instant.now();
     }
 
-    //  ***************************************
-    //  FIXED: make fetch = FetchType.EAGER
-    //  ***************************************
+    // Lazy: listings read OrderSummaryDto projections. When several loaded
+    // orders touch their items, @BatchSize fetches them with one IN query.
     @OneToMany(
             mappedBy = "order",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
-            fetch = FetchType.EAGER    // 🔥 THIS FIXES THE ERROR
+            fetch = FetchType.LAZY
     )
+    @BatchSize(size = 100)
     private List<OrderItem> items = new ArrayList<>();
 
     public Order() {}
@@ -50,6 +69,10 @@ public class Order {
         items.add(item);
     }
 
+    public void removeItem(OrderItem item) {
+        if (items.remove(item)) item.setOrder(null);
+    }
+
     public void clearItems() {
         items.forEach(i -> i.setOrder(null));
         items.clear();
@@ -59,6 +82,9 @@ public class Order {
     //       STATUS VALIDATION
     // ============================
     public void updateStatus(OrderStatus newStatus) {
+        if (newStatus == null || newStatus == this.status) return;
+        if (this.status != null && !this.status.canTransitionTo(newStatus))
+            throw new OrderStatusException("Cannot change order status from " + this.status + " to " + newStatus);
         this.status = newStatus;
     }
 
@@ -74,6 +100,9 @@ public class Order {
     public String getCustomerEmail() { return customerEmail; }
     public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
 
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
     public Double getTotal() { return total; }
     public void setTotal(Double total) { this.total = total; }
 
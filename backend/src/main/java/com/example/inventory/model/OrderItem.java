@@ -6,8 +6,11 @@ import jakarta.persistence.*;
 @Table(name = "order_items")
 public class OrderItem {
 
+    // Pooled sequence (a table on MySQL): ids are known before INSERT, so
+    // Hibernate can batch item inserts. SequenceSeeder aligns it with old ids.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     private Long productId;
@@ -0,0 +1,42 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Trigram posting for customer search: one row per distinct 3-character
+ * window of an order's normalized customer name and email. The primary key
+ * (gram, order_id) is the lookup index; order_id serves re-index / delete.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(OrderSearchGram.Key.class)
+@Table(
+        name = "order_search_grams",
+        indexes = {
+                @Index(columnList = "order_id")
+        }
+)
+public class OrderSearchGram {
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String gram;
+        private Long orderId;
+    }
+}
@@ -5,8 +5,19 @@ public enum OrderStatus {
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
-}
-
-
+    CANCELLED;
 
+    /**
+     * Legal moves: forward through fulfilment, cancel before shipping,
+     * re-open a cancelled order. Staying on the same status is not a move.
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        return switch (this) {
+            case PENDING -> next == PROCESSING || next == SHIPPED || next == CANCELLED;
+            case PROCESSING -> next == SHIPPED || next == CANCELLED;
+            case SHIPPED -> next == DELIVERED;
+            case DELIVERED -> false;
+            case CANCELLED -> next == PENDING;
+        };
+    }
+}
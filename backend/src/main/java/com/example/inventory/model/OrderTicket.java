@@ -0,0 +1,59 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An order accepted for asynchronous creation. The row is the durable queue
+ * entry: workers claim QUEUED tickets in id order and write the outcome in
+ * the same transaction as the order itself. Each claim stamps a fresh lease
+ * token; the outcome is only written while the worker still holds it.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "order_tickets",
+        indexes = {
+                @Index(columnList = "status, id")
+        }
+)
+public class OrderTicket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OrderTicketStatus status = OrderTicketStatus.QUEUED;
+
+    // OrderRequestDto JSON as submitted
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = 1000)
+    private String error;
+
+    private Integer attempts = 0;
+
+    // Token of the claim currently working on the ticket; cleared on requeue
+    @Column(length = 36)
+    private String lease;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
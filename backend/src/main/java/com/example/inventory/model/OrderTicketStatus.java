@@ -0,0 +1,8 @@
+package com.example.inventory.model;
+
+public enum OrderTicketStatus {
+    QUEUED,
+    PROCESSING,
+    CREATED,
+    FAILED
+}
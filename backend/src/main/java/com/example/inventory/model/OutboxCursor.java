@@ -0,0 +1,39 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Delivery position of one stock event sink in the outbox. Each sink
+ * advances on its own, so a failing sink neither stalls the others nor
+ * makes them receive the same events again.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "outbox_cursors")
+public class OutboxCursor {
+
+    // StockEventSink.name()
+    @Id
+    @Column(length = 64)
+    private String sink;
+
+    // highest outbox event id delivered (or dead-lettered) for this sink
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId = 0L;
+
+    // failed deliveries of the batch after lastEventId
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // no new attempt before this (backoff), null when healthy
+    @Column(name = "retry_at")
+    private Instant retryAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
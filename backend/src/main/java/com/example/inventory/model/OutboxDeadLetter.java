@@ -0,0 +1,44 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An outbox event one sink gave up on: unreadable, or still failing after
+ * {@code stock.events.max-attempts}. Keeps its own copy of the payload, so
+ * the purge of published outbox rows does not lose it.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "outbox_dead_letters",
+        indexes = {
+                @Index(columnList = "sink, event_id")
+        }
+)
+public class OutboxDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(nullable = false, length = 64)
+    private String sink;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+}
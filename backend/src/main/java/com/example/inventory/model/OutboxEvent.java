@@ -0,0 +1,47 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox row. Written in the same transaction as the change
+ * that raised it; a background publisher delivers rows to each sink in id
+ * order, tracking each sink's progress in an OutboxCursor.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "outbox_events",
+        indexes = {
+                @Index(columnList = "published_at, id")
+        }
+)
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    // product id for stock events
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    // JSON body handed to the sinks
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    // null until every sink's cursor passed it (delivered or dead-lettered)
+    @Column(name = "published_at")
+    private Instant publishedAt;
+}
@@ -1,9 +1,12 @@
 package com.example.inventory.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
 @Getter
@@ -16,13 +19,17 @@ import lombok.*;
         indexes = {
                 @Index(columnList = "name"),
                 @Index(columnList = "category"),
-                @Index(columnList = "sku", unique = true)
+                @Index(columnList = "sku", unique = true),
+                @Index(columnList = "stock"),
+                @Index(columnList = "stock_margin")
         }
 )
 public class Product {
 
+    // Pooled sequence like OrderItem, so bulk ingestion can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "SKU is required")
@@ -46,6 +53,25 @@ public class Product {
     @Column(name = "reorder_level")
     private Integer reorderLevel;
 
+    // Hot-SKU mode: null → stock lives in this row; N → split across N
+    // stock_shards slots and this row's stock is their reconciled sum.
+    // Switched only through HotStockService, never by a client payload
+    @JsonIgnore
+    @Column(name = "hot_slots")
+    private Integer hotSlots;
+
+    // stock - reorder_level (null level → 5), computed and indexed by MySQL;
+    // <= 0 means "at or below reorder level"; an index helper, not part of the API
+    @JsonIgnore
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(
+            name = "stock_margin",
+            insertable = false,
+            updatable = false,
+            columnDefinition = "INT GENERATED ALWAYS AS (stock - COALESCE(reorder_level, 5)) STORED"
+    )
+    private Integer stockMargin;
+
     // Transient computed fields (not saved)
     @Transient
     private String severity;        // CRITICAL / LOW / MEDIUM / UNKNOWN
@@ -0,0 +1,47 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Per-product sales rollup for one UTC hour.
+ * Maintained by AnalyticsRollupService on every order write.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "product_sales_rollup_hourly",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"bucket_start", "product_id"}),
+        indexes = {
+                @Index(columnList = "product_id"),
+                @Index(columnList = "category")
+        }
+)
+public class ProductSalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // start of the UTC hour this row aggregates
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    private String category;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false)
+    private Double revenue = 0.0;
+}
@@ -0,0 +1,59 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replenishment purchase order, one per supplier (product brand).
+ * Automatic runs keep adding lines to the supplier's open AUTO draft.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "purchase_orders",
+        indexes = {
+                @Index(columnList = "status, supplier")
+        }
+)
+public class PurchaseOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String supplier;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private PurchaseOrderStatus status = PurchaseOrderStatus.DRAFT;
+
+    // AUTO (replenishment run) or MANUAL (ReorderRequestDto)
+    @Column(nullable = false, length = 16)
+    private String source;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "received_at")
+    private Instant receivedAt;
+
+    @OneToMany(
+            mappedBy = "purchaseOrder",
+            cascade = CascadeType.ALL,
+            orphanRemoval = true
+    )
+    private List<PurchaseOrderLine> lines = new ArrayList<>();
+
+    // Sync helper
+    public void addLine(PurchaseOrderLine line) {
+        line.setPurchaseOrder(this);
+        lines.add(line);
+    }
+}
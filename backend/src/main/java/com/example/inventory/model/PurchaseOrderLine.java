@@ -0,0 +1,37 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "purchase_order_lines",
+        indexes = {
+                @Index(columnList = "product_id")
+        }
+)
+public class PurchaseOrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private String sku;
+    private String productName;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    // stock when the line was suggested (audit)
+    private Integer stockAtSuggestion;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "purchase_order_id")
+    private PurchaseOrder purchaseOrder;
+}
@@ -0,0 +1,7 @@
+package com.example.inventory.model;
+
+public enum PurchaseOrderStatus {
+    DRAFT,
+    RECEIVED,
+    CANCELLED
+}
@@ -0,0 +1,34 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Progress of a derived search index backfill, so a restart resumes where
+ * the last run stopped and a finished index is not rebuilt.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "search_index_state")
+public class SearchIndexState {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // highest source id already indexed by the backfill
+    @Column(name = "last_id")
+    private Long lastId = 0L;
+
+    // highest source id the backfill covers; null = whatever exists when it runs
+    @Column(name = "target_id")
+    private Long targetId;
+
+    // set once the backfill reached the end; live writes keep it current
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
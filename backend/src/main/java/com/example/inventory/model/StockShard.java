@@ -0,0 +1,33 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One slot of a hot product's stock. While a product is in hot mode its
+ * real stock is the sum of its slots; products.stock trails behind and
+ * is reconciled asynchronously.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(
+        name = "stock_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "slot"})
+)
+public class StockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Integer stock = 0;
+}
@@ -0,0 +1,33 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Persisted state of one top-products sketch scope
+ * (e.g. "all", "all|Electronics", "2026-01-31").
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "top_products_snapshots")
+public class TopProductsSnapshot {
+
+    @Id
+    @Column(length = 191)
+    private String scope;
+
+    // JSON array of sketch counters
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "total_units", nullable = false)
+    private Long totalUnits = 0L;
+
+    @Column(name = "saved_at", nullable = false)
+    private Instant savedAt = Instant.now();
+}
@@ -0,0 +1,14 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.ArchivedOrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    List<ArchivedOrderItem> findByOrderIdInOrderByIdAsc(Collection<Long> orderIds);
+}
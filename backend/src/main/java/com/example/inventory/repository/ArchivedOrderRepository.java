@@ -0,0 +1,41 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, JpaSpecificationExecutor<ArchivedOrder> {
+
+    // Newest archived order: everything created after it is in the hot table
+    @Query("SELECT MAX(a.createdAt) FROM ArchivedOrder a")
+    Instant findWatermark();
+
+    // Copies hot rows as they are, ids included
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive " +
+            "(id, customer_name, customer_email, customer_id, total, status, created_at, updated_at, archived_at) " +
+            "SELECT id, customer_name, customer_email, customer_id, total, status, created_at, updated_at, :now " +
+            "FROM orders WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, order_id, product_id, product_name, unit_price, quantity) " +
+            "SELECT id, order_id, product_id, product_name, unit_price, quantity " +
+            "FROM order_items WHERE order_id IN (:ids)",
+            nativeQuery = true)
+    int copyItemsFromOrders(@Param("ids") Collection<Long> ids);
+
+    // Table statistics estimate (MySQL), like OrderRepository.estimateRowCount
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders_archive'", nativeQuery = true)
+    Long estimateRowCount();
+}
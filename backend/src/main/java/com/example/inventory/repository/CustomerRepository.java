@@ -0,0 +1,62 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Optional<Customer> findByEmail(String email);
+
+    List<Customer> findByEmailIn(Collection<String> emails);
+
+    // Creates the customer or adds to its counters in one statement
+    @Modifying
+    @Query(value = "INSERT INTO customers (email, name, order_count, lifetime_spend, first_order_at, last_order_at, created_at) " +
+            "VALUES (:email, :name, :orders, :spend, :first, :last, :now) " +
+            "ON DUPLICATE KEY UPDATE name = COALESCE(:name, name), " +
+            "order_count = order_count + :orders, lifetime_spend = lifetime_spend + :spend, " +
+            "first_order_at = COALESCE(LEAST(first_order_at, :first), :first), " +
+            "last_order_at = COALESCE(GREATEST(last_order_at, :last), :last)",
+            nativeQuery = true)
+    void upsert(@Param("email") String email,
+                @Param("name") String name,
+                @Param("orders") long orders,
+                @Param("spend") double spend,
+                @Param("first") Instant first,
+                @Param("last") Instant last,
+                @Param("now") Instant now);
+
+    // Exact recount from orders; each customer reads one (customer_id, created_at) index range
+    @Modifying
+    @Query(value = "UPDATE customers c SET " +
+            "order_count = (SELECT COUNT(*) FROM orders o WHERE o.customer_id = c.id), " +
+            "lifetime_spend = (SELECT COALESCE(SUM(o.total), 0) FROM orders o WHERE o.customer_id = c.id), " +
+            "first_order_at = (SELECT MIN(o.created_at) FROM orders o WHERE o.customer_id = c.id), " +
+            "last_order_at = (SELECT MAX(o.created_at) FROM orders o WHERE o.customer_id = c.id) " +
+            "WHERE c.id IN (:ids)",
+            nativeQuery = true)
+    int recount(@Param("ids") Collection<Long> ids);
+
+    // Second half of a recount: adds the customers' archived orders (run after recount)
+    @Modifying
+    @Query(value = "UPDATE customers c SET " +
+            "order_count = order_count + (SELECT COUNT(*) FROM orders_archive a WHERE a.customer_id = c.id), " +
+            "lifetime_spend = lifetime_spend + (SELECT COALESCE(SUM(a.total), 0) FROM orders_archive a WHERE a.customer_id = c.id), " +
+            "first_order_at = COALESCE(LEAST(first_order_at, (SELECT MIN(a.created_at) FROM orders_archive a WHERE a.customer_id = c.id)), " +
+            "first_order_at, (SELECT MIN(a.created_at) FROM orders_archive a WHERE a.customer_id = c.id)), " +
+            "last_order_at = COALESCE(GREATEST(last_order_at, (SELECT MAX(a.created_at) FROM orders_archive a WHERE a.customer_id = c.id)), " +
+            "last_order_at, (SELECT MAX(a.created_at) FROM orders_archive a WHERE a.customer_id = c.id)) " +
+            "WHERE c.id IN (:ids)",
+            nativeQuery = true)
+    int addArchived(@Param("ids") Collection<Long> ids);
+}
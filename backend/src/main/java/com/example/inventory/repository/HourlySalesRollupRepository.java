@@ -0,0 +1,47 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.HourlySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface HourlySalesRollupRepository extends JpaRepository<HourlySalesRollup, Long> {
+
+    // Atomic increment (negative deltas retract an order)
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollup_hourly (bucket_start, order_count, revenue) " +
+            "VALUES (:bucket, :orders, :revenue) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + :orders, revenue = revenue + :revenue",
+            nativeQuery = true)
+    void increment(@Param("bucket") Instant bucket,
+                   @Param("orders") long orders,
+                   @Param("revenue") double revenue);
+
+    // [orderCount, revenue] across all buckets
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0), COALESCE(SUM(r.revenue), 0) FROM HourlySalesRollup r")
+    List<Object[]> getTotals();
+
+    // [year, month, revenue] per UTC month, oldest first (one row per month, summed by the DB)
+    @Query("SELECT YEAR(r.bucketStart), MONTH(r.bucketStart), COALESCE(SUM(r.revenue), 0) " +
+            "FROM HourlySalesRollup r GROUP BY YEAR(r.bucketStart), MONTH(r.bucketStart) ORDER BY 1, 2")
+    List<Object[]> getMonthlyRevenue();
+
+    // Buckets in [from, to) → index range scan on bucket_start
+    @Query("SELECT r FROM HourlySalesRollup r " +
+            "WHERE r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<HourlySalesRollup> findRange(@Param("from") Instant from, @Param("to") Instant to);
+
+    // [local date, revenue] for buckets in [from, to) shifted by a fixed UTC offset
+    @Query("SELECT CAST(r.bucketStart + (:offset) SECOND AS LocalDate), COALESCE(SUM(r.revenue), 0) " +
+            "FROM HourlySalesRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+            "GROUP BY 1 ORDER BY 1")
+    List<Object[]> getDailyRevenue(@Param("from") Instant from,
+                                   @Param("to") Instant to,
+                                   @Param("offset") long offsetSeconds);
+}
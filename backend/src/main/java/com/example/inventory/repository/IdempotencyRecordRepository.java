@@ -0,0 +1,37 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // TTL purge → index on expires_at
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteExpiredKey(@Param("key") String key, @Param("now") Instant now);
+
+    // Plain INSERT: the primary key decides who owns the key (save() would merge over another node's row)
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, response_body, created_at, expires_at) " +
+            "VALUES (:key, :hash, '', :createdAt, :expiresAt)",
+            nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("hash") String hash,
+              @Param("createdAt") Instant createdAt,
+              @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.orderId = :orderId, r.responseBody = :body WHERE r.key = :key")
+    int complete(@Param("key") String key, @Param("orderId") Long orderId, @Param("body") String body);
+}
@@ -1,18 +1,74 @@
 package com.example.inventory.repository;
 
 import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository
-        extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+        extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderSummaryRepository {
 
     // Count all orders quickly (used in analytics)
     long count();
-}
 
+    // Full orders for an explicit includeItems listing: lines in the same query
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Single order edit / status change / delete: row locked until commit, so
+    // concurrent requests decide their stock side effects one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findForUpdate(@Param("id") Long id);
+
+    // Bulk status change: current status of a chunk, rows locked in id order
+    @Query(value = "SELECT id, status FROM orders WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStatuses(@Param("ids") Collection<Long> ids);
+
+    // Set-based: @PreUpdate does not run, so updatedAt is set here
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("status") OrderStatus status,
+                       @Param("now") Instant now);
 
+    // [orderId, productId, quantity] for every line of the given orders
+    @Query("SELECT i.order.id, i.productId, i.quantity FROM OrderItem i WHERE i.order.id IN :ids")
+    List<Object[]> findLines(@Param("ids") Collection<Long> ids);
 
+    // Highest order id (0 when empty); the sales high-water mark of ProductSuggestIndex
+    @Query("SELECT COALESCE(MAX(o.id), 0) FROM Order o")
+    long findMaxId();
 
+    // Table statistics estimate (MySQL); no scan, may lag by a few percent
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders'", nativeQuery = true)
+    Long estimateRowCount();
+
+    // Archive candidates: closed and old, locked; rows being edited are skipped
+    @Query(value = "SELECT id FROM orders WHERE status IN (:statuses) AND created_at < :before " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockArchivable(@Param("statuses") Collection<String> statuses,
+                              @Param("before") Instant before,
+                              @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteItemsOf(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
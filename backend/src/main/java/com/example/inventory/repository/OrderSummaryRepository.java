@@ -0,0 +1,21 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.model.ArchivedOrder;
+import com.example.inventory.model.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Projection reads on orders (fragment of OrderRepository)
+public interface OrderSummaryRepository {
+
+    List<OrderSummaryDto> findSummaries(Specification<Order> spec, Sort sort, long offset, int limit);
+
+    // Same projection over the archive tier (orders_archive / order_items_archive)
+    List<OrderSummaryDto> findArchivedSummaries(Specification<ArchivedOrder> spec, Sort sort, long offset, int limit);
+
+    // Matching ids above afterId, ascending (walks a filter in chunks)
+    List<Long> findIdsAfter(Specification<Order> spec, long afterId, int limit);
+}
@@ -0,0 +1,88 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.model.ArchivedOrder;
+import com.example.inventory.model.ArchivedOrderItem;
+import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Summaries: one SELECT per page, the order columns plus a correlated COUNT
+ * of its lines. The same Specifications as the entity listing apply.
+ */
+public class OrderSummaryRepositoryImpl implements OrderSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<OrderSummaryDto> findSummaries(Specification<Order> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderSummaryDto> q = cb.createQuery(OrderSummaryDto.class);
+        Root<Order> o = q.from(Order.class);
+
+        Subquery<Long> itemCount = q.subquery(Long.class);
+        Root<OrderItem> i = itemCount.from(OrderItem.class);
+        itemCount.select(cb.count(i)).where(cb.equal(i.get("order"), o));
+
+        return summaries(q, o, itemCount, spec, sort, offset, limit);
+    }
+
+    @Override
+    public List<OrderSummaryDto> findArchivedSummaries(Specification<ArchivedOrder> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderSummaryDto> q = cb.createQuery(OrderSummaryDto.class);
+        Root<ArchivedOrder> o = q.from(ArchivedOrder.class);
+
+        Subquery<Long> itemCount = q.subquery(Long.class);
+        Root<ArchivedOrderItem> i = itemCount.from(ArchivedOrderItem.class);
+        itemCount.select(cb.count(i)).where(cb.equal(i.get("orderId"), o.get("id")));
+
+        return summaries(q, o, itemCount, spec, sort, offset, limit);
+    }
+
+    private <T> List<OrderSummaryDto> summaries(CriteriaQuery<OrderSummaryDto> q, Root<T> o, Subquery<Long> itemCount,
+                                                Specification<T> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+
+        q.select(cb.construct(OrderSummaryDto.class,
+                o.get("id"),
+                o.get("customerName"),
+                o.get("customerEmail"),
+                o.get("total"),
+                o.get("status"),
+                o.get("createdAt"),
+                itemCount));
+
+        Predicate where = spec == null ? null : spec.toPredicate(o, q, cb);
+        if (where != null) q.where(where);
+        if (sort != null && sort.isSorted()) q.orderBy(QueryUtils.toOrders(sort, o, cb));
+
+        return em.createQuery(q)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findIdsAfter(Specification<Order> spec, long afterId, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        Root<Order> o = q.from(Order.class);
+
+        Predicate where = cb.greaterThan(o.get("id"), afterId);
+        Predicate filter = spec == null ? null : spec.toPredicate(o, q, cb);
+        if (filter != null) where = cb.and(where, filter);
+
+        q.select(o.get("id")).where(where).orderBy(cb.asc(o.get("id")));
+        return em.createQuery(q).setMaxResults(limit).getResultList();
+    }
+}
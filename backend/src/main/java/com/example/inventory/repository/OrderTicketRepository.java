@@ -0,0 +1,51 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.OrderTicket;
+import com.example.inventory.model.OrderTicketStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface OrderTicketRepository extends JpaRepository<OrderTicket, Long> {
+
+    // Queue depth → index on (status, id)
+    long countByStatus(OrderTicketStatus status);
+
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :status, t.lease = :lease, t.startedAt = :at, " +
+            "t.attempts = t.attempts + 1 WHERE t.id IN :ids")
+    int markStarted(@Param("ids") Collection<Long> ids,
+                    @Param("status") OrderTicketStatus status,
+                    @Param("lease") String lease,
+                    @Param("at") Instant at);
+
+    // Outcome write, fenced by the lease: 0 rows means the ticket was requeued
+    // (and possibly claimed again) while this worker was still busy with it
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :to, t.orderId = :orderId, t.error = :error, " +
+            "t.completedAt = :at WHERE t.id = :id AND t.status = :from AND t.lease = :lease")
+    int complete(@Param("id") Long id,
+                 @Param("lease") String lease,
+                 @Param("from") OrderTicketStatus from,
+                 @Param("to") OrderTicketStatus to,
+                 @Param("orderId") Long orderId,
+                 @Param("error") String error,
+                 @Param("at") Instant at);
+
+    // Stale claim: clearing the lease fences off the old worker if it is still alive
+    @Modifying
+    @Query("UPDATE OrderTicket t SET t.status = :to, t.lease = NULL WHERE t.status = :from AND t.startedAt < :before")
+    int requeueStale(@Param("from") OrderTicketStatus from,
+                     @Param("to") OrderTicketStatus to,
+                     @Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM OrderTicket t WHERE t.completedAt < :before")
+    int deleteCompletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,38 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // One sink's next batch: events past its cursor, oldest first (primary key order)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id > :after ORDER BY e.id ASC")
+    List<OutboxEvent> findAfter(@Param("after") long after, Pageable pageable);
+
+    long countByPublishedAtIsNull();
+
+    // Where a new sink's cursor starts: everything up to here was handled by every sink
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM OutboxEvent e WHERE e.publishedAt IS NOT NULL")
+    long findMaxPublishedId();
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM OutboxEvent e")
+    long findMaxId();
+
+    // Every sink's cursor is at or past upTo
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :at WHERE e.publishedAt IS NULL AND e.id <= :upTo")
+    int markPublishedUpTo(@Param("upTo") long upTo, @Param("at") Instant at);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
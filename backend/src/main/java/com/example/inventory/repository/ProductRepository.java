@@ -1,6 +1,8 @@
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.LowStockItemDto;
 import com.example.inventory.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,12 +17,65 @@ public interface ProductRepository
 
     Optional<Product> findBySku(String sku);
 
+    // Row lock for read-modify-write of stock (crossing detection needs the old value)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
     // Low stock list (used by analytics & old low-stock page)
     List<Product> findByStockLessThanEqual(Integer threshold);
 
-    // Low stock PAGED (used for NEW enhancements)
-    @Query("SELECT p FROM Product p WHERE p.stock < :threshold")
-    Page<Product> findLowStock(@Param("threshold") Integer threshold, Pageable pageable);
+    // Low stock COUNT (stock at or below reorder level, default 5) → index on stock_margin
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stockMargin <= 0")
+    long countAtOrBelowReorderLevel();
+
+    // Low stock PAGED, most severe first → index range scan on stock.
+    // Severity bands match ProductService.lowStock: CRITICAL ≤ 2, LOW ≤ threshold / 2, else MEDIUM.
+    // Only :threshold may appear: Spring Data binds every parameter to the count query too
+    @Query(value = "SELECT new com.example.inventory.dto.LowStockItemDto(" +
+            "p.id, p.sku, p.name, p.category, p.brand, p.stock, p.price, COALESCE(p.reorderLevel, 5), " +
+            "CASE WHEN p.stock <= 2 THEN 'CRITICAL' WHEN p.stock * 2 <= :threshold THEN 'LOW' ELSE 'MEDIUM' END, " +
+            "CASE WHEN p.stockMargin <= 0 THEN true ELSE false END, " +
+            "CASE WHEN p.stockMargin < 0 THEN -p.stockMargin ELSE 0 END) " +
+            "FROM Product p WHERE p.stock <= :threshold ORDER BY p.stock ASC, p.id ASC",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.stock <= :threshold")
+    Page<LowStockItemDto> findLowStock(@Param("threshold") Integer threshold, Pageable pageable);
+
+    // Conditional atomic decrement: 0 rows → not enough stock or hot (sharded)
+    // product; the row lock is held until commit
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :qty " +
+            "WHERE p.id = :id AND p.stock >= :qty AND p.hotSlots IS NULL")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = COALESCE(p.stock, 0) + :qty WHERE p.id = :id AND p.hotSlots IS NULL")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Scalar read straight from the row (bypasses stale managed entities after bulk updates)
+    // [id, sku, name, stock, reorderLevel, hotSlots]
+    @Query("SELECT p.id, p.sku, p.name, p.stock, p.reorderLevel, p.hotSlots FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockLevels(@Param("ids") Collection<Long> ids);
+
+    // Replenishment keyset scan: ids at or below reorder level after a cursor.
+    // Reads only the stock_margin index (secondary index entries carry the id)
+    @Query("SELECT p.id FROM Product p WHERE p.stockMargin <= 0 AND p.id > :after ORDER BY p.id ASC")
+    List<Long> findIdsAtOrBelowReorderLevelAfter(@Param("after") Long after, Pageable pageable);
+
+    // Search candidates narrowed by stock, which the in-memory index does not hold
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids " +
+            "AND (:minStock IS NULL OR p.stock >= :minStock) AND (:maxStock IS NULL OR p.stock <= :maxStock)")
+    List<Long> findIdsInStockRange(@Param("ids") Collection<Long> ids,
+                                   @Param("minStock") Integer minStock,
+                                   @Param("maxStock") Integer maxStock);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id ASC")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // stock <= threshold OR stock <= reorder level → index merge on stock / stock_margin
+    @Query("SELECT p FROM Product p WHERE p.stock <= :threshold OR p.stockMargin <= 0")
+    List<Product> findAtOrBelow(@Param("threshold") Integer threshold);
 
     // CATEGORY COUNTS
     @Query("SELECT COALESCE(p.category, 'Unknown') AS category, COUNT(p) FROM Product p GROUP BY COALESCE(p.category, 'Unknown')")
@@ -0,0 +1,54 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.ProductSalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    // Atomic increment (negative deltas retract an order)
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_rollup_hourly " +
+            "(bucket_start, product_id, product_name, category, units_sold, revenue) " +
+            "VALUES (:bucket, :productId, :productName, :category, :units, :revenue) " +
+            "ON DUPLICATE KEY UPDATE product_name = :productName, category = :category, " +
+            "units_sold = units_sold + :units, revenue = revenue + :revenue",
+            nativeQuery = true)
+    void increment(@Param("bucket") Instant bucket,
+                   @Param("productId") Long productId,
+                   @Param("productName") String productName,
+                   @Param("category") String category,
+                   @Param("units") long units,
+                   @Param("revenue") double revenue);
+
+    // EXACT TOP PRODUCTS → [productId, productName, unitsSold] for [from, to), optional category
+    @Query("SELECT r.productId, MAX(r.productName), SUM(r.unitsSold) FROM ProductSalesRollup r " +
+            "WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:category IS NULL OR r.category = :category) " +
+            "GROUP BY r.productId HAVING SUM(r.unitsSold) > 0 " +
+            "ORDER BY SUM(r.unitsSold) DESC")
+    List<Object[]> getTopProductsExact(@Param("from") Instant from,
+                                       @Param("to") Instant to,
+                                       @Param("category") String category,
+                                       Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(r.unitsSold), 0) FROM ProductSalesRollup r " +
+            "WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:category IS NULL OR r.category = :category)")
+    Long sumUnitsSold(@Param("from") Instant from,
+                      @Param("to") Instant to,
+                      @Param("category") String category);
+
+    // Units sold per product over all time → [productId, productName, category, unitsSold]
+    @Query("SELECT r.productId, MAX(r.productName), MAX(r.category), SUM(r.unitsSold) " +
+            "FROM ProductSalesRollup r GROUP BY r.productId HAVING SUM(r.unitsSold) > 0")
+    List<Object[]> getUnitsSoldPerProduct();
+}
@@ -0,0 +1,36 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.PurchaseOrder;
+import com.example.inventory.model.PurchaseOrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+
+    Optional<PurchaseOrder> findFirstByStatusAndSourceAndSupplierOrderByIdDesc(
+            PurchaseOrderStatus status, String source, String supplier);
+
+    Page<PurchaseOrder> findByStatus(PurchaseOrderStatus status, Pageable pageable);
+
+    // Receive / cancel: row locked, so two requests cannot both find it DRAFT
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT po FROM PurchaseOrder po WHERE po.id = :id")
+    Optional<PurchaseOrder> findForUpdate(@Param("id") Long id);
+
+    // Products that already sit on an open purchase order (not suggested again)
+    @Query("SELECT DISTINCT l.productId FROM PurchaseOrderLine l " +
+            "WHERE l.purchaseOrder.status = :status AND l.productId IN :ids")
+    List<Long> findProductIdsOnOpenOrders(@Param("ids") Collection<Long> ids,
+                                          @Param("status") PurchaseOrderStatus status);
+}
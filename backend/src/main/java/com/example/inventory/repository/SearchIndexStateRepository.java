@@ -0,0 +1,25 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.SearchIndexState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SearchIndexStateRepository extends JpaRepository<SearchIndexState, String> {
+
+    // Writers that must see the backfill's progress: shared, held until they commit
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM SearchIndexState s WHERE s.name = :name")
+    Optional<SearchIndexState> findForShare(@Param("name") String name);
+
+    // The backfill itself: waits for those writers, and holds them off while it runs
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SearchIndexState s WHERE s.name = :name")
+    Optional<SearchIndexState> findForUpdate(@Param("name") String name);
+}
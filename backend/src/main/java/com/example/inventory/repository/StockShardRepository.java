@@ -0,0 +1,31 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.StockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockShardRepository extends JpaRepository<StockShard, Long> {
+
+    @Query("SELECT DISTINCT s.productId FROM StockShard s")
+    List<Long> findHotProductIds();
+
+    @Modifying
+    @Query("UPDATE StockShard s SET s.stock = s.stock + :qty WHERE s.productId = :productId AND s.slot = :slot")
+    int incrementSlot(@Param("productId") Long productId, @Param("slot") int slot, @Param("qty") int qty);
+
+    // [productId, slots, total]
+    @Query("SELECT s.productId, COUNT(s), SUM(s.stock) FROM StockShard s " +
+            "WHERE s.productId IN :ids GROUP BY s.productId")
+    List<Object[]> sumByProduct(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM StockShard s WHERE s.productId IN :ids")
+    int deleteByProductIds(@Param("ids") Collection<Long> ids);
+}
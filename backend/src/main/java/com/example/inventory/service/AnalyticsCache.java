@@ -0,0 +1,216 @@
+package com.example.inventory.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded result cache in front of AnalyticsService.
+ *
+ * - per-metric TTL, LRU eviction beyond {@code analytics.cache.max-entries}
+ * - writers invalidate only the metrics their data feeds (after commit)
+ * - expired or invalidated entries keep being served while a single
+ *   background refresh recomputes them, up to {@code max-stale-seconds}
+ * - concurrent misses for the same key share one computation
+ */
+@Service
+public class AnalyticsCache {
+
+    public enum Metric { SUMMARY, DAILY_SALES, LOW_STOCK }
+
+    private static class Entry {
+        final Object value;
+        final long loadedAt;
+        final long generation;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(Object value, long loadedAt, long generation) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.generation = generation;
+        }
+    }
+
+    private static class Stats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder staleHits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder loads = new LongAdder();
+        final LongAdder loadNanos = new LongAdder();
+        volatile long lastLoadMillis;
+    }
+
+    private final Map<Metric, Long> ttlMillis = new EnumMap<>(Metric.class);
+    private final long maxStaleMillis;
+
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Metric, AtomicLong> generations = new EnumMap<>(Metric.class);
+    private final Map<Metric, Stats> stats = new EnumMap<>(Metric.class);
+
+    private final ExecutorService refresher = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "analytics-cache-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AnalyticsCache(
+            @Value("${analytics.cache.ttl-seconds.summary:30}") long summaryTtl,
+            @Value("${analytics.cache.ttl-seconds.daily-sales:60}") long dailyTtl,
+            @Value("${analytics.cache.ttl-seconds.low-stock:15}") long lowStockTtl,
+            @Value("${analytics.cache.max-stale-seconds:300}") long maxStaleSeconds,
+            @Value("${analytics.cache.max-entries:256}") int maxEntries
+    ) {
+        ttlMillis.put(Metric.SUMMARY, summaryTtl * 1000);
+        ttlMillis.put(Metric.DAILY_SALES, dailyTtl * 1000);
+        ttlMillis.put(Metric.LOW_STOCK, lowStockTtl * 1000);
+        this.maxStaleMillis = maxStaleSeconds * 1000;
+
+        for (Metric m : Metric.values()) {
+            generations.put(m, new AtomicLong());
+            stats.put(m, new Stats());
+        }
+
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    // ============================================================
+    // READ
+    // ============================================================
+    @SuppressWarnings("unchecked")
+    public <T> T get(Metric metric, String key, Supplier<T> loader) {
+        String fullKey = metric.name() + ":" + key;
+        Stats st = stats.get(metric);
+        Entry e = entries.get(fullKey);
+
+        if (e != null) {
+            long age = System.currentTimeMillis() - e.loadedAt;
+            boolean invalidated = e.generation != generations.get(metric).get();
+
+            if (!invalidated && age < ttlMillis.get(metric)) {
+                st.hits.increment();
+                return (T) e.value;
+            }
+
+            if (age < ttlMillis.get(metric) + maxStaleMillis) {
+                st.staleHits.increment();
+                if (e.refreshing.compareAndSet(false, true)) {
+                    refresher.submit(() -> {
+                        try {
+                            load(metric, fullKey, loader);
+                        } catch (RuntimeException ignored) {
+                            e.refreshing.set(false); // keep serving the old value
+                        }
+                    });
+                }
+                return (T) e.value;
+            }
+        }
+
+        st.misses.increment();
+        return (T) load(metric, fullKey, loader);
+    }
+
+    // One computation per key; concurrent callers wait for it
+    private Object load(Metric metric, String fullKey, Supplier<?> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(fullKey, mine);
+
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException
+                        ? (RuntimeException) ex.getCause()
+                        : ex;
+            }
+        }
+
+        Stats st = stats.get(metric);
+        try {
+            // generation read before computing: an invalidation that lands
+            // mid-load leaves the new entry already stale
+            long generation = generations.get(metric).get();
+            long started = System.nanoTime();
+
+            Object value = loader.get();
+
+            long took = System.nanoTime() - started;
+            st.loads.increment();
+            st.loadNanos.add(took);
+            st.lastLoadMillis = TimeUnit.NANOSECONDS.toMillis(took);
+
+            entries.put(fullKey, new Entry(value, System.currentTimeMillis(), generation));
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(fullKey, mine);
+        }
+    }
+
+    // ============================================================
+    // INVALIDATION (called by writers)
+    // ============================================================
+    public void invalidate(Metric... metrics) {
+        Runnable bump = () -> {
+            for (Metric m : metrics) generations.get(m).incrementAndGet();
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    // ============================================================
+    // METRICS
+    // ============================================================
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("entries", entries.size());
+
+        for (Metric m : Metric.values()) {
+            Stats st = stats.get(m);
+            long loads = st.loads.sum();
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("hits", st.hits.sum());
+            row.put("staleHits", st.staleHits.sum());
+            row.put("misses", st.misses.sum());
+            row.put("recomputes", loads);
+            row.put("avgRecomputeMillis", loads == 0 ? 0.0 : st.loadNanos.sum() / 1_000_000.0 / loads);
+            row.put("lastRecomputeMillis", st.lastLoadMillis);
+            row.put("ttlSeconds", ttlMillis.get(m) / 1000);
+            out.put(m.name(), row);
+        }
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
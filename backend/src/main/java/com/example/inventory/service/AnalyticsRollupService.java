@@ -0,0 +1,339 @@
+package com.example.inventory.service;
+
+import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderItem;
+import com.example.inventory.model.Product;
+import com.example.inventory.model.SearchIndexState;
+import com.example.inventory.repository.HourlySalesRollupRepository;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import com.example.inventory.repository.SearchIndexStateRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the hourly sales rollup tables in step with the orders table.
+ *
+ * Callers run inside the order write transaction, so a rollup delta commits
+ * or rolls back together with the order change that produced it.
+ *
+ * Empty rollups (first start, or {@link #rebuild}) are filled by a
+ * background backfill over order ids, one chunk per transaction, that
+ * resumes from search_index_state after a restart:
+ * - the backfill covers ids up to the highest one when it started; later
+ *   orders are recorded live
+ * - while it runs, writers share-lock its state row and leave orders it has
+ *   not reached yet to it; each chunk takes the row exclusively, so no
+ *   write to those orders is in flight while it reads them
+ * - once it completes, writers stop reading the row. The pause for a
+ *   rebuild is taken on this node, so run rebuilds with one writer node
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final String STATE = "sales_rollups";
+
+    private final HourlySalesRollupRepository hourlyRepo;
+    private final ProductSalesRollupRepository productRollupRepo;
+    private final ProductRepository productRepo;
+    private final AnalyticsCache analyticsCache;
+    private final ProductSuggestIndex suggestIndex;
+    private final SearchIndexStateRepository stateRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    // writers check the flag and write under the read lock; a rebuild clears it under the write lock
+    private final ReentrantReadWriteLock pause = new ReentrantReadWriteLock();
+    private volatile boolean backfilled;
+
+    public AnalyticsRollupService(
+            HourlySalesRollupRepository hourlyRepo,
+            ProductSalesRollupRepository productRollupRepo,
+            ProductRepository productRepo,
+            AnalyticsCache analyticsCache,
+            ProductSuggestIndex suggestIndex,
+            SearchIndexStateRepository stateRepo,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${analytics.rollup.backfill-chunk:1000}") int chunkSize
+    ) {
+        this.hourlyRepo = hourlyRepo;
+        this.productRollupRepo = productRollupRepo;
+        this.productRepo = productRepo;
+        this.analyticsCache = analyticsCache;
+        this.suggestIndex = suggestIndex;
+        this.stateRepo = stateRepo;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // Add an order's contribution (after create / after update)
+    @Transactional
+    public void recordOrder(Order o) {
+        apply(List.of(o), 1, null);
+    }
+
+    // Same, with categories the caller already resolved (saves a product lookup)
+    @Transactional
+    public void recordOrder(Order o, Map<Long, String> categories) {
+        apply(List.of(o), 1, categories);
+    }
+
+    // Many orders at once (bulk ingestion): one upsert per bucket / product key
+    @Transactional
+    public void recordOrders(Collection<Order> orders, Map<Long, String> categories) {
+        apply(orders, 1, categories);
+    }
+
+    // Remove an order's contribution (before update / before delete)
+    @Transactional
+    public void retractOrder(Order o) {
+        apply(List.of(o), -1, null);
+    }
+
+    private void apply(Collection<Order> orders, int sign, Map<Long, String> knownCategories) {
+        pause.readLock().lock();
+        try {
+            Collection<Order> live = live(orders);
+            Map<Long, Long> sold = increment(live, sign, knownCategories);
+            if (!sold.isEmpty()) suggestIndex.addSales(live.stream().map(Order::getId).toList(), sold);
+        } finally {
+            pause.readLock().unlock();
+        }
+    }
+
+    // The orders a running backfill has already passed; it reads the rest as committed
+    private Collection<Order> live(Collection<Order> orders) {
+        if (backfilled) return orders;
+
+        SearchIndexState state = stateRepo.findForShare(STATE).orElse(null);
+        if (state == null || state.getCompletedAt() != null) {
+            backfilled = true;
+            return orders;
+        }
+        long last = state.getLastId() == null ? 0 : state.getLastId();
+        long target = state.getTargetId() == null ? 0 : state.getTargetId();
+        return orders.stream()
+                .filter(o -> o.getId() == null || o.getId() <= last || o.getId() > target)
+                .toList();
+    }
+
+    // Adds the orders' buckets; returns units sold per product
+    private Map<Long, Long> increment(Collection<Order> orders, int sign, Map<Long, String> knownCategories) {
+
+        // Collapse orders per hour and repeated product lines before touching the tables
+        Map<Instant, long[]> orderCounts = new TreeMap<>();
+        Map<Instant, double[]> orderRevenue = new HashMap<>();
+        Map<Instant, Map<Long, long[]>> units = new TreeMap<>();
+        Map<Instant, Map<Long, double[]>> revenue = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> sold = new HashMap<>();
+
+        for (Order o : orders) {
+            if (o.getCreatedAt() == null) continue;
+
+            Instant bucket = o.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+            orderCounts.computeIfAbsent(bucket, k -> new long[1])[0]++;
+            orderRevenue.computeIfAbsent(bucket, k -> new double[1])[0] += o.getTotal() == null ? 0.0 : o.getTotal();
+
+            for (OrderItem i : o.getItems()) {
+                if (i.getProductId() == null) continue;
+                long qty = i.getQuantity() == null ? 0L : i.getQuantity();
+                double price = i.getUnitPrice() == null ? 0.0 : i.getUnitPrice();
+
+                units.computeIfAbsent(bucket, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(i.getProductId(), k -> new long[1])[0] += qty;
+                revenue.computeIfAbsent(bucket, k -> new HashMap<>())
+                        .computeIfAbsent(i.getProductId(), k -> new double[1])[0] += qty * price;
+                names.put(i.getProductId(), i.getProductName());
+                sold.merge(i.getProductId(), sign * qty, Long::sum);
+            }
+        }
+
+        for (Map.Entry<Instant, long[]> e : orderCounts.entrySet()) {
+            hourlyRepo.increment(e.getKey(), sign * e.getValue()[0], sign * orderRevenue.get(e.getKey())[0]);
+        }
+
+        if (names.isEmpty()) return sold;
+
+        Map<Long, String> categories = knownCategories;
+        if (categories == null) {
+            categories = new HashMap<>();
+            for (Product p : productRepo.findAllById(names.keySet())) {
+                categories.put(p.getId(), p.getCategory());
+            }
+        }
+
+        for (Map.Entry<Instant, Map<Long, long[]>> b : units.entrySet()) {
+            Instant bucket = b.getKey();
+            for (Map.Entry<Long, long[]> e : b.getValue().entrySet()) {
+                Long productId = e.getKey();
+                productRollupRepo.increment(
+                        bucket,
+                        productId,
+                        names.get(productId),
+                        categories.get(productId),
+                        sign * e.getValue()[0],
+                        sign * revenue.get(bucket).get(productId)[0]
+                );
+            }
+        }
+        return sold;
+    }
+
+    // ============================================================
+    // BACKFILL
+    // ============================================================
+
+    // First start: empty rollups are filled from the orders; rollups kept by an earlier version are current
+    @PostConstruct
+    public void loadState() {
+        SearchIndexState state = tx.execute(s -> stateRepo.findById(STATE).orElseGet(() -> {
+            SearchIndexState created = new SearchIndexState();
+            created.setName(STATE);
+            if (hourlyRepo.count() == 0 && productRollupRepo.count() == 0) created.setTargetId(maxOrderId());
+            else created.setCompletedAt(Instant.now());
+            return stateRepo.save(created);
+        }));
+        backfilled = state.getCompletedAt() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (backfilled) return;
+        Thread t = new Thread(this::backfill, "rollup-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Runs chunks until the state row says complete; returns the orders this call counted
+    private long backfill() {
+        long started = System.currentTimeMillis();
+        long counted = 0;
+        try {
+            while (true) {
+                Integer n = tx.execute(s -> backfillChunk());
+                if (n == null || n < 0) break;
+                counted += n;
+            }
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Analytics rollup backfill stopped (resumes on restart): " + ex.getMessage());
+            return counted;
+        }
+
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.DAILY_SALES);
+        suggestIndex.reloadSales();
+        System.out.println("✔ Analytics rollups backfilled: " + counted + " orders in "
+                + (System.currentTimeMillis() - started) + " ms");
+        return counted;
+    }
+
+    // One chunk of orders from both tiers; -1 once there are none left
+    private int backfillChunk() {
+        SearchIndexState state = stateRepo.findForUpdate(STATE).orElse(null);
+        if (state == null || state.getCompletedAt() != null) return -1;
+
+        long last = state.getLastId() == null ? 0 : state.getLastId();
+        long target = state.getTargetId() == null ? maxOrderId() : state.getTargetId();
+
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        jdbc.query("SELECT id, created_at, total FROM orders WHERE id > ? AND id <= ? " +
+                        "UNION ALL SELECT id, created_at, total FROM orders_archive WHERE id > ? AND id <= ? " +
+                        "ORDER BY id LIMIT ?",
+                rs -> {
+                    Order o = new Order();
+                    o.setId(rs.getLong(1));
+                    o.setCreatedAt(rs.getTimestamp(2) == null ? null : rs.getTimestamp(2).toInstant());
+                    o.setTotal(rs.getObject(3, Double.class));
+                    orders.put(o.getId(), o);
+                },
+                last, target, last, target, chunkSize);
+
+        if (orders.isEmpty()) {
+            state.setLastId(target);
+            state.setCompletedAt(Instant.now());
+            stateRepo.save(state);
+            return -1;
+        }
+
+        long chunkLast = Collections.max(orders.keySet());
+        jdbc.query("SELECT order_id, product_id, product_name, quantity, unit_price FROM order_items " +
+                        "WHERE order_id > ? AND order_id <= ? " +
+                        "UNION ALL SELECT order_id, product_id, product_name, quantity, unit_price FROM order_items_archive " +
+                        "WHERE order_id > ? AND order_id <= ?",
+                rs -> {
+                    OrderItem i = new OrderItem();
+                    i.setProductId(rs.getObject(2, Long.class));
+                    i.setProductName(rs.getString(3));
+                    i.setQuantity(rs.getObject(4, Integer.class));
+                    i.setUnitPrice(rs.getObject(5, Double.class));
+                    orders.get(rs.getLong(1)).getItems().add(i);
+                },
+                last, chunkLast, last, chunkLast);
+
+        increment(orders.values(), 1, null);
+        state.setLastId(chunkLast);
+        stateRepo.save(state);
+        return orders.size();
+    }
+
+    private long maxOrderId() {
+        Long max = jdbc.queryForObject("SELECT GREATEST(COALESCE((SELECT MAX(id) FROM orders), 0), " +
+                "COALESCE((SELECT MAX(id) FROM orders_archive), 0))", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    // ============================================================
+    // REBUILD (regenerate every bucket from raw orders)
+    // ============================================================
+
+    /**
+     * Empties the rollups and backfills them again. Writers on this node
+     * leave the orders that exist now to the backfill, so none of their
+     * deltas land on top of it.
+     */
+    public Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+
+        pause.writeLock().lock();
+        try {
+            backfilled = false;
+        } finally {
+            pause.writeLock().unlock();
+        }
+        tx.executeWithoutResult(s -> {
+            SearchIndexState state = stateRepo.findForUpdate(STATE).orElseGet(() -> {
+                SearchIndexState created = new SearchIndexState();
+                created.setName(STATE);
+                return created;
+            });
+            hourlyRepo.deleteAllInBatch();
+            productRollupRepo.deleteAllInBatch();
+            state.setLastId(0L);
+            state.setTargetId(maxOrderId());
+            state.setCompletedAt(null);
+            stateRepo.save(state);
+        });
+        long orders = backfill();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("orders", orders);
+        result.put("hourlyBuckets", hourlyRepo.count());
+        result.put("productBuckets", productRollupRepo.count());
+        result.put("millis", System.currentTimeMillis() - started);
+        return result;
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.inventory.service;
 
 import com.example.inventory.dto.*;
-import com.example.inventory.model.Order;
-import com.example.inventory.model.OrderItem;
+import com.example.inventory.model.HourlySalesRollup;
 import com.example.inventory.model.Product;
-import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.HourlySalesRollupRepository;
 import com.example.inventory.repository.ProductRepository;
 import org.springframework.stereotype.Service;
 
-import java.time.ZoneId;
+import java.time.*;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,131 +20,220 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
 
     private final ProductRepository productRepo;
-    private final OrderRepository orderRepo;
-
-    public AnalyticsService(ProductRepository productRepo, OrderRepository orderRepo) {
+    private final HourlySalesRollupRepository hourlyRollupRepo;
+    private final TopProductsTracker topProductsTracker;
+    private final AnalyticsCache cache;
+
+    public AnalyticsService(
+            ProductRepository productRepo,
+            HourlySalesRollupRepository hourlyRollupRepo,
+            TopProductsTracker topProductsTracker,
+            AnalyticsCache cache
+    ) {
         this.productRepo = productRepo;
-        this.orderRepo = orderRepo;
+        this.hourlyRollupRepo = hourlyRollupRepo;
+        this.topProductsTracker = topProductsTracker;
+        this.cache = cache;
     }
 
     // ---------------------------------------------------------------------
     //  MAIN SUMMARY
     // ---------------------------------------------------------------------
+    /**
+     * Order metrics are read from the hourly rollup tables and the top-products
+     * sketch, so the cost depends on the number of buckets rather than on
+     * order history.
+     * Product metrics are single aggregate queries on the products table.
+     */
     public AnalyticsSummaryDto summary() {
 
         long totalProducts = productRepo.count();
-        long totalOrders = orderRepo.count();
-
-        double totalRevenue = orderRepo.findAll().stream()
-                .mapToDouble(o -> o.getTotal() == null ? 0.0 : o.getTotal())
-                .sum();
-
-        // FIX: use reorder_level for low-stock count
-        long lowStockCount = productRepo.findAll().stream()
-                .filter(p -> {
-                    Integer stock = p.getStock();
-                    Integer rl = p.getReorderLevel();
-                    if (stock == null) return false;
-                    if (rl == null) rl = 5;
-                    return stock <= rl;
-                })
-                .count();
-
-        // TOP PRODUCTS
-        List<TopProductDto> topProducts = orderRepo.findAll().stream()
-                .flatMap(o -> {
-                    List<OrderItem> items = o.getItems();
-                    return (items == null ? Collections.<OrderItem>emptyList() : items).stream();
-                })
-                .collect(Collectors.groupingBy(
-                        OrderItem::getProductName,
-                        Collectors.summingLong(i -> i.getQuantity() == null ? 0L : i.getQuantity())
-                ))
-                .entrySet()
-                .stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .map(e -> new TopProductDto(e.getKey(), e.getValue()))
-                .collect(Collectors.toList());
 
-        // CATEGORY COUNTS
-        Map<String, Long> categoryCounts = productRepo.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCategory() == null ? "Unknown" : p.getCategory(),
-                        Collectors.counting()
-                ));
-
-        // MONTHLY REVENUE
-        Map<String, Double> monthlyMap = new LinkedHashMap<>();
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MMM yyyy");
-        ZoneId zone = ZoneId.systemDefault();
+        Object[] totals = hourlyRollupRepo.getTotals().get(0);
+        long totalOrders = ((Number) totals[0]).longValue();
+        double totalRevenue = ((Number) totals[1]).doubleValue();
 
-        for (Order o : orderRepo.findAll()) {
-            if (o.getCreatedAt() == null) continue;
-            String key = o.getCreatedAt().atZone(zone).format(fmt);
-            double value = (o.getTotal() == null ? 0.0 : o.getTotal());
-            monthlyMap.put(key, monthlyMap.getOrDefault(key, 0.0) + value);
-        }
-
-        List<MonthlyRevenueDto> monthlyList = monthlyMap.entrySet().stream()
-                .map(e -> new MonthlyRevenueDto(e.getKey(), e.getValue()))
-                .collect(Collectors.toList());
+        // stock <= reorder_level (null reorder level treated as 5)
+        long lowStockCount = productRepo.countAtOrBelowReorderLevel();
 
         AnalyticsSummaryDto dto = new AnalyticsSummaryDto();
         dto.setTotalProducts(totalProducts);
         dto.setTotalOrders(totalOrders);
         dto.setTotalRevenue(totalRevenue);
         dto.setLowStockCount(lowStockCount);
-        dto.setTopProducts(topProducts);
-        dto.setCategoryCounts(categoryCounts);
-        dto.setMonthlyRevenue(monthlyList);
+        dto.setTopProducts(topProducts());
+        dto.setCategoryCounts(categoryCounts());
+        dto.setMonthlyRevenue(monthlyRevenue());
 
         return dto;
     }
 
+    // ---------------------------------------------------------------------
+    //  SUMMARY SECTIONS (also fanned out by DashboardService)
+    // ---------------------------------------------------------------------
+
+    // TOP PRODUCTS (all-time heavy-hitters sketch, constant memory)
+    public List<TopProductDto> topProducts() {
+        return topProductsTracker.top(5, null, null, false).getItems().stream()
+                .map(t -> new TopProductDto(t.getProductName(), t.getQuantitySold()))
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Long> categoryCounts() {
+        return toCountMap(productRepo.getCategoryCounts());
+    }
+
+    public Map<String, Long> brandCounts() {
+        return toCountMap(productRepo.getBrandCounts());
+    }
+
+    public List<PriceSegmentDto> priceSegments() {
+        return productRepo.getPriceSegments().stream()
+                .map(r -> new PriceSegmentDto((String) r[0], ((Number) r[1]).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    // MONTHLY REVENUE (UTC months, oldest first, grouped in SQL)
+    public List<MonthlyRevenueDto> monthlyRevenue() {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MMM yyyy");
+        return hourlyRollupRepo.getMonthlyRevenue().stream()
+                .map(r -> new MonthlyRevenueDto(
+                        YearMonth.of(((Number) r[0]).intValue(), ((Number) r[1]).intValue()).format(fmt),
+                        ((Number) r[2]).doubleValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] r : rows) {
+            counts.put((String) r[0], ((Number) r[1]).longValue());
+        }
+        return counts;
+    }
+
     // ---------------------------------------------------------------------
     //  DAILY SALES
     // ---------------------------------------------------------------------
-    public List<DailySalesDto> salesDaily() {
+    // default range: the last 30 days in the zone, today included
+    public List<DailySalesDto> salesDaily(ZoneId zone) {
+        Instant to = LocalDate.now(zone).plusDays(1).atStartOfDay(zone).toInstant();
+        return salesDaily(to.minus(Duration.ofDays(30)), to, zone);
+    }
+
+    /**
+     * Revenue per calendar day in the zone, summed by the database over
+     * [from, to). The range is cut at the zone's offset transitions so each
+     * query shifts by a fixed offset; a DST day spanning two pieces is merged.
+     */
+    public List<DailySalesDto> salesDaily(Instant from, Instant to, ZoneId zone) {
+
+        if (!from.isBefore(to))
+            throw new IllegalArgumentException("'from' must be before 'to'");
 
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd MMM");
-        ZoneId zone = ZoneId.systemDefault();
-
-        return orderRepo.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        o -> o.getCreatedAt() == null ? "Unknown" :
-                                o.getCreatedAt().atZone(zone).format(fmt),
-                        Collectors.summingDouble(o -> o.getTotal() == null ? 0.0 : o.getTotal())
-                ))
-                .entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> new DailySalesDto(e.getKey(), e.getValue()))
+        ZoneRules rules = zone.getRules();
+
+        // keyed by calendar date so the same day of different years stays apart
+        Map<LocalDate, Double> daily = new TreeMap<>();
+        for (Instant start = from; start.isBefore(to); ) {
+            ZoneOffsetTransition next = rules.nextTransition(start);
+            Instant end = (next == null || !next.getInstant().isBefore(to)) ? to : next.getInstant();
+
+            int offset = rules.getOffset(start).getTotalSeconds();
+            for (Object[] r : hourlyRollupRepo.getDailyRevenue(start, end, offset)) {
+                daily.merge((LocalDate) r[0], ((Number) r[1]).doubleValue(), Double::sum);
+            }
+            start = end;
+        }
+
+        return daily.entrySet().stream()
+                .map(e -> new DailySalesDto(e.getKey().format(fmt), e.getValue()))
                 .collect(Collectors.toList());
     }
 
     // ---------------------------------------------------------------------
-    //  LOW STOCK SUMMARY (used by /analytics/low-stock)
+    //  SALES SERIES (any granularity / range / zone)
     // ---------------------------------------------------------------------
-    public Map<String, Object> lowStockSummary(int threshold) {
+    public enum Granularity { HOUR, DAY, WEEK, MONTH }
+
+    // guards against e.g. hourly points over a ten-year range
+    private static final int MAX_SERIES_POINTS = 10_000;
+
+    /**
+     * Re-buckets the UTC hourly rollups into the requested zone.
+     * Only rollup rows inside the range are read, so cost depends on the
+     * range length and not on store history. Zones whose offset is not a
+     * whole hour assign each UTC hour to the bucket its start falls in.
+     */
+    public SalesSeriesDto salesSeries(Instant from, Instant to, Granularity granularity, ZoneId zone) {
+
+        if (!from.isBefore(to))
+            throw new IllegalArgumentException("'from' must be before 'to'");
+
+        ZonedDateTime start = bucketStart(from.atZone(zone), granularity);
+        ZonedDateTime end = bucketStart(to.atZone(zone), granularity);
+        if (end.toInstant().isBefore(to)) end = nextBucket(end, granularity);
+
+        // dense list of bucket starts, zero-filled
+        Map<Instant, SalesPointDto> points = new LinkedHashMap<>();
+        for (ZonedDateTime b = start; b.isBefore(end); b = nextBucket(b, granularity)) {
+            if (points.size() >= MAX_SERIES_POINTS)
+                throw new IllegalArgumentException("Range too large for granularity " + granularity);
+            points.put(b.toInstant(), new SalesPointDto(b.toOffsetDateTime(), 0L, 0.0));
+        }
 
-        List<Product> all = productRepo.findAll();
+        for (HourlySalesRollup r : hourlyRollupRepo.findRange(start.toInstant(), end.toInstant())) {
+            Instant key = bucketStart(r.getBucketStart().atZone(zone), granularity).toInstant();
+            SalesPointDto p = points.get(key);
+            if (p == null) continue;
+            p.setOrders(p.getOrders() + (r.getOrderCount() == null ? 0L : r.getOrderCount()));
+            p.setRevenue(p.getRevenue() + (r.getRevenue() == null ? 0.0 : r.getRevenue()));
+        }
 
-        // FIX: match ProductService logic (stock ≤ reorderLevel or ≤ threshold)
-        List<Product> lowList = all.stream()
-                .filter(p -> {
-                    Integer stock = p.getStock();
-                    if (stock == null) return false;
+        return new SalesSeriesDto(
+                granularity.name().toLowerCase(),
+                zone.getId(),
+                start.toOffsetDateTime(),
+                end.toOffsetDateTime(),
+                new ArrayList<>(points.values())
+        );
+    }
 
-                    Integer rl = p.getReorderLevel();
-                    if (rl == null) rl = 5;
+    private static ZonedDateTime bucketStart(ZonedDateTime t, Granularity g) {
+        switch (g) {
+            case HOUR:
+                return t.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return t.toLocalDate().atStartOfDay(t.getZone());
+            case WEEK:
+                return t.toLocalDate()
+                        .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                        .atStartOfDay(t.getZone());
+            default:
+                return t.toLocalDate().withDayOfMonth(1).atStartOfDay(t.getZone());
+        }
+    }
 
-                    // If user enters threshold, use it as limit
-                    int finalLimit = Math.max(threshold, rl);
+    private static ZonedDateTime nextBucket(ZonedDateTime b, Granularity g) {
+        switch (g) {
+            case HOUR:
+                return b.plusHours(1);
+            case DAY:
+                return b.toLocalDate().plusDays(1).atStartOfDay(b.getZone());
+            case WEEK:
+                return b.toLocalDate().plusWeeks(1).atStartOfDay(b.getZone());
+            default:
+                return b.toLocalDate().plusMonths(1).atStartOfDay(b.getZone());
+        }
+    }
 
-                    return stock <= finalLimit;
-                })
-                .collect(Collectors.toList());
+    // ---------------------------------------------------------------------
+    //  LOW STOCK SUMMARY (used by /analytics/low-stock)
+    // ---------------------------------------------------------------------
+    public Map<String, Object> lowStockSummary(int threshold) {
+
+        // stock ≤ threshold or stock ≤ reorderLevel (null → 5), resolved by indexes
+        List<Product> lowList = productRepo.findAtOrBelow(threshold);
 
         Map<String, Object> map = new HashMap<>();
         map.put("threshold", threshold);
@@ -151,17 +243,25 @@ public class AnalyticsService {
         return map;
     }
 
-    // WRAPPERS (for controller)
+    // ---------------------------------------------------------------------
+    //  TOP PRODUCTS (sketch, or exact for audits)
+    // ---------------------------------------------------------------------
+    public TopProductsDto topProducts(int k, LocalDate day, String category, boolean exact) {
+        return topProductsTracker.top(k, day, category, exact);
+    }
+
+    // WRAPPERS (for controller, served through AnalyticsCache)
     public AnalyticsSummaryDto getAnalyticsSummary() {
-        return summary();
+        return cache.get(AnalyticsCache.Metric.SUMMARY, "all", this::summary);
     }
 
-    public List<DailySalesDto> getAnalyticsDailySales() {
-        return salesDaily();
+    public List<DailySalesDto> getAnalyticsDailySales(Instant from, Instant to, ZoneId zone) {
+        return cache.get(AnalyticsCache.Metric.DAILY_SALES, from + "|" + to + "|" + zone.getId(),
+                () -> salesDaily(from, to, zone));
     }
 
     public Map<String, Object> getAnalyticsLowStockSummary(int threshold) {
-        return lowStockSummary(threshold);
+        return cache.get(AnalyticsCache.Metric.LOW_STOCK, String.valueOf(threshold), () -> lowStockSummary(threshold));
     }
 }
 
@@ -0,0 +1,268 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.CustomerDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.model.ArchivedOrder;
+import com.example.inventory.model.Customer;
+import com.example.inventory.model.Order;
+import com.example.inventory.repository.CustomerRepository;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.spec.OrderSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Customer dimension: orders are linked to one customers row per
+ * normalized email, which carries running order count, lifetime spend and
+ * first / last order time.
+ *
+ * - creates add to the counters with one upsert per customer (per batch
+ *   for bulk writes), in the order's transaction
+ * - updates that move an order between customers or change its total, and
+ *   deletes, recount the affected customers from their index range
+ * - orders written before this table existed are linked after startup by
+ *   a chunked backfill; rerunning it only picks up still-unlinked rows
+ */
+@Service
+public class CustomerService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final CustomerRepository customerRepo;
+    private final OrderRepository orderRepo;
+    private final OrderArchiveService archive;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    public CustomerService(
+            CustomerRepository customerRepo,
+            OrderRepository orderRepo,
+            OrderArchiveService archive,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${customers.backfill-chunk:1000}") int chunkSize
+    ) {
+        this.customerRepo = customerRepo;
+        this.orderRepo = orderRepo;
+        this.archive = archive;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // Running totals for one customer's new orders
+    private static final class Tally {
+        String name;
+        long orders;
+        double spend;
+        Instant first;
+        Instant last;
+
+        void add(Order o) {
+            if (o.getCustomerName() != null) name = o.getCustomerName();
+            orders++;
+            spend += o.getTotal() == null ? 0.0 : o.getTotal();
+            Instant at = o.getCreatedAt();
+            if (at != null && (first == null || at.isBefore(first))) first = at;
+            if (at != null && (last == null || at.isAfter(last))) last = at;
+        }
+    }
+
+    // ============================================================
+    // ORDER WRITES (caller's transaction)
+    // ============================================================
+
+    /**
+     * New orders: sets their customerId and adds them to the counters.
+     * Customers are upserted in email order so concurrent batches lock
+     * their rows in the same sequence.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void attach(Collection<Order> orders) {
+        Map<String, Tally> byEmail = new TreeMap<>();
+        for (Order o : orders) {
+            String email = normalizeEmail(o.getCustomerEmail());
+            if (email != null) byEmail.computeIfAbsent(email, k -> new Tally()).add(o);
+        }
+        if (byEmail.isEmpty()) return;
+
+        Instant now = Instant.now();
+        byEmail.forEach((email, t) ->
+                customerRepo.upsert(email, t.name, t.orders, t.spend, t.first, t.last, now));
+
+        Map<String, Long> ids = ids(byEmail.keySet());
+        for (Order o : orders) {
+            String email = normalizeEmail(o.getCustomerEmail());
+            o.setCustomerId(email == null ? null : ids.get(email));
+        }
+    }
+
+    /**
+     * Order edited: re-links it by its current email and recounts the old
+     * and new customer. Call after the edited order has been flushed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void relink(Order o, Long previousCustomerId) {
+        String email = normalizeEmail(o.getCustomerEmail());
+        Long id = null;
+        if (email != null) {
+            customerRepo.upsert(email, o.getCustomerName(), 0, 0.0, o.getCreatedAt(), o.getCreatedAt(), Instant.now());
+            id = ids(List.of(email)).get(email);
+        }
+        if (!Objects.equals(id, o.getCustomerId())) {
+            o.setCustomerId(id);
+            orderRepo.flush();
+        }
+        recount(previousCustomerId, id);
+    }
+
+    // Order removed: recount the customer it belonged to (after the delete is flushed)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void detach(Long customerId) {
+        recount(customerId);
+    }
+
+    private void recount(Long... ids) {
+        Set<Long> set = new TreeSet<>();
+        for (Long id : ids) if (id != null) set.add(id);
+        if (set.isEmpty()) return;
+        customerRepo.recount(set);
+        customerRepo.addArchived(set);
+    }
+
+    private Map<String, Long> ids(Collection<String> emails) {
+        Map<String, Long> out = new HashMap<>();
+        for (Customer c : customerRepo.findByEmailIn(emails)) out.put(c.getEmail(), c.getId());
+        return out;
+    }
+
+    public static String normalizeEmail(String email) {
+        if (email == null) return null;
+        String e = email.trim().toLowerCase(Locale.ROOT);
+        return e.isEmpty() ? null : e;
+    }
+
+    // ============================================================
+    // READS
+    // ============================================================
+    public CustomerDto get(Long id) {
+        return customerRepo.findById(id).map(CustomerService::toDto).orElse(null);
+    }
+
+    public CustomerDto findByEmail(String email) {
+        String e = normalizeEmail(email);
+        if (e == null) return null;
+        return customerRepo.findByEmail(e).map(CustomerService::toDto).orElse(null);
+    }
+
+    // Newest first, straight off the (customer_id, created_at) index of each tier
+    public Page<OrderSummaryDto> orders(Long customerId, int page, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        Pageable pageable = PageRequest.of(Math.max(0, page), limit, sort);
+
+        Specification<Order> spec = OrderSpecification.hasCustomer(customerId);
+        if (!archive.covers(null)) {
+            List<OrderSummaryDto> rows = orderRepo.findSummaries(spec, sort, pageable.getOffset(), limit);
+            return PageableExecutionUtils.getPage(rows, pageable, () -> orderRepo.count(spec));
+        }
+
+        Specification<ArchivedOrder> cold = OrderSpecification.hasCustomer(customerId);
+        int window = (int) Math.min(pageable.getOffset() + limit, Integer.MAX_VALUE);
+        List<OrderSummaryDto> merged = OrderArchiveService.merge(
+                orderRepo.findSummaries(spec, sort, 0, window), archive.summaries(cold, sort, 0, window), sort);
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        List<OrderSummaryDto> rows = merged.subList(from, Math.min(from + limit, merged.size()));
+        return PageableExecutionUtils.getPage(rows, pageable, () -> orderRepo.count(spec) + archive.count(cold));
+    }
+
+    private static CustomerDto toDto(Customer c) {
+        CustomerDto d = new CustomerDto();
+        d.id = c.getId();
+        d.email = c.getEmail();
+        d.name = c.getName();
+        d.orderCount = c.getOrderCount() == null ? 0 : c.getOrderCount();
+        d.lifetimeSpend = c.getLifetimeSpend() == null ? 0.0 : c.getLifetimeSpend();
+        d.firstOrderAt = c.getFirstOrderAt();
+        d.lastOrderAt = c.getLastOrderAt();
+        return d;
+    }
+
+    // ============================================================
+    // BACKFILL
+    // ============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        Thread t = new Thread(this::backfill, "customer-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void backfill() {
+        try {
+            long started = System.currentTimeMillis();
+            long last = 0;
+            int linked = 0;
+
+            while (true) {
+                List<Object[]> rows = jdbc.query(
+                        "SELECT id, customer_email, customer_name FROM orders " +
+                                "WHERE id > ? AND customer_id IS NULL AND customer_email IS NOT NULL ORDER BY id LIMIT ?",
+                        (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)},
+                        last, chunkSize);
+                if (rows.isEmpty()) break;
+
+                last = (Long) rows.get(rows.size() - 1)[0];
+                Integer n = tx.execute(s -> linkChunk(rows));
+                linked += n == null ? 0 : n;
+            }
+
+            if (linked > 0)
+                System.out.println("✔ Customers backfilled: " + linked + " orders linked in "
+                        + (System.currentTimeMillis() - started) + " ms");
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Customer backfill stopped: " + ex.getMessage());
+        }
+    }
+
+    // Links one chunk of orders, then recounts every customer it touched
+    private int linkChunk(List<Object[]> rows) {
+        Map<String, String> names = new TreeMap<>();
+        for (Object[] r : rows) {
+            String email = normalizeEmail((String) r[1]);
+            if (email != null && (r[2] != null || !names.containsKey(email))) names.put(email, (String) r[2]);
+        }
+        if (names.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        names.forEach((email, name) -> customerRepo.upsert(email, name, 0, 0.0, null, null, now));
+        Map<String, Long> ids = ids(names.keySet());
+
+        List<Object[]> links = new ArrayList<>();
+        for (Object[] r : rows) {
+            Long id = ids.get(normalizeEmail((String) r[1]));
+            if (id != null) links.add(new Object[]{id, r[0]});
+        }
+        // customer_id IS NULL: an order re-linked live meanwhile keeps its link
+        jdbc.batchUpdate("UPDATE orders SET customer_id = ? WHERE id = ? AND customer_id IS NULL", links);
+
+        Set<Long> touched = new TreeSet<>(ids.values());
+        customerRepo.recount(touched);
+        customerRepo.addArchived(touched);
+        return links.size();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.AnalyticsResponse;
+import com.example.inventory.repository.HourlySalesRollupRepository;
+import com.example.inventory.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Builds the composite dashboard by running every independent analytics
+ * query concurrently on the bounded analytics executor.
+ *
+ * Each section has its own timeout, counted from when it starts running,
+ * so a slow or queued section does not use up the budget of the others.
+ * The section runs in a read-only transaction with the same timeout, which
+ * Spring applies to every statement as a JDBC query timeout: a section that
+ * misses its deadline is stopped in the database, not only abandoned here.
+ * A section that fails or times out is listed in failedSections and the
+ * rest of the response is still returned.
+ */
+@Service
+public class DashboardService {
+
+    private static class Section<T> {
+        final String name;
+        final Supplier<T> query;
+        final BiConsumer<AnalyticsResponse, T> setter;
+
+        Section(String name, Supplier<T> query, BiConsumer<AnalyticsResponse, T> setter) {
+            this.name = name;
+            this.query = query;
+            this.setter = setter;
+        }
+    }
+
+    private final AnalyticsService analyticsService;
+    private final ProductRepository productRepo;
+    private final HourlySalesRollupRepository hourlyRollupRepo;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate sectionTx;
+    private final long timeoutMillis;
+
+    public DashboardService(
+            AnalyticsService analyticsService,
+            ProductRepository productRepo,
+            HourlySalesRollupRepository hourlyRollupRepo,
+            ThreadPoolTaskExecutor analyticsExecutor,
+            PlatformTransactionManager txManager,
+            @Value("${analytics.dashboard.section-timeout-ms:2000}") long timeoutMillis
+    ) {
+        this.analyticsService = analyticsService;
+        this.productRepo = productRepo;
+        this.hourlyRollupRepo = hourlyRollupRepo;
+        this.executor = analyticsExecutor;
+        this.timeoutMillis = timeoutMillis;
+
+        // transaction timeouts are whole seconds; round up so the database never cuts a section short
+        this.sectionTx = new TransactionTemplate(txManager);
+        this.sectionTx.setReadOnly(true);
+        this.sectionTx.setTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+    }
+
+    public AnalyticsResponse dashboard() {
+
+        List<Section<?>> sections = List.of(
+                new Section<>("totalProducts", productRepo::count, AnalyticsResponse::setTotalProducts),
+                new Section<>("orderTotals", () -> hourlyRollupRepo.getTotals().get(0), (r, t) -> {
+                    r.setTotalOrders(((Number) t[0]).longValue());
+                    r.setTotalRevenue(((Number) t[1]).doubleValue());
+                }),
+                new Section<>("lowStockCount", productRepo::countAtOrBelowReorderLevel, AnalyticsResponse::setLowStockCount),
+                new Section<>("categoryCounts", analyticsService::categoryCounts, AnalyticsResponse::setCategoryCounts),
+                new Section<>("brandCounts", analyticsService::brandCounts, AnalyticsResponse::setBrandCounts),
+                new Section<>("priceSegments", analyticsService::priceSegments, AnalyticsResponse::setPriceSegments),
+                new Section<>("topProducts", analyticsService::topProducts, AnalyticsResponse::setTopProducts),
+                new Section<>("monthlyRevenue", analyticsService::monthlyRevenue, AnalyticsResponse::setMonthlyRevenue),
+                new Section<>("dailySales", () -> analyticsService.salesDaily(ZoneOffset.UTC), AnalyticsResponse::setDailySales)
+        );
+
+        Map<String, Long> millis = new ConcurrentHashMap<>();
+        Map<String, Long> startedAt = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        long started = System.nanoTime();
+
+        for (Section<?> s : sections) {
+            futures.add(submit(s, millis, startedAt));
+        }
+
+        AnalyticsResponse response = new AnalyticsResponse();
+        List<String> failed = new ArrayList<>();
+
+        for (int i = 0; i < sections.size(); i++) {
+            Section<?> s = sections.get(i);
+            Future<?> f = futures.get(i);
+
+            if (f == null) {
+                failed.add(s.name); // rejected by a saturated pool
+                continue;
+            }
+
+            try {
+                apply(s, response, await(s, f, startedAt));
+            } catch (TimeoutException ex) {
+                f.cancel(true);
+                millis.putIfAbsent(s.name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt.get(s.name)));
+                failed.add(s.name);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failed.add(s.name);
+            } catch (ExecutionException ex) {
+                failed.add(s.name);
+            }
+        }
+
+        // keep the declared section order in the breakdown
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (Section<?> s : sections) {
+            if (millis.containsKey(s.name)) ordered.put(s.name, millis.get(s.name));
+        }
+        ordered.put("total", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        response.setSectionMillis(ordered);
+        response.setFailedSections(failed);
+        return response;
+    }
+
+    /**
+     * Waits until the section's own deadline: its start plus the timeout.
+     * While it is still queued behind other sections its clock has not
+     * started, so keep waiting for it to be picked up.
+     */
+    private Object await(Section<?> s, Future<?> f, Map<String, Long> startedAt)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long budget = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            Long t0 = startedAt.get(s.name);
+            long deadline = (t0 != null ? t0 : System.nanoTime()) + budget;
+            try {
+                return f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                if (t0 != null) throw ex;
+            }
+        }
+    }
+
+    private Future<?> submit(Section<?> s, Map<String, Long> millis, Map<String, Long> startedAt) {
+        try {
+            return executor.submit(() -> {
+                long t0 = System.nanoTime();
+                startedAt.put(s.name, t0);
+                try {
+                    return sectionTx.execute(status -> s.query.get());
+                } finally {
+                    millis.put(s.name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void apply(Section<T> s, AnalyticsResponse response, Object value) {
+        s.setter.accept(response, (T) value);
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.inventory.service;
+
+import com.example.inventory.exception.InsufficientStockException;
+import com.example.inventory.model.Product;
+import com.example.inventory.model.StockShard;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.StockShardRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in sharded stock for flash-sale SKUs.
+ *
+ * A hot product's stock is split across N stock_shards rows so concurrent
+ * checkouts update different rows instead of queueing on one:
+ * - take: probe slots by (product_id, slot) from a random start, locking
+ *   the first that covers the quantity and skipping slots other checkouts
+ *   hold (never waits)
+ * - if no free slot covers it: lock all slots in slot order and drain them
+ *   (contended or nearly sold out)
+ * - give: increment of a random slot
+ * products.stock is rewritten with the slot sum by a background reconcile,
+ * which also raises the low-stock crossing events for hot products.
+ */
+@Service
+public class HotStockService {
+
+    private final StockShardRepository shardRepo;
+    private final ProductRepository productRepo;
+    private final StockEventService stockEvents;
+    private final AnalyticsCache analyticsCache;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int maxSlots;
+
+    // productId → slot count, mirrors products.hot_slots
+    private final Map<Long, Integer> hot = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong fastTakes = new AtomicLong();
+    private final AtomicLong probedTakes = new AtomicLong();
+    private final AtomicLong lockedTakes = new AtomicLong();
+    private final AtomicLong reconciles = new AtomicLong();
+
+    public HotStockService(
+            StockShardRepository shardRepo,
+            ProductRepository productRepo,
+            StockEventService stockEvents,
+            AnalyticsCache analyticsCache,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${stock.hot.max-slots:64}") int maxSlots
+    ) {
+        this.shardRepo = shardRepo;
+        this.productRepo = productRepo;
+        this.stockEvents = stockEvents;
+        this.analyticsCache = analyticsCache;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.maxSlots = maxSlots;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Long> ids = shardRepo.findHotProductIds();
+        if (ids.isEmpty()) return;
+        for (Object[] r : shardRepo.sumByProduct(ids)) {
+            hot.put((Long) r[0], ((Number) r[1]).intValue());
+        }
+        dirty.addAll(hot.keySet());
+    }
+
+    public boolean isHot(Long productId) {
+        return hot.containsKey(productId);
+    }
+
+    // Called when products.hot_slots says hot but this node had not seen it yet
+    public void register(Long productId, int slots) {
+        hot.put(productId, slots);
+    }
+
+    // ============================================================
+    // ENABLE / DISABLE
+    // ============================================================
+    @Transactional
+    public Map<String, Object> enable(Long productId, int slots) {
+        if (slots < 2 || slots > maxSlots)
+            throw new IllegalArgumentException("slots must be between 2 and " + maxSlots);
+
+        // row lock: plain reservations wait, then see hot_slots and reroute
+        Product p = productRepo.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (p.getHotSlots() != null)
+            throw new IllegalArgumentException("Product " + productId + " is already in hot mode");
+
+        int total = p.getStock() == null ? 0 : p.getStock();
+        List<StockShard> shards = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            StockShard s = new StockShard();
+            s.setProductId(productId);
+            s.setSlot(slot);
+            s.setStock(total / slots + (slot < total % slots ? 1 : 0));
+            shards.add(s);
+        }
+        shardRepo.saveAll(shards);
+
+        p.setHotSlots(slots);
+        p.setStock(total);
+        productRepo.save(p);
+
+        afterCommit(() -> hot.put(productId, slots));
+        return status(productId, slots, total);
+    }
+
+    @Transactional
+    public Map<String, Object> disable(Long productId) {
+        Product p = productRepo.findByIdForUpdate(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        if (p.getHotSlots() == null)
+            throw new IllegalArgumentException("Product " + productId + " is not in hot mode");
+
+        int total = lockSlots(productId).stream().mapToInt(r -> r[1]).sum();
+        Integer oldStock = p.getStock();
+
+        shardRepo.deleteByProductIds(List.of(productId));
+        p.setHotSlots(null);
+        p.setStock(total);
+        productRepo.save(p);
+        stockEvents.stockChanged(p, oldStock, p.getReorderLevel(), "RECONCILE");
+
+        afterCommit(() -> {
+            hot.remove(productId);
+            dirty.remove(productId);
+        });
+        return status(productId, 0, total);
+    }
+
+    // Product deleted: its slots go with it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void forget(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().filter(hot::containsKey).toList();
+        if (ids.isEmpty()) return;
+        shardRepo.deleteByProductIds(ids);
+        afterCommit(() -> ids.forEach(id -> {
+            hot.remove(id);
+            dirty.remove(id);
+        }));
+    }
+
+    // ============================================================
+    // TAKE / GIVE (inside the caller's transaction)
+    // ============================================================
+
+    /**
+     * @return false if the product turned out not to be hot (caller falls
+     *         back to the products row)
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = InsufficientStockException.class)
+    public boolean take(Long productId, int qty) {
+        Integer slots = hot.get(productId);
+        if (slots == null) return false;
+
+        // Probe slots one at a time by their unique key, from a random start.
+        // A point lookup reads and locks only that row, so concurrent
+        // checkouts spread over the slots; SKIP LOCKED never waits.
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            List<Integer> picked = jdbc.queryForList(
+                    "SELECT slot FROM stock_shards WHERE product_id = ? AND slot = ? AND stock >= ? " +
+                            "FOR UPDATE SKIP LOCKED",
+                    Integer.class, productId, slot, qty);
+            if (picked.isEmpty()) continue;
+
+            jdbc.update("UPDATE stock_shards SET stock = stock - ? WHERE product_id = ? AND slot = ?",
+                    qty, productId, slot);
+            (i == 0 ? fastTakes : probedTakes).incrementAndGet();
+            markDirty(productId);
+            return true;
+        }
+
+        // No free slot covers it: wait for all slots in slot order and drain them
+        List<int[]> locked = lockSlots(productId);
+        if (locked.isEmpty()) {
+            afterCommit(() -> hot.remove(productId));
+            return false;
+        }
+
+        int available = locked.stream().mapToInt(r -> r[1]).sum();
+        if (available < qty) throw new InsufficientStockException(productId, qty, available);
+
+        locked.sort((a, b) -> Integer.compare(b[1], a[1]));
+        List<Object[]> args = new ArrayList<>();
+        int remaining = qty;
+        for (int[] r : locked) {
+            if (remaining == 0) break;
+            int part = Math.min(remaining, r[1]);
+            if (part == 0) continue;
+            args.add(new Object[]{part, productId, r[0]});
+            remaining -= part;
+        }
+        jdbc.batchUpdate("UPDATE stock_shards SET stock = stock - ? WHERE product_id = ? AND slot = ?", args);
+
+        lockedTakes.incrementAndGet();
+        markDirty(productId);
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean give(Long productId, int qty) {
+        Integer slots = hot.get(productId);
+        if (slots == null) return false;
+
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (shardRepo.incrementSlot(productId, slot, qty) == 0) {
+            afterCommit(() -> hot.remove(productId));
+            return false;
+        }
+        markDirty(productId);
+        return true;
+    }
+
+    // Absolute stock set by a product edit: spread the new total evenly
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rebalance(Long productId, int total) {
+        List<int[]> locked = lockSlots(productId);
+        int slots = locked.size();
+        if (slots == 0) return;
+
+        List<Object[]> args = new ArrayList<>(slots);
+        for (int[] r : locked) {
+            args.add(new Object[]{total / slots + (r[0] < total % slots ? 1 : 0), productId, r[0]});
+        }
+        jdbc.batchUpdate("UPDATE stock_shards SET stock = ? WHERE product_id = ? AND slot = ?", args);
+        markDirty(productId);
+    }
+
+    // [slot, stock] rows, locked in slot order
+    private List<int[]> lockSlots(Long productId) {
+        return new ArrayList<>(jdbc.query(
+                "SELECT slot, stock FROM stock_shards WHERE product_id = ? ORDER BY slot FOR UPDATE",
+                (rs, i) -> new int[]{rs.getInt(1), rs.getInt(2)},
+                productId));
+    }
+
+    // ============================================================
+    // READS
+    // ============================================================
+
+    // Replace the trailing products.stock of hot products with the live slot sum
+    public void overlay(Collection<Product> products) {
+        List<Long> ids = products.stream()
+                .filter(p -> p.getHotSlots() != null)
+                .map(Product::getId)
+                .toList();
+        if (ids.isEmpty()) return;
+
+        Map<Long, Integer> sums = new HashMap<>();
+        for (Object[] r : shardRepo.sumByProduct(ids)) {
+            sums.put((Long) r[0], ((Number) r[2]).intValue());
+        }
+        for (Product p : products) {
+            Integer sum = sums.get(p.getId());
+            if (sum != null) p.setStock(sum);
+        }
+    }
+
+    public Integer total(Long productId) {
+        for (Object[] r : shardRepo.sumByProduct(List.of(productId))) {
+            return ((Number) r[2]).intValue();
+        }
+        return null;
+    }
+
+    // ============================================================
+    // RECONCILE products.stock ← SUM(slots)
+    // ============================================================
+    @Scheduled(fixedDelayString = "${stock.hot.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        if (dirty.isEmpty()) return;
+
+        List<Long> ids = new ArrayList<>(dirty);
+        ids.forEach(dirty::remove);
+
+        try {
+            tx.executeWithoutResult(s -> reconcileNow(ids, "RECONCILE"));
+            reconciles.incrementAndGet();
+        } catch (RuntimeException ex) {
+            dirty.addAll(ids); // retry next round
+            System.out.println("⚠ Hot stock reconcile failed: " + ex.getMessage());
+        }
+    }
+
+    // products.stock of these hot products set to their slot sum, in the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reconcileNow(Collection<Long> ids, String reason) {
+        Map<Long, Integer> sums = new HashMap<>();
+        for (Object[] r : shardRepo.sumByProduct(ids)) {
+            sums.put((Long) r[0], ((Number) r[2]).intValue());
+        }
+
+        List<Object[]> args = new ArrayList<>();
+        for (Product p : productRepo.findAllByIdForUpdate(sums.keySet())) {
+            int sum = sums.get(p.getId());
+            if (p.getHotSlots() == null || Objects.equals(p.getStock(), sum)) continue;
+
+            args.add(new Object[]{sum, p.getId()});
+            stockEvents.stockChanged(p.getId(), p.getSku(), p.getName(), p.getStock(), sum,
+                    p.getReorderLevel(), p.getReorderLevel(), reason);
+        }
+        if (args.isEmpty()) return;
+
+        jdbc.batchUpdate("UPDATE products SET stock = ? WHERE id = ? AND hot_slots IS NOT NULL", args);
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.LOW_STOCK);
+    }
+
+    // ============================================================
+    // STATUS
+    // ============================================================
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("hotProducts", new TreeMap<>(hot));
+        out.put("pendingReconcile", dirty.size());
+        out.put("fastTakes", fastTakes.get());
+        out.put("probedTakes", probedTakes.get());
+        out.put("lockedTakes", lockedTakes.get());
+        out.put("reconciles", reconciles.get());
+        return out;
+    }
+
+    private static Map<String, Object> status(Long productId, int slots, int total) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("productId", productId);
+        out.put("hot", slots > 0);
+        out.put("slots", slots);
+        out.put("stock", total);
+        return out;
+    }
+
+    private void markDirty(Long productId) {
+        afterCommit(() -> dirty.add(productId));
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderRequestDto;
+import com.example.inventory.dto.OrderResponseDto;
+import com.example.inventory.exception.IdempotencyConflictException;
+import com.example.inventory.model.IdempotencyRecord;
+import com.example.inventory.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Idempotency-Key handling for POST /api/orders.
+ *
+ * - repeat keys are answered from a bounded in-memory LRU, then from the
+ *   idempotency_keys table; neither path touches the order tables
+ * - concurrent requests with one key on this node share a single execution
+ * - across nodes the key row is inserted first in the order transaction;
+ *   a second node's insert waits on it and then replays the stored result
+ * - only successful creates are stored: a failed request may be retried
+ * - rows expire after orders.idempotency.ttl-hours and are purged on a timer
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final OrderService orderService;
+    private final IdempotencyRecordRepository recordRepo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+
+    private final Duration ttl;
+    private final long waitMillis;
+
+    private final Map<String, Entry> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    public IdempotencyService(
+            OrderService orderService,
+            IdempotencyRecordRepository recordRepo,
+            ObjectMapper objectMapper,
+            TransactionTemplate tx,
+            @Value("${orders.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${orders.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${orders.idempotency.wait-ms:30000}") long waitMillis
+    ) {
+        this.orderService = orderService;
+        this.recordRepo = recordRepo;
+        this.objectMapper = objectMapper;
+        this.tx = tx;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMillis = waitMillis;
+
+        int capacity = Math.max(1, cacheSize);
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    // What a key resolved to; the response is never mutated after storing
+    private record Entry(String requestHash, OrderResponseDto response, Instant expiresAt) {}
+
+    public record Outcome(OrderResponseDto order, boolean replayed) {}
+
+    // ============================================================
+    // CREATE WITH KEY
+    // ============================================================
+    public Outcome createOrder(String key, OrderRequestDto dto) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH)
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+
+        String hash = hash(dto);
+
+        Entry cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return replay(cached, hash);
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            return replay(await(key, running), hash);
+        }
+
+        try {
+            // the previous owner of the key may have finished just now
+            Entry e = fromMemory(key);
+            if (e == null) e = fromStore(key);
+            if (e != null) {
+                mine.complete(e);
+                return replay(e, hash);
+            }
+
+            e = execute(key, hash, dto);
+            if (e != null) {
+                mine.complete(e);
+                return new Outcome(e.response(), false);
+            }
+
+            // another node committed this key while we waited on its claim
+            e = fromStore(key);
+            if (e == null)
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+            mine.complete(e);
+            return replay(e, hash);
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // null when the key was claimed by someone else first
+    private Entry execute(String key, String hash, OrderRequestDto dto) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+
+        try {
+            Entry e = tx.execute(status -> {
+                // an expired row no longer reserves its key
+                recordRepo.deleteExpiredKey(key, now);
+
+                // claim first: another node's claim waits here until we commit or roll back
+                try {
+                    recordRepo.claim(key, hash, now, expiresAt);
+                } catch (DataIntegrityViolationException ex) {
+                    throw new KeyClaimed();
+                }
+
+                OrderResponseDto created = orderService.createOrder(dto);
+                recordRepo.complete(key, created.id, write(created));
+                return new Entry(hash, created, expiresAt);
+            });
+
+            executed.incrementAndGet();
+            recent.put(key, e);
+            return e;
+        } catch (KeyClaimed ex) {
+            return null;
+        }
+    }
+
+    // The key row already exists; only the claim insert raises it, so order errors pass through
+    private static final class KeyClaimed extends RuntimeException {
+        KeyClaimed() {
+            super(null, null, false, false);
+        }
+    }
+
+    private Entry await(String key, CompletableFuture<Entry> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            conflicts.incrementAndGet();
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException ex) {
+            // same request, same outcome: the first execution's error
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Idempotent request failed for key " + key, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for Idempotency-Key " + key);
+        }
+    }
+
+    private Outcome replay(Entry e, String hash) {
+        if (!e.requestHash().equals(hash)) {
+            conflicts.incrementAndGet();
+            throw new IdempotencyConflictException("Idempotency-Key was already used with a different request body");
+        }
+        return new Outcome(e.response(), true);
+    }
+
+    // ============================================================
+    // LOOKUPS
+    // ============================================================
+    private Entry fromMemory(String key) {
+        Entry e = recent.get(key);
+        if (e == null) return null;
+        if (e.expiresAt().isBefore(Instant.now())) {
+            recent.remove(key);
+            return null;
+        }
+        return e;
+    }
+
+    private Entry fromStore(String key) {
+        IdempotencyRecord r = recordRepo.findById(key).orElse(null);
+        if (r == null || r.getExpiresAt().isBefore(Instant.now())) return null;
+
+        Entry e = new Entry(r.getRequestHash(), read(r.getResponseBody()), r.getExpiresAt());
+        storeHits.incrementAndGet();
+        recent.put(key, e);
+        return e;
+    }
+
+    // ============================================================
+    // PURGE (TTL)
+    // ============================================================
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purge() {
+        Instant now = Instant.now();
+        int removed = recordRepo.deleteExpired(now);
+        synchronized (recent) {
+            recent.values().removeIf(e -> e.expiresAt().isBefore(now));
+        }
+        purged.addAndGet(removed);
+        if (removed > 0) System.out.println("✔ Purged " + removed + " expired idempotency keys");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("cached", recent.size());
+        m.put("inFlight", inFlight.size());
+        m.put("memoryHits", memoryHits.get());
+        m.put("storeHits", storeHits.get());
+        m.put("executed", executed.get());
+        m.put("collapsed", collapsed.get());
+        m.put("conflicts", conflicts.get());
+        m.put("purged", purged.get());
+        return m;
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+    private String hash(OrderRequestDto dto) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(dto).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new RuntimeException("Failed to hash order request", ex);
+        }
+    }
+
+    private String write(OrderResponseDto r) {
+        try {
+            return objectMapper.writeValueAsString(r);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to serialize order response", ex);
+        }
+    }
+
+    private OrderResponseDto read(String json) {
+        try {
+            return objectMapper.readValue(json, OrderResponseDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to read stored order response", ex);
+        }
+    }
+}
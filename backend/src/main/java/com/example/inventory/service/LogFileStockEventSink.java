@@ -0,0 +1,51 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as NDJSON lines to {@code stock.events.log-file}.
+ */
+@Component
+@ConditionalOnProperty(name = "stock.events.log-file")
+public class LogFileStockEventSink implements StockEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    public LogFileStockEventSink(
+            ObjectMapper objectMapper,
+            @Value("${stock.events.log-file}") String file
+    ) {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public String name() {
+        return "log-file";
+    }
+
+    @Override
+    public synchronized void publish(List<StockEventDto> events) throws Exception {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (StockEventDto e : events) {
+                w.write(objectMapper.writeValueAsString(e));
+                w.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderResponseDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.model.ArchivedOrder;
+import com.example.inventory.model.ArchivedOrderItem;
+import com.example.inventory.model.OrderStatus;
+import com.example.inventory.repository.ArchivedOrderItemRepository;
+import com.example.inventory.repository.ArchivedOrderRepository;
+import com.example.inventory.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier order storage: open and recent orders stay in orders /
+ * order_items; DELIVERED and CANCELLED orders older than
+ * orders.archive.after-days move to orders_archive / order_items_archive.
+ *
+ * - the job moves one batch per transaction: lock (skipping rows being
+ *   edited), copy both tables, delete the hot rows and their search grams
+ * - archived orders are read-only; rollups and customer counters already
+ *   hold them, so nothing is retracted
+ * - readers ask {@link #covers} whether a date range can reach the archive;
+ *   ranges starting after the archive boundary never touch it
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final List<String> CLOSED =
+            List.of(OrderStatus.DELIVERED.name(), OrderStatus.CANCELLED.name());
+    private static final int MAX_RUNS_KEPT = 20;
+
+    private final OrderRepository orderRepo;
+    private final ArchivedOrderRepository archivedRepo;
+    private final ArchivedOrderItemRepository archivedItemRepo;
+    private final OrderSearchIndex searchIndex;
+    private final TransactionTemplate tx;
+
+    private final boolean enabled;
+    private final int afterDays;
+    private final int batchSize;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private final Deque<Map<String, Object>> runs = new ArrayDeque<>();
+
+    // newest created_at in the archive; null while it is empty
+    private volatile Instant watermark;
+
+    public OrderArchiveService(
+            OrderRepository orderRepo,
+            ArchivedOrderRepository archivedRepo,
+            ArchivedOrderItemRepository archivedItemRepo,
+            OrderSearchIndex searchIndex,
+            TransactionTemplate tx,
+            @Value("${orders.archive.enabled:true}") boolean enabled,
+            @Value("${orders.archive.after-days:365}") int afterDays,
+            @Value("${orders.archive.batch-size:500}") int batchSize
+    ) {
+        this.orderRepo = orderRepo;
+        this.archivedRepo = archivedRepo;
+        this.archivedItemRepo = archivedItemRepo;
+        this.searchIndex = searchIndex;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.afterDays = Math.max(1, afterDays);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @PostConstruct
+    public void loadWatermark() {
+        watermark = archivedRepo.findWatermark();
+    }
+
+    // ============================================================
+    // TIER SELECTION
+    // ============================================================
+
+    /**
+     * Whether orders created at or after {@code from} (null = unbounded) can
+     * be in the archive. The bound is the later of the archive's newest row
+     * and the current archive cutoff, so it also holds for batches another
+     * node moved since this node last looked.
+     */
+    public boolean covers(Instant from) {
+        if (watermark == null) return false;
+        if (from == null) return true;
+        Instant bound = enabled && cutoff().isAfter(watermark) ? cutoff() : watermark;
+        return !from.isAfter(bound);
+    }
+
+    private Instant cutoff() {
+        return Instant.now().minus(Duration.ofDays(afterDays));
+    }
+
+    // ============================================================
+    // ARCHIVE READS
+    // ============================================================
+    public List<OrderSummaryDto> summaries(Specification<ArchivedOrder> spec, Sort sort, long offset, int limit) {
+        return orderRepo.findArchivedSummaries(spec, sort, offset, limit);
+    }
+
+    public long count(Specification<ArchivedOrder> spec) {
+        return archivedRepo.count(spec);
+    }
+
+    public OrderResponseDto get(Long id) {
+        if (watermark == null) return null;
+        return archivedRepo.findById(id)
+                .map(o -> toDto(o, archivedItemRepo.findByOrderIdInOrderByIdAsc(List.of(id))))
+                .orElse(null);
+    }
+
+    // Full archived orders for a listing page, in one query per table
+    public Map<Long, OrderResponseDto> full(Collection<Long> ids) {
+        if (ids.isEmpty() || watermark == null) return Map.of();
+
+        Map<Long, List<ArchivedOrderItem>> items = new HashMap<>();
+        for (ArchivedOrderItem i : archivedItemRepo.findByOrderIdInOrderByIdAsc(ids)) {
+            items.computeIfAbsent(i.getOrderId(), k -> new ArrayList<>()).add(i);
+        }
+
+        Map<Long, OrderResponseDto> out = new HashMap<>();
+        for (ArchivedOrder o : archivedRepo.findAllById(ids)) {
+            out.put(o.getId(), toDto(o, items.getOrDefault(o.getId(), List.of())));
+        }
+        return out;
+    }
+
+    // Two tiers sorted the same way → one list in that order
+    static List<OrderSummaryDto> merge(List<OrderSummaryDto> hot, List<OrderSummaryDto> cold, Sort sort) {
+        if (cold.isEmpty()) return hot;
+        if (hot.isEmpty()) return cold;
+
+        List<OrderSummaryDto> out = new ArrayList<>(hot.size() + cold.size());
+        out.addAll(hot);
+        out.addAll(cold);
+        out.sort(comparator(sort));
+        return out;
+    }
+
+    static Comparator<OrderSummaryDto> comparator(Sort sort) {
+        Comparator<OrderSummaryDto> c = null;
+        for (Sort.Order o : sort) {
+            Comparator<OrderSummaryDto> next = switch (o.getProperty()) {
+                case "id" -> Comparator.comparing(r -> r.id, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+                case "customerName" -> Comparator.comparing(r -> r.customerName, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                case "customerEmail" -> Comparator.comparing(r -> r.customerEmail, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                case "total" -> Comparator.comparing(r -> r.total, Comparator.nullsFirst(Comparator.<Double>naturalOrder()));
+                case "status" -> Comparator.comparing(r -> r.status, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                case "createdAt" -> Comparator.comparing(r -> r.createdAt, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()));
+                default -> throw new IllegalArgumentException("Cannot sort archived orders by " + o.getProperty());
+            };
+            if (o.isDescending()) next = next.reversed();
+            c = c == null ? next : c.thenComparing(next);
+        }
+        return c == null ? (a, b) -> 0 : c;
+    }
+
+    private static OrderResponseDto toDto(ArchivedOrder o, List<ArchivedOrderItem> lines) {
+        OrderResponseDto r = new OrderResponseDto();
+        r.id = o.getId();
+        r.customerName = o.getCustomerName();
+        r.customerEmail = o.getCustomerEmail();
+        r.total = o.getTotal();
+        r.status = o.getStatus() == null ? null : o.getStatus().name();
+        r.createdAt = o.getCreatedAt();
+        r.itemCount = (long) lines.size();
+
+        r.items = lines.stream().map(i -> {
+            OrderResponseDto.Item it = new OrderResponseDto.Item();
+            it.id = i.getId();
+            it.productId = i.getProductId();
+            it.productName = i.getProductName();
+            it.unitPrice = i.getUnitPrice();
+            it.quantity = i.getQuantity();
+            return it;
+        }).toList();
+        return r;
+    }
+
+    // ============================================================
+    // ARCHIVE JOB
+    // ============================================================
+    @Scheduled(
+            fixedDelayString = "${orders.archive.interval-ms:3600000}",
+            initialDelayString = "${orders.archive.initial-delay-ms:300000}"
+    )
+    public void scheduledRun() {
+        if (enabled) archive();
+        else loadWatermark();
+    }
+
+    public Map<String, Object> archive() {
+        if (!running.tryLock())
+            throw new IllegalStateException("An archive run is already in progress");
+
+        try {
+            long started = System.nanoTime();
+            Instant cutoff = cutoff();
+            int moved = 0;
+            int batches = 0;
+
+            while (true) {
+                Integer n = tx.execute(s -> archiveBatch(cutoff));
+                if (n == null || n == 0) break;
+                moved += n;
+                batches++;
+                if (n < batchSize) break;
+            }
+            loadWatermark();
+
+            long millis = (System.nanoTime() - started) / 1_000_000;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("startedAt", Instant.now().minusMillis(millis));
+            result.put("cutoff", cutoff);
+            result.put("millis", millis);
+            result.put("ordersArchived", moved);
+            result.put("batches", batches);
+            result.put("ordersPerSecond", millis == 0 ? moved : moved * 1000.0 / millis);
+
+            synchronized (runs) {
+                runs.addFirst(result);
+                while (runs.size() > MAX_RUNS_KEPT) runs.removeLast();
+            }
+            if (moved > 0)
+                System.out.println("✔ Archived " + moved + " orders older than " + cutoff + " (" + millis + " ms)");
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private int archiveBatch(Instant cutoff) {
+        List<Long> ids = orderRepo.lockArchivable(CLOSED, cutoff, batchSize);
+        if (ids.isEmpty()) return 0;
+
+        // readers include the archive before the hot rows disappear
+        if (watermark == null) watermark = cutoff;
+
+        archivedRepo.copyFromOrders(ids, Instant.now());
+        archivedRepo.copyItemsFromOrders(ids);
+        searchIndex.remove(ids);
+        orderRepo.deleteItemsOf(ids);
+        orderRepo.deleteByIds(ids);
+        return ids.size();
+    }
+
+    // ============================================================
+    // STATS
+    // ============================================================
+    public Map<String, Object> stats() {
+        Long hot = estimate(orderRepo::estimateRowCount, orderRepo::count);
+        Long cold = estimate(archivedRepo::estimateRowCount, archivedRepo::count);
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("afterDays", afterDays);
+        out.put("watermark", watermark);
+        out.put("hotOrders", hot);
+        out.put("archivedOrders", cold);
+        out.put("hotShare", hot + cold == 0 ? 1.0 : (double) hot / (hot + cold));
+        synchronized (runs) {
+            out.put("recentRuns", new ArrayList<>(runs));
+        }
+        return out;
+    }
+
+    // table statistics where the database has them, else an exact count
+    private static Long estimate(Supplier<Long> estimate, Supplier<Long> exact) {
+        try {
+            Long n = estimate.get();
+            if (n != null) return n;
+        } catch (RuntimeException ex) {
+            // no table statistics on this database
+        }
+        return exact.get();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderRequestDto;
+import com.example.inventory.exception.InsufficientStockException;
+import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderItem;
+import com.example.inventory.model.OrderStatus;
+import com.example.inventory.model.Product;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Creates many orders in the caller's transaction (bulk ingestion, async
+ * queue) with per-batch rather than per-order work.
+ *
+ * - one query resolves and locks every product of the batch, in id order
+ * - stock is allocated in memory in request order; each product then gets a
+ *   single decrement for everything the batch accepted
+ * - hot (sharded) products keep going through their slots per order
+ * - orders are inserted through Hibernate JDBC batches, rollups get one
+ *   upsert per bucket key
+ * - a request that fails validation or stock is reported, not thrown
+ */
+@Service
+public class OrderBatchWriter {
+
+    private final OrderRepository orderRepo;
+    private final ProductRepository productRepo;
+    private final StockReservationService stockReservations;
+    private final AnalyticsRollupService rollupService;
+    private final TopProductsTracker topProducts;
+    private final AnalyticsCache analyticsCache;
+    private final OrderSearchIndex searchIndex;
+    private final CustomerService customers;
+
+    public OrderBatchWriter(
+            OrderRepository orderRepo,
+            ProductRepository productRepo,
+            StockReservationService stockReservations,
+            AnalyticsRollupService rollupService,
+            TopProductsTracker topProducts,
+            AnalyticsCache analyticsCache,
+            OrderSearchIndex searchIndex,
+            CustomerService customers
+    ) {
+        this.orderRepo = orderRepo;
+        this.productRepo = productRepo;
+        this.stockReservations = stockReservations;
+        this.rollupService = rollupService;
+        this.topProducts = topProducts;
+        this.analyticsCache = analyticsCache;
+        this.searchIndex = searchIndex;
+        this.customers = customers;
+    }
+
+    // Exactly one of order / error is set
+    public record Result(Order order, String error) {}
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Result> write(List<OrderRequestDto> requests) {
+
+        Set<Long> ids = new TreeSet<>();
+        for (OrderRequestDto dto : requests) {
+            if (dto == null || dto.items == null) continue;
+            for (OrderRequestDto.Item it : dto.items) {
+                if (it.productId != null && it.productId > 0) ids.add(it.productId);
+            }
+        }
+
+        // Locked here, so what we read is what the decrements below will see
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> available = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Product p : productRepo.findAllByIdForUpdate(ids)) {
+                products.put(p.getId(), p);
+                if (p.getHotSlots() == null) available.put(p.getId(), p.getStock() == null ? 0 : p.getStock());
+            }
+        }
+
+        List<Result> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        Map<Long, Integer> taken = new TreeMap<>();
+        Map<Long, String> categories = new HashMap<>();
+
+        for (OrderRequestDto dto : requests) {
+            try {
+                Order o = build(dto, products, categories);
+                if (OrderService.holdsStock(o.getStatus())) allocate(o, available, taken);
+                orders.add(o);
+                results.add(new Result(o, null));
+            } catch (InsufficientStockException | IllegalArgumentException ex) {
+                results.add(new Result(null, ex.getMessage()));
+            }
+        }
+
+        if (orders.isEmpty()) return results;
+
+        // One conditional decrement per product; always fits, the rows are locked
+        stockReservations.reserve(taken);
+        customers.attach(orders);
+
+        orderRepo.saveAll(orders);
+        orderRepo.flush();
+        searchIndex.add(orders);
+
+        rollupService.recordOrders(orders, categories);
+        for (Order o : orders) topProducts.recordOrder(o, categories);
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.DAILY_SALES);
+
+        return results;
+    }
+
+    // Takes the order's units from the in-memory balance, or rejects it whole
+    private void allocate(Order o, Map<Long, Integer> available, Map<Long, Integer> taken) {
+        Map<Long, Integer> wanted = StockReservationService.quantities(o.getItems());
+        Map<Long, Integer> hot = new TreeMap<>();
+
+        for (Map.Entry<Long, Integer> e : wanted.entrySet()) {
+            Integer left = available.get(e.getKey());
+            if (left == null) {
+                hot.put(e.getKey(), e.getValue());
+            } else if (left < e.getValue()) {
+                throw new InsufficientStockException(e.getKey(), e.getValue(), left);
+            }
+        }
+
+        // slots are shared with other nodes, so they are taken now, per order
+        if (!hot.isEmpty()) stockReservations.reserve(hot);
+
+        for (Map.Entry<Long, Integer> e : wanted.entrySet()) {
+            if (hot.containsKey(e.getKey())) continue;
+            available.merge(e.getKey(), -e.getValue(), Integer::sum);
+            taken.merge(e.getKey(), e.getValue(), Integer::sum);
+        }
+    }
+
+    // Same rules as OrderService.createOrder
+    private Order build(OrderRequestDto dto, Map<Long, Product> products, Map<Long, String> categories) {
+        if (dto == null) throw new IllegalArgumentException("Empty order");
+
+        Order o = new Order();
+        o.setCustomerName(dto.customerName);
+        o.setCustomerEmail(dto.customerEmail);
+        o.setStatus(dto.status != null ? OrderStatus.valueOf(dto.status) : OrderStatus.PENDING);
+        o.setCreatedAt(Instant.now());
+
+        double total = 0.0;
+        if (dto.items != null) {
+            for (OrderRequestDto.Item it : dto.items) {
+
+                if (it.productId == null || it.productId <= 0) continue;
+
+                int qty = it.quantity == null ? 1 : it.quantity;
+                if (qty <= 0)
+                    throw new IllegalArgumentException("Quantity must be positive for product " + it.productId);
+
+                Product p = products.get(it.productId);
+                if (p == null)
+                    throw new IllegalArgumentException("Unknown product id: " + it.productId);
+
+                OrderItem item = new OrderItem();
+                item.setProductId(p.getId());
+                item.setProductName(p.getName());
+                item.setUnitPrice(p.getPrice());
+                item.setQuantity(qty);
+                categories.put(p.getId(), p.getCategory());
+
+                o.addItem(item);
+                total += item.getUnitPrice() * item.getQuantity();
+            }
+        }
+        if (o.getItems().isEmpty())
+            throw new IllegalArgumentException("Order has no items");
+
+        o.setTotal(total);
+        return o;
+    }
+}
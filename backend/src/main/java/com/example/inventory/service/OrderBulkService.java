@@ -0,0 +1,250 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.BulkOrderResultDto;
+import com.example.inventory.dto.OrderRequestDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk order ingestion (marketplace syncs).
+ *
+ * - the body is read line by line; only the current chunk is held in memory
+ * - NDJSON: one OrderRequestDto per line
+ * - CSV: header row, then one row per order line; consecutive rows sharing
+ *   an orderRef form one order (rows without a ref are single-line orders)
+ * - each chunk is one transaction written by {@link OrderBatchWriter}
+ * - a row that fails validation or stock is reported and skipped; the rest
+ *   of its chunk still commits
+ */
+@Service
+public class OrderBulkService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String CREATED = "CREATED";
+    private static final String FAILED = "FAILED";
+    private static final List<String> CSV_COLUMNS =
+            List.of("orderRef", "customerName", "customerEmail", "status", "productId", "quantity");
+
+    private final OrderBatchWriter writer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+
+    private final int chunkSize;
+
+    public OrderBulkService(
+            OrderBatchWriter writer,
+            ObjectMapper objectMapper,
+            TransactionTemplate tx,
+            @Value("${orders.bulk.chunk-size:500}") int chunkSize
+    ) {
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.tx = tx;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // One parsed order waiting for its chunk
+    private record Pending(BulkOrderResultDto.Row row, OrderRequestDto dto) {}
+
+    // ============================================================
+    // ENTRY
+    // ============================================================
+    public BulkOrderResultDto ingest(InputStream body, String format) throws IOException {
+        long started = System.currentTimeMillis();
+        BulkOrderResultDto result = new BulkOrderResultDto();
+        List<Pending> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        if (FORMAT_CSV.equals(format)) readCsv(reader, result, chunk);
+        else readNdjson(reader, result, chunk);
+
+        flush(chunk, result);
+
+        for (BulkOrderResultDto.Row r : result.rows) {
+            if (CREATED.equals(r.status)) result.created++;
+            else result.failed++;
+        }
+        result.total = result.rows.size();
+        result.millis = System.currentTimeMillis() - started;
+        return result;
+    }
+
+    // ============================================================
+    // PARSING
+    // ============================================================
+    private void readNdjson(BufferedReader reader, BulkOrderResultDto result, List<Pending> chunk) throws IOException {
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+
+            BulkOrderResultDto.Row row = row(result, lineNo, String.valueOf(lineNo));
+            try {
+                add(new Pending(row, objectMapper.readValue(line, OrderRequestDto.class)), chunk, result);
+            } catch (JsonProcessingException ex) {
+                fail(row, "Invalid JSON: " + ex.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, BulkOrderResultDto result, List<Pending> chunk) throws IOException {
+        String header = reader.readLine();
+        if (header == null) return;
+
+        List<String> names = splitCsv(header);
+        int[] col = new int[CSV_COLUMNS.size()];
+        for (int c = 0; c < col.length; c++) {
+            col[c] = names.indexOf(CSV_COLUMNS.get(c));
+        }
+        if (col[4] < 0)
+            throw new IllegalArgumentException("CSV header must contain " + CSV_COLUMNS);
+
+        Pending current = null;
+        String line;
+        int lineNo = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+
+            List<String> f = splitCsv(line);
+            String ref = field(f, col[0]);
+
+            // next order starts: hand the finished one to the chunk
+            if (current == null || ref == null || !ref.equals(current.row().ref)) {
+                if (current != null) add(current, chunk, result);
+
+                OrderRequestDto dto = new OrderRequestDto();
+                dto.customerName = field(f, col[1]);
+                dto.customerEmail = field(f, col[2]);
+                dto.status = field(f, col[3]);
+                dto.items = new ArrayList<>();
+                current = new Pending(row(result, lineNo, ref != null ? ref : String.valueOf(lineNo)), dto);
+            }
+
+            OrderRequestDto.Item it = new OrderRequestDto.Item();
+            try {
+                it.productId = Long.valueOf(field(f, col[4]));
+                String qty = field(f, col[5]);
+                it.quantity = qty == null ? null : Integer.valueOf(qty);
+            } catch (NumberFormatException ex) {
+                if (current.row().error == null) fail(current.row(), "Line " + lineNo + ": invalid number");
+            }
+            current.dto().items.add(it);
+
+            // an order that ends a ref-less row is complete immediately
+            if (ref == null) {
+                add(current, chunk, result);
+                current = null;
+            }
+        }
+        if (current != null) add(current, chunk, result);
+    }
+
+    // Minimal RFC 4180 split: quoted fields may hold commas and "" escapes
+    private static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(sb.toString().trim());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        out.add(sb.toString().trim());
+        return out;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) return null;
+        String v = fields.get(index);
+        return v.isEmpty() ? null : v;
+    }
+
+    // ============================================================
+    // CHUNKS
+    // ============================================================
+    private void add(Pending p, List<Pending> chunk, BulkOrderResultDto result) {
+        if (p.row().error != null) return;
+
+        chunk.add(p);
+        if (chunk.size() >= chunkSize) flush(chunk, result);
+    }
+
+    private void flush(List<Pending> chunk, BulkOrderResultDto result) {
+        if (chunk.isEmpty()) return;
+        result.chunks++;
+
+        try {
+            tx.executeWithoutResult(status -> writeChunk(chunk));
+        } catch (RuntimeException ex) {
+            // the whole chunk rolled back: nothing in it was created
+            for (Pending p : chunk) {
+                if (p.row().error == null)
+                    fail(p.row(), "Chunk rolled back: " + ex.getMessage());
+                p.row().orderId = null;
+            }
+        }
+        chunk.clear();
+    }
+
+    private void writeChunk(List<Pending> chunk) {
+        List<OrderRequestDto> requests = new ArrayList<>(chunk.size());
+        for (Pending p : chunk) requests.add(p.dto());
+
+        List<OrderBatchWriter.Result> results = writer.write(requests);
+
+        for (int i = 0; i < chunk.size(); i++) {
+            OrderBatchWriter.Result r = results.get(i);
+            BulkOrderResultDto.Row row = chunk.get(i).row();
+            if (r.error() != null) {
+                fail(row, r.error());
+            } else {
+                row.status = CREATED;
+                row.orderId = r.order().getId();
+            }
+        }
+    }
+
+    private static BulkOrderResultDto.Row row(BulkOrderResultDto result, int line, String ref) {
+        BulkOrderResultDto.Row row = new BulkOrderResultDto.Row();
+        row.line = line;
+        row.ref = ref;
+        result.rows.add(row);
+        return row;
+    }
+
+    private static void fail(BulkOrderResultDto.Row row, String error) {
+        row.status = FAILED;
+        row.error = error;
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderRequestDto;
+import com.example.inventory.dto.OrderTicketDto;
+import com.example.inventory.model.OrderStatus;
+import com.example.inventory.model.OrderTicket;
+import com.example.inventory.model.OrderTicketStatus;
+import com.example.inventory.repository.OrderTicketRepository;
+import com.example.inventory.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accept-and-queue order creation (POST /api/orders/async).
+ *
+ * - submit validates the request, stores it as a QUEUED ticket and returns
+ * - a dispatcher starts workers while the queue has tickets; each worker
+ *   claims a micro-batch with SKIP LOCKED (safe with several nodes) and
+ *   writes it through {@link OrderBatchWriter}, so stock moves once per
+ *   product per batch
+ * - ticket outcomes commit with their orders; a batch that fails as a whole
+ *   is retried ticket by ticket so one bad ticket cannot block the rest
+ * - tickets stuck in PROCESSING (dead or slow worker) are put back in the
+ *   queue; every claim carries a lease token and the outcome write checks
+ *   it, so a slow worker that lost its tickets rolls its orders back
+ * - clients poll /api/orders/tickets/{id} or subscribe to its SSE stream
+ */
+@Service
+public class OrderQueueService {
+
+    private static final int LATENCY_WINDOW = 1024;
+
+    private final OrderTicketRepository ticketRepo;
+    private final ProductRepository productRepo;
+    private final OrderBatchWriter writer;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final long staleMillis;
+    private final Duration retention;
+    private final long sseTimeoutMillis;
+
+    private final ExecutorService pool;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<Long, List<SseEmitter>> watchers = new ConcurrentHashMap<>();
+
+    // metrics
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+
+    public OrderQueueService(
+            OrderTicketRepository ticketRepo,
+            ProductRepository productRepo,
+            OrderBatchWriter writer,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${orders.async.enabled:true}") boolean enabled,
+            @Value("${orders.async.workers:4}") int workers,
+            @Value("${orders.async.batch-size:100}") int batchSize,
+            @Value("${orders.async.stale-ms:60000}") long staleMillis,
+            @Value("${orders.async.retention-hours:24}") long retentionHours,
+            @Value("${orders.async.sse-timeout-ms:60000}") long sseTimeoutMillis
+    ) {
+        this.ticketRepo = ticketRepo;
+        this.productRepo = productRepo;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.staleMillis = staleMillis;
+        this.retention = Duration.ofHours(retentionHours);
+        this.sseTimeoutMillis = sseTimeoutMillis;
+
+        this.pool = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "order-queue-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ============================================================
+    // SUBMIT
+    // ============================================================
+    @Transactional
+    public OrderTicketDto submit(OrderRequestDto dto) {
+        validate(dto);
+
+        OrderTicket t = new OrderTicket();
+        t.setPayload(write(dto));
+        t.setCreatedAt(Instant.now());
+        return toDto(ticketRepo.save(t));
+    }
+
+    // Cheap checks only; stock is decided by the worker
+    private void validate(OrderRequestDto dto) {
+        if (dto == null || dto.items == null || dto.items.isEmpty())
+            throw new IllegalArgumentException("Order has no items");
+
+        if (dto.status != null) {
+            try {
+                OrderStatus.valueOf(dto.status);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid order status: " + dto.status);
+            }
+        }
+
+        Set<Long> ids = new TreeSet<>();
+        for (OrderRequestDto.Item it : dto.items) {
+            if (it.productId == null || it.productId <= 0) continue;
+            if (it.quantity != null && it.quantity <= 0)
+                throw new IllegalArgumentException("Quantity must be positive for product " + it.productId);
+            ids.add(it.productId);
+        }
+        if (ids.isEmpty()) throw new IllegalArgumentException("Order has no items");
+
+        Set<Long> known = new HashSet<>();
+        for (Object[] r : productRepo.findStockLevels(ids)) known.add((Long) r[0]);
+        List<Long> unknown = ids.stream().filter(id -> !known.contains(id)).toList();
+        if (!unknown.isEmpty())
+            throw new IllegalArgumentException("Unknown product ids: " + unknown);
+    }
+
+    // ============================================================
+    // STATUS (poll / SSE)
+    // ============================================================
+    public OrderTicketDto get(Long id) {
+        return ticketRepo.findById(id).map(this::toDto).orElse(null);
+    }
+
+    public SseEmitter subscribe(Long id) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        List<SseEmitter> list = watchers.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        emitter.onCompletion(() -> list.remove(emitter));
+        emitter.onTimeout(() -> list.remove(emitter));
+        emitter.onError(ex -> list.remove(emitter));
+
+        // registered first, then read: an outcome cannot slip in between unseen
+        OrderTicketDto current = get(id);
+        if (current == null) {
+            list.remove(emitter);
+            emitter.completeWithError(new NoSuchElementException("Ticket not found: " + id));
+        } else if (isFinal(current.status)) {
+            notifyWatchers(current);
+        } else {
+            send(emitter, current);
+        }
+        return emitter;
+    }
+
+    private void notifyWatchers(OrderTicketDto t) {
+        List<SseEmitter> list = watchers.remove(t.id);
+        if (list == null) return;
+        for (SseEmitter emitter : list) {
+            if (send(emitter, t)) emitter.complete();
+        }
+    }
+
+    private boolean send(SseEmitter emitter, OrderTicketDto t) {
+        try {
+            emitter.send(SseEmitter.event().name(t.status).data(t, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+
+    // ============================================================
+    // WORKERS
+    // ============================================================
+    @Scheduled(fixedDelayString = "${orders.async.poll-ms:200}")
+    public void dispatch() {
+        if (!enabled) return;
+
+        long depth = ticketRepo.countByStatus(OrderTicketStatus.QUEUED);
+        long wanted = Math.min(workers, (depth + batchSize - 1) / batchSize);
+        while (active.get() < wanted) {
+            active.incrementAndGet();
+            pool.submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<OrderTicket> batch;
+            while (!(batch = claim()).isEmpty()) {
+                process(batch);
+            }
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Order queue worker stopped: " + ex.getMessage());
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private List<OrderTicket> claim() {
+        return tx.execute(status -> {
+            List<Long> ids = jdbc.queryForList(
+                    "SELECT id FROM order_tickets WHERE status = 'QUEUED' ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                    Long.class, batchSize);
+            if (ids.isEmpty()) return List.of();
+
+            ticketRepo.markStarted(ids, OrderTicketStatus.PROCESSING, UUID.randomUUID().toString(), Instant.now());
+            List<OrderTicket> tickets = new ArrayList<>(ticketRepo.findAllById(ids));
+            tickets.sort(Comparator.comparing(OrderTicket::getId));
+            return tickets;
+        });
+    }
+
+    private void process(List<OrderTicket> batch) {
+        List<OrderTicket> runnable = new ArrayList<>(batch.size());
+        List<OrderRequestDto> requests = new ArrayList<>(batch.size());
+        List<OrderTicket> done = new ArrayList<>(batch.size());
+
+        for (OrderTicket t : batch) {
+            try {
+                requests.add(objectMapper.readValue(t.getPayload(), OrderRequestDto.class));
+                runnable.add(t);
+            } catch (JsonProcessingException ex) {
+                fail(t, "Unreadable payload: " + ex.getOriginalMessage());
+                try {
+                    tx.executeWithoutResult(s -> finish(t));
+                    done.add(t);
+                } catch (LeaseLost ignored) {
+                    // requeued meanwhile; the new owner reports the outcome
+                }
+            }
+        }
+
+        if (!runnable.isEmpty()) {
+            try {
+                tx.executeWithoutResult(status -> {
+                    List<OrderBatchWriter.Result> results = writer.write(requests);
+                    Instant now = Instant.now();
+                    for (int i = 0; i < runnable.size(); i++) {
+                        OrderTicket t = runnable.get(i);
+                        OrderBatchWriter.Result r = results.get(i);
+                        if (r.error() != null) {
+                            fail(t, r.error());
+                        } else {
+                            t.setStatus(OrderTicketStatus.CREATED);
+                            t.setOrderId(r.order().getId());
+                            t.setError(null);
+                            t.setCompletedAt(now);
+                        }
+                        // throws if the lease was lost, rolling back the orders with it
+                        finish(t);
+                    }
+                });
+                done.addAll(runnable);
+            } catch (LeaseLost ex) {
+                if (runnable.size() > 1) {
+                    // only the tickets still held by this claim are written again
+                    for (OrderTicket t : runnable) {
+                        if (t != ex.ticket) process(List.of(t));
+                    }
+                }
+            } catch (RuntimeException ex) {
+                if (runnable.size() > 1) {
+                    // isolate the ticket that broke the batch
+                    for (OrderTicket t : runnable) process(List.of(t));
+                    return;
+                }
+                OrderTicket t = runnable.get(0);
+                fail(t, ex.getMessage());
+                t.setOrderId(null);
+                try {
+                    tx.executeWithoutResult(s -> finish(t));
+                    done.add(t);
+                } catch (LeaseLost ignored) {
+                    // requeued meanwhile; the new owner reports the outcome
+                }
+            }
+        }
+
+        if (!done.isEmpty()) record(done);
+    }
+
+    private void finish(OrderTicket t) {
+        int updated = ticketRepo.complete(t.getId(), t.getLease(), OrderTicketStatus.PROCESSING,
+                t.getStatus(), t.getOrderId(), t.getError(), t.getCompletedAt());
+        if (updated == 0) throw new LeaseLost(t);
+    }
+
+    private void fail(OrderTicket t, String error) {
+        t.setStatus(OrderTicketStatus.FAILED);
+        t.setError(error == null ? "Order creation failed"
+                : error.length() > 1000 ? error.substring(0, 1000) : error);
+        t.setCompletedAt(Instant.now());
+    }
+
+    // The ticket was requeued by recover() while this worker still held it
+    private static final class LeaseLost extends RuntimeException {
+        final OrderTicket ticket;
+
+        LeaseLost(OrderTicket ticket) {
+            super("Lease lost for order ticket " + ticket.getId(), null, false, false);
+            this.ticket = ticket;
+        }
+    }
+
+    private void record(List<OrderTicket> batch) {
+        batches.incrementAndGet();
+        lastBatchSize.set(batch.size());
+
+        for (OrderTicket t : batch) {
+            processed.incrementAndGet();
+            if (t.getStatus() == OrderTicketStatus.CREATED) created.incrementAndGet();
+            else failed.incrementAndGet();
+
+            OrderTicketDto dto = toDto(t);
+            if (dto.latencyMillis != null) {
+                synchronized (latencies) {
+                    latencies[latencyCount++ % LATENCY_WINDOW] = dto.latencyMillis;
+                }
+            }
+            notifyWatchers(dto);
+        }
+    }
+
+    // ============================================================
+    // RECOVERY / PURGE
+    // ============================================================
+    @Scheduled(fixedDelayString = "${orders.async.recover-interval-ms:30000}")
+    @Transactional
+    public void recover() {
+        Instant now = Instant.now();
+        int requeued = ticketRepo.requeueStale(OrderTicketStatus.PROCESSING, OrderTicketStatus.QUEUED,
+                now.minusMillis(staleMillis));
+        int purged = ticketRepo.deleteCompletedBefore(now.minus(retention));
+
+        if (requeued > 0) System.out.println("⚠ Requeued " + requeued + " stale order tickets");
+        if (purged > 0) System.out.println("✔ Purged " + purged + " completed order tickets");
+    }
+
+    // ============================================================
+    // METRICS
+    // ============================================================
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queueDepth", ticketRepo.countByStatus(OrderTicketStatus.QUEUED));
+        m.put("processing", ticketRepo.countByStatus(OrderTicketStatus.PROCESSING));
+        m.put("activeWorkers", active.get());
+        m.put("batches", batches.get());
+        m.put("processed", processed.get());
+        m.put("created", created.get());
+        m.put("failed", failed.get());
+        m.put("lastBatchSize", lastBatchSize.get());
+        m.put("avgBatchSize", batches.get() == 0 ? 0.0 : (double) processed.get() / batches.get());
+
+        long[] window;
+        synchronized (latencies) {
+            window = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+        }
+        Arrays.sort(window);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", window.length);
+        latency.put("avgMillis", window.length == 0 ? 0 : Arrays.stream(window).sum() / window.length);
+        latency.put("p95Millis", window.length == 0 ? 0 : window[(int) Math.ceil(window.length * 0.95) - 1]);
+        latency.put("maxMillis", window.length == 0 ? 0 : window[window.length - 1]);
+        m.put("endToEndLatency", latency);
+        return m;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+    private static boolean isFinal(String status) {
+        return OrderTicketStatus.CREATED.name().equals(status) || OrderTicketStatus.FAILED.name().equals(status);
+    }
+
+    private String write(OrderRequestDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to serialize order request", ex);
+        }
+    }
+
+    private OrderTicketDto toDto(OrderTicket t) {
+        OrderTicketDto d = new OrderTicketDto();
+        d.id = t.getId();
+        d.status = t.getStatus().name();
+        d.orderId = t.getOrderId();
+        d.error = t.getError();
+        d.createdAt = t.getCreatedAt();
+        d.completedAt = t.getCompletedAt();
+        if (t.getCompletedAt() != null && t.getCreatedAt() != null)
+            d.latencyMillis = Duration.between(t.getCreatedAt(), t.getCompletedAt()).toMillis();
+        return d;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.inventory.service;
+
+import com.example.inventory.model.Order;
+import com.example.inventory.model.SearchIndexState;
+import com.example.inventory.repository.SearchIndexStateRepository;
+import com.example.inventory.spec.OrderSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over order customer name and email (order_search_grams).
+ *
+ * - order writes add / replace / remove their grams in the same transaction
+ * - existing orders are backfilled in id chunks after startup; progress is
+ *   kept in search_index_state so a restart resumes
+ * - until the backfill has finished, contains-search falls back to the
+ *   scanning LIKE so results are never missing rows
+ * - text is lowercased, accents are stripped, whitespace becomes '_' and
+ *   anything still outside ASCII becomes '?': two distinct grams can then
+ *   never collide in the (gram, order_id) key under MySQL's
+ *   accent/case-insensitive collation; the LIKE check filters the extra
+ *   candidates that folding lets through
+ */
+@Service
+public class OrderSearchIndex {
+
+    public static final int GRAM = 3;
+    private static final String STATE = "order_customer_grams";
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NON_ASCII = Pattern.compile("[^\\x21-\\x7E]");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SearchIndexStateRepository stateRepo;
+    private final int chunkSize;
+
+    private volatile boolean ready;
+
+    public OrderSearchIndex(
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            SearchIndexStateRepository stateRepo,
+            @Value("${orders.search.backfill-chunk:1000}") int chunkSize
+    ) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.stateRepo = stateRepo;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // ============================================================
+    // QUERY SIDE
+    // ============================================================
+
+    // Substring filter for listings: gram lookup once built, LIKE scan before
+    public Specification<Order> customerContains(String text) {
+        if (text == null || text.isBlank()) return null;
+
+        Set<String> grams = grams(text);
+        if (grams.isEmpty()) {
+            // shorter than a gram: a prefix match still uses the column indexes
+            return OrderSpecification.customerPrefix(text);
+        }
+        return ready
+                ? OrderSpecification.customerGramsMatch(text, grams)
+                : OrderSpecification.customerNameContains(text);
+    }
+
+    /**
+     * Orders sharing at least minShare of the term's grams, best first.
+     * Tolerates typos and transpositions that a substring match misses.
+     */
+    public List<Long> fuzzyCandidates(String text, double minShare, int limit) {
+        Set<String> grams = grams(text);
+        if (grams.isEmpty()) return List.of();
+
+        int need = Math.max(1, (int) Math.ceil(grams.size() * minShare));
+        String in = String.join(",", Collections.nCopies(grams.size(), "?"));
+
+        List<Object> args = new ArrayList<>(grams);
+        args.add(need);
+        args.add(limit);
+
+        return jdbc.queryForList(
+                "SELECT order_id FROM order_search_grams WHERE gram IN (" + in + ") " +
+                        "GROUP BY order_id HAVING COUNT(*) >= ? ORDER BY COUNT(*) DESC, order_id DESC LIMIT ?",
+                Long.class, args.toArray());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============================================================
+    // WRITE SIDE (inside the order transaction)
+    // ============================================================
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Collection<Order> orders) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Order o : orders) {
+            for (String g : grams(o.getCustomerName(), o.getCustomerEmail())) {
+                rows.add(new Object[]{g, o.getId()});
+            }
+        }
+        if (!rows.isEmpty())
+            jdbc.batchUpdate("INSERT INTO order_search_grams (gram, order_id) VALUES (?, ?)", rows);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reindex(Order o) {
+        remove(List.of(o.getId()));
+        add(List.of(o));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return;
+        String in = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        jdbc.update("DELETE FROM order_search_grams WHERE order_id IN (" + in + ")", orderIds.toArray());
+    }
+
+    // ============================================================
+    // BACKFILL
+    // ============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        Thread t = new Thread(this::backfill, "order-search-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void backfill() {
+        try {
+            SearchIndexState state = stateRepo.findById(STATE).orElseGet(() -> {
+                SearchIndexState s = new SearchIndexState();
+                s.setName(STATE);
+                return s;
+            });
+            if (state.getCompletedAt() != null) {
+                ready = true;
+                return;
+            }
+
+            // orders above this id are created after startup and indexed live
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+            long last = state.getLastId() == null ? 0 : state.getLastId();
+            long started = System.currentTimeMillis();
+            int indexed = 0;
+
+            while (last < maxId) {
+                List<Object[]> rows = jdbc.query(
+                        "SELECT id, customer_name, customer_email FROM orders WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                        (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)},
+                        last, maxId, chunkSize);
+                if (rows.isEmpty()) break;
+
+                long chunkLast = (Long) rows.get(rows.size() - 1)[0];
+                tx.executeWithoutResult(s -> {
+                    List<Long> ids = rows.stream().map(r -> (Long) r[0]).toList();
+                    remove(ids);
+
+                    List<Object[]> grams = new ArrayList<>();
+                    for (Object[] r : rows) {
+                        for (String g : grams((String) r[1], (String) r[2])) grams.add(new Object[]{g, r[0]});
+                    }
+                    if (!grams.isEmpty())
+                        jdbc.batchUpdate("INSERT INTO order_search_grams (gram, order_id) VALUES (?, ?)", grams);
+
+                    state.setLastId(chunkLast);
+                    stateRepo.save(state);
+                });
+                last = chunkLast;
+                indexed += rows.size();
+            }
+
+            state.setCompletedAt(Instant.now());
+            stateRepo.save(state);
+            ready = true;
+            System.out.println("✔ Order search index built: " + indexed + " orders in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Order search backfill stopped (LIKE fallback stays on): " + ex.getMessage());
+        }
+    }
+
+    // ============================================================
+    // GRAMS
+    // ============================================================
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String s = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("");
+        s = SPACES.matcher(s).replaceAll("_");
+        return NON_ASCII.matcher(s).replaceAll("?");
+    }
+
+    // Distinct 3-character windows over each value
+    public static Set<String> grams(String... values) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String v : values) {
+            String s = normalize(v);
+            for (int i = 0; i + GRAM <= s.length(); i++) out.add(s.substring(i, i + GRAM));
+        }
+        return out;
+    }
+}
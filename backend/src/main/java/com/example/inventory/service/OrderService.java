@@ -2,29 +2,76 @@ package com.example.inventory.service;
 
 import com.example.inventory.dto.OrderRequestDto;
 import com.example.inventory.dto.OrderResponseDto;
+import com.example.inventory.dto.OrderSliceDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import com.example.inventory.model.ArchivedOrder;
 import com.example.inventory.model.Order;
 import com.example.inventory.model.OrderItem;
 import com.example.inventory.model.OrderStatus;
+import com.example.inventory.model.Product;
 import com.example.inventory.repository.OrderRepository;
 import com.example.inventory.repository.ProductRepository;
 import com.example.inventory.spec.OrderSpecification;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_SLICE_SIZE = 500;
+    // fuzzy hits must share at least half of the term's grams
+    private static final double FUZZY_MIN_SHARE = 0.5;
+
     private final OrderRepository orderRepo;
     private final ProductRepository productRepo;
-
-    public OrderService(OrderRepository orderRepo, ProductRepository productRepo) {
+    private final AnalyticsRollupService rollupService;
+    private final TopProductsTracker topProducts;
+    private final AnalyticsCache analyticsCache;
+    private final StockReservationService stockReservations;
+    private final OrderSearchIndex searchIndex;
+    private final CustomerService customers;
+    private final OrderArchiveService archive;
+
+    public OrderService(
+            OrderRepository orderRepo,
+            ProductRepository productRepo,
+            AnalyticsRollupService rollupService,
+            TopProductsTracker topProducts,
+            AnalyticsCache analyticsCache,
+            StockReservationService stockReservations,
+            OrderSearchIndex searchIndex,
+            CustomerService customers,
+            OrderArchiveService archive
+    ) {
         this.orderRepo = orderRepo;
         this.productRepo = productRepo;
+        this.rollupService = rollupService;
+        this.topProducts = topProducts;
+        this.analyticsCache = analyticsCache;
+        this.stockReservations = stockReservations;
+        this.searchIndex = searchIndex;
+        this.customers = customers;
+        this.archive = archive;
     }
     @Transactional
     public OrderResponseDto createOrder(OrderRequestDto dto) {
@@ -36,6 +83,9 @@ public class OrderService {
         o.setCreatedAt(Instant.now());
 
         double total = 0.0;
+        Map<Long, String> categories = new HashMap<>();
+        Map<Long, Integer> reserved = new TreeMap<>();
+        Map<Long, Product> products = resolveProducts(dto.items);
 
         if (dto.items != null) {
             for (OrderRequestDto.Item it : dto.items) {
@@ -43,13 +93,19 @@ public class OrderService {
                 // Skip blank rows
                 if (it.productId == null || it.productId <= 0) continue;
 
-                var p = productRepo.findById(it.productId).orElse(null);
+                int qty = it.quantity == null ? 1 : it.quantity;
+                if (qty <= 0)
+                    throw new IllegalArgumentException("Quantity must be positive for product " + it.productId);
+
+                Product p = products.get(it.productId);
 
                 OrderItem item = new OrderItem();
-                item.setProductId(it.productId);
-                item.setProductName(p != null ? p.getName() : "Unknown");
-                item.setUnitPrice(p != null ? p.getPrice() : 0.0);
-                item.setQuantity(it.quantity == null ? 1 : it.quantity);
+                item.setProductId(p.getId());
+                item.setProductName(p.getName());
+                item.setUnitPrice(p.getPrice());
+                item.setQuantity(qty);
+                categories.put(p.getId(), p.getCategory());
+                reserved.merge(p.getId(), qty, Integer::sum);
 
                 o.addItem(item);
                 total += item.getUnitPrice() * item.getQuantity();
@@ -57,29 +113,59 @@ public class OrderService {
         }
 
         o.setTotal(total);
-        return toDto(orderRepo.save(o));
+
+        // Take the stock first: an insufficient line rejects the whole order
+        if (holdsStock(o.getStatus())) stockReservations.reserve(reserved);
+        customers.attach(List.of(o));
+
+        Order saved = orderRepo.save(o);
+        searchIndex.add(List.of(saved));
+        rollupService.recordOrder(saved, categories);
+        topProducts.recordOrder(saved, categories);
+        invalidateAnalytics();
+        return toDto(saved);
     }
+    // Items load lazily here, inside the read transaction; archived orders are read-only
+    @Transactional(readOnly = true)
     public OrderResponseDto get(Long id) {
         return orderRepo.findById(id)
                 .map(this::toDto)
-                .orElse(null);
+                .orElseGet(() -> archive.get(id));
     }
     @Transactional
     public OrderResponseDto update(Long id, OrderRequestDto dto) {
 
-        Order o = orderRepo.findById(id)
+        Order o = orderRepo.findForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
+        Map<Long, Product> products = resolveProducts(dto.items);
+
+        // Take the old lines out of the rollups before they are replaced
+        rollupService.retractOrder(o);
+        topProducts.retractOrder(o);
+        Map<Long, Integer> before = holdsStock(o.getStatus())
+                ? StockReservationService.quantities(o.getItems())
+                : Map.of();
+        boolean renamed = !Objects.equals(o.getCustomerName(), dto.customerName)
+                || !Objects.equals(o.getCustomerEmail(), dto.customerEmail);
+        Long previousCustomer = o.getCustomerId();
+        Double previousTotal = o.getTotal();
 
         o.setCustomerName(dto.customerName);
         o.setCustomerEmail(dto.customerEmail);
 
         if (dto.status != null)
-            o.setStatus(OrderStatus.valueOf(dto.status));
+            o.updateStatus(OrderStatus.valueOf(dto.status));
 
-        // Remove old items
-        o.clearItems();
+        // Diff against the current lines by product: matched lines keep their
+        // id and unit price, so only changed rows are written
+        Map<Long, Deque<OrderItem>> current = new HashMap<>();
+        for (OrderItem i : o.getItems()) {
+            current.computeIfAbsent(i.getProductId(), k -> new ArrayDeque<>()).add(i);
+        }
 
-        double total = 0;
+        double total = o.getTotal() == null ? 0.0 : o.getTotal();
+        Map<Long, Integer> after = new TreeMap<>();
+        Map<Long, String> categories = new HashMap<>();
 
         if (dto.items != null) {
 
@@ -89,22 +175,52 @@ public class OrderService {
                 if (it.productId == null || it.productId <= 0) continue;
                 if (it.quantity == null || it.quantity <= 0) continue;
 
-                var p = productRepo.findById(it.productId).orElse(null);
-
-                OrderItem item = new OrderItem();
-                item.setProductId(it.productId);
-                item.setProductName(p != null ? p.getName() : "Unknown");
-                item.setUnitPrice(p != null ? p.getPrice() : 0.0);
-                item.setQuantity(it.quantity);
+                Product p = products.get(it.productId);
+                categories.put(p.getId(), p.getCategory());
+                after.merge(p.getId(), it.quantity, Integer::sum);
+
+                Deque<OrderItem> same = current.get(p.getId());
+                OrderItem item = same == null ? null : same.poll();
+
+                if (item == null) {
+                    item = new OrderItem();
+                    item.setProductId(p.getId());
+                    item.setProductName(p.getName());
+                    item.setUnitPrice(p.getPrice());
+                    item.setQuantity(it.quantity);
+                    o.addItem(item);
+                    total += lineValue(item);
+                } else if (!it.quantity.equals(item.getQuantity())) {
+                    total -= lineValue(item);
+                    item.setQuantity(it.quantity);
+                    total += lineValue(item);
+                }
+            }
+        }
 
-                o.addItem(item);
-                total += item.getUnitPrice() * item.getQuantity();
+        // Lines the request no longer lists: orphan removal deletes them
+        for (Deque<OrderItem> left : current.values()) {
+            for (OrderItem item : left) {
+                total -= lineValue(item);
+                o.removeItem(item);
             }
         }
 
-        o.setTotal(total);
+        o.setTotal(o.getItems().isEmpty() ? 0.0 : total);
 
-        return toDto(orderRepo.save(o));
+        // Only the per-product difference between old and new lines moves stock
+        stockReservations.adjust(before, holdsStock(o.getStatus()) ? after : Map.of());
+
+        Order saved = orderRepo.save(o);
+        if (renamed) searchIndex.reindex(saved);
+        if (renamed || previousCustomer == null || !Objects.equals(previousTotal, saved.getTotal())) {
+            orderRepo.flush();
+            customers.relink(saved, previousCustomer);
+        }
+        rollupService.recordOrder(saved, categories);
+        topProducts.recordOrder(saved, categories);
+        invalidateAnalytics();
+        return toDto(saved);
     }
 
     // ============================================================
@@ -112,17 +228,86 @@ public class OrderService {
     // ============================================================
     @Transactional
     public OrderResponseDto updateStatus(Long id, String status) {
-        Order o = orderRepo.findById(id)
+        Order o = orderRepo.findForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        o.setStatus(OrderStatus.valueOf(status));
+        OrderStatus previous = o.getStatus();
+        OrderStatus next = OrderStatus.valueOf(status);
+
+        // Illegal moves are rejected before any stock changes
+        o.updateStatus(next);
+
+        // Cancelling gives the stock back; un-cancelling takes it again
+        if (holdsStock(previous) != holdsStock(next)) {
+            Map<Long, Integer> lines = StockReservationService.quantities(o.getItems());
+            if (holdsStock(next)) stockReservations.reserve(lines);
+            else stockReservations.release(lines);
+        }
+
         return toDto(orderRepo.save(o));
     }
     @Transactional
     public void delete(Long id) {
-        orderRepo.deleteById(id);
+        orderRepo.findForUpdate(id).ifPresent(o -> {
+            // Goods not yet shipped go back on the shelf
+            if (o.getStatus() == OrderStatus.PENDING || o.getStatus() == OrderStatus.PROCESSING)
+                stockReservations.release(StockReservationService.quantities(o.getItems()));
+
+            rollupService.retractOrder(o);
+            topProducts.retractOrder(o);
+            searchIndex.remove(List.of(o.getId()));
+            orderRepo.delete(o);
+            orderRepo.flush();
+            customers.detach(o.getCustomerId());
+            invalidateAnalytics();
+        });
+    }
+
+    /**
+     * One IN query for every product the request references (repeated ids
+     * collapse). Unknown ids reject the request before anything is written.
+     */
+    private Map<Long, Product> resolveProducts(List<OrderRequestDto.Item> items) {
+        if (items == null || items.isEmpty()) return Map.of();
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (OrderRequestDto.Item it : items) {
+            if (it.productId != null && it.productId > 0) ids.add(it.productId);
+        }
+        if (ids.isEmpty()) return Map.of();
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product p : productRepo.findAllById(ids)) products.put(p.getId(), p);
+
+        List<Long> unknown = ids.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!unknown.isEmpty())
+            throw new IllegalArgumentException("Unknown product ids: " + unknown);
+
+        return products;
+    }
+
+    private static double lineValue(OrderItem i) {
+        if (i.getUnitPrice() == null || i.getQuantity() == null) return 0.0;
+        return i.getUnitPrice() * i.getQuantity();
+    }
+
+    // Every status except CANCELLED keeps its lines' stock reserved
+    static boolean holdsStock(OrderStatus status) {
+        return status != OrderStatus.CANCELLED;
     }
-    public Page<OrderResponseDto> listOrdersPaged(
+
+    // Order rows feed the summary and the daily sales chart (status does not)
+    private void invalidateAnalytics() {
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.DAILY_SALES);
+    }
+    /**
+     * Summary rows come from one projection query (no items). includeItems
+     * adds one fetch-join query for the page's lines, so a page costs the
+     * same number of statements whatever its size. When the range reaches
+     * the archive, a page reads O(size) rows from the tiers however deep it
+     * is; for walking far into the history the cursor listing stays cheaper.
+     */
+    public Page<OrderSummaryDto> listOrdersPaged(
             String customerName,
             Double minTotal,
             Double maxTotal,
@@ -131,7 +316,8 @@ public class OrderService {
             int page,
             int size,
             String sortBy,
-            String sortDir
+            String sortDir,
+            boolean includeItems
     ) {
 
         Sort sort = Sort.by(
@@ -141,10 +327,238 @@ public class OrderService {
 
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Specification<Order> spec = Specification.where(null);
+        Specification<Order> spec = filters(searchIndex.customerContains(customerName), minTotal, maxTotal, createdAfter, createdBefore);
+
+        if (!archive.covers(createdAfter)) {
+            List<OrderSummaryDto> rows = orderRepo.findSummaries(spec, sort, pageable.getOffset(), size);
+            if (includeItems) rows = withItems(rows);
 
-        if (customerName != null && !customerName.isBlank())
-            spec = spec.and(OrderSpecification.customerNameContains(customerName));
+            // COUNT is skipped when this page already shows where the data ends
+            return PageableExecutionUtils.getPage(rows, pageable, () -> orderRepo.count(spec));
+        }
+
+        // The range reaches archived orders: the page is cut from both tiers merged
+        Specification<ArchivedOrder> cold = filters(
+                OrderSpecification.customerNameContains(customerName), minTotal, maxTotal, createdAfter, createdBefore);
+        long hotCount = orderRepo.count(spec);
+        long coldCount = archive.count(cold);
+
+        List<OrderSummaryDto> rows = mergedPage(spec, cold, hotCount, coldCount, sort, pageable.getOffset(), size);
+        if (includeItems) rows = withItems(rows);
+
+        return new PageImpl<>(rows, pageable, hotCount + coldCount);
+    }
+
+    /**
+     * Rows offset .. offset + size of both tiers in sort order. A binary
+     * search finds how many of the first offset rows are hot, probing one
+     * row per tier each step; then size rows from each tier at that split
+     * are merged. O(size + log offset) rows read, however deep the page.
+     */
+    private List<OrderSummaryDto> mergedPage(Specification<Order> hot, Specification<ArchivedOrder> cold,
+                                             long hotCount, long coldCount, Sort sort, long offset, int size) {
+        // ties broken by id in both tiers and in memory, so the merge order is total
+        Sort.Direction dir = sort.iterator().next().getDirection();
+        Sort order = sort.getOrderFor("id") == null ? sort.and(Sort.by(dir, "id")) : sort;
+        Comparator<OrderSummaryDto> cmp = OrderArchiveService.comparator(order);
+
+        // largest hot share h of the first offset rows: hot[h - 1] sorts before cold[offset - h]
+        long lo = Math.max(0, offset - coldCount);
+        long hi = Math.min(offset, hotCount);
+        while (lo < hi) {
+            long h = (lo + hi + 1) / 2;
+            OrderSummaryDto lastHot = orderRepo.findSummaries(hot, order, h - 1, 1).get(0);
+            OrderSummaryDto nextCold = archive.summaries(cold, order, offset - h, 1).get(0);
+            if (cmp.compare(lastHot, nextCold) < 0) lo = h;
+            else hi = h - 1;
+        }
+
+        List<OrderSummaryDto> merged = OrderArchiveService.merge(
+                lo < hotCount ? orderRepo.findSummaries(hot, order, lo, size) : List.of(),
+                offset - lo < coldCount ? archive.summaries(cold, order, offset - lo, size) : List.of(),
+                order);
+        return merged.subList(0, Math.min(size, merged.size()));
+    }
+
+    // ============================================================
+    // CUSTOMER SEARCH
+    // ============================================================
+
+    /**
+     * mode: contains (trigram index, default), prefix (column index range),
+     * email (exact, column index), fuzzy (share of grams, ranked by overlap).
+     * Newest first except fuzzy, which keeps its rank order.
+     */
+    public List<OrderSummaryDto> searchCustomers(String q, String mode, int size) {
+        if (q == null || q.isBlank()) throw new IllegalArgumentException("Search term is required");
+        int limit = Math.max(1, Math.min(size, MAX_SLICE_SIZE));
+        Sort newest = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        String m = mode == null ? "contains" : mode.toLowerCase();
+        switch (m) {
+            case "contains":
+                return orderRepo.findSummaries(searchIndex.customerContains(q), newest, 0, limit);
+            case "prefix":
+                return orderRepo.findSummaries(OrderSpecification.customerPrefix(q), newest, 0, limit);
+            case "email":
+                return orderRepo.findSummaries(OrderSpecification.customerEmailEquals(q), newest, 0, limit);
+            case "fuzzy": {
+                List<Long> ranked = searchIndex.fuzzyCandidates(q, FUZZY_MIN_SHARE, limit);
+                if (ranked.isEmpty()) return List.of();
+
+                Map<Long, OrderSummaryDto> byId = new HashMap<>();
+                for (OrderSummaryDto r : orderRepo.findSummaries(OrderSpecification.idIn(ranked), newest, 0, limit)) {
+                    byId.put(r.id, r);
+                }
+                return ranked.stream().map(byId::get).filter(Objects::nonNull).toList();
+            }
+            default:
+                throw new IllegalArgumentException("Unknown search mode: " + mode);
+        }
+    }
+
+    // Swap summaries for full orders, keeping their order
+    private List<OrderSummaryDto> withItems(List<OrderSummaryDto> rows) {
+        if (rows.isEmpty()) return rows;
+
+        Map<Long, Order> full = new HashMap<>();
+        for (Order o : orderRepo.findWithItemsByIdIn(rows.stream().map(r -> r.id).toList())) {
+            full.put(o.getId(), o);
+        }
+
+        // rows not in the hot table come from the archive
+        List<Long> missing = rows.stream().map(r -> r.id).filter(id -> !full.containsKey(id)).toList();
+        Map<Long, OrderResponseDto> archived = archive.full(missing);
+
+        List<OrderSummaryDto> out = new ArrayList<>(rows.size());
+        for (OrderSummaryDto r : rows) {
+            Order o = full.get(r.id);
+            if (o != null) out.add(toDto(o));
+            else out.add(archived.containsKey(r.id) ? archived.get(r.id) : r);
+        }
+        return out;
+    }
+
+    // ============================================================
+    // KEYSET LISTING (cursor on createdAt, id)
+    // ============================================================
+
+    /**
+     * Seeks from the cursor row through the (created_at, id) index, so every
+     * slice costs the same however deep it is. No COUNT unless asked for:
+     * count=approx uses table statistics when there are no filters (exact
+     * otherwise), count=exact always counts.
+     */
+    public OrderSliceDto listOrdersCursor(
+            String customerName,
+            Double minTotal,
+            Double maxTotal,
+            Instant createdAfter,
+            Instant createdBefore,
+            String cursor,
+            int size,
+            String sortDir,
+            String count,
+            boolean includeItems
+    ) {
+        int limit = Math.max(1, Math.min(size, MAX_SLICE_SIZE));
+
+        boolean descending = !"ASC".equalsIgnoreCase(sortDir);
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] c = decodeCursor(cursor);
+            descending = "D".equals(c[0]);
+            afterCreatedAt = Instant.ofEpochSecond(Long.parseLong(c[1]), Long.parseLong(c[2]));
+            afterId = Long.parseLong(c[3]);
+        }
+
+        Specification<Order> filters = filters(searchIndex.customerContains(customerName), minTotal, maxTotal, createdAfter, createdBefore);
+        Specification<Order> spec = filters.and(OrderSpecification.seekAfter(afterCreatedAt, afterId, descending));
+
+        Sort.Direction dir = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(dir, "createdAt").and(Sort.by(dir, "id"));
+
+        // one extra row tells whether another slice follows, without counting
+        List<OrderSummaryDto> rows = orderRepo.findSummaries(spec, sort, 0, limit + 1);
+
+        // ascending slices start at the cursor row, so it bounds the range too
+        Instant from = !descending && afterCreatedAt != null
+                && (createdAfter == null || afterCreatedAt.isAfter(createdAfter)) ? afterCreatedAt : createdAfter;
+        Specification<ArchivedOrder> coldFilters = null;
+        if (archive.covers(from)) {
+            coldFilters = filters(OrderSpecification.customerNameContains(customerName),
+                    minTotal, maxTotal, createdAfter, createdBefore);
+            Specification<ArchivedOrder> cold = coldFilters.and(
+                    OrderSpecification.seekAfter(afterCreatedAt, afterId, descending));
+            rows = OrderArchiveService.merge(rows, archive.summaries(cold, sort, 0, limit + 1), sort);
+        }
+
+        OrderSliceDto out = new OrderSliceDto();
+        out.hasNext = rows.size() > limit;
+        if (out.hasNext) rows = rows.subList(0, limit);
+        out.content = includeItems ? withItems(rows) : rows;
+        out.size = out.content.size();
+
+        if (out.hasNext) {
+            OrderSummaryDto last = rows.get(rows.size() - 1);
+            out.nextCursor = encodeCursor(descending, last.createdAt, last.id);
+        }
+
+        if ("exact".equalsIgnoreCase(count)) {
+            out.totalCount = orderRepo.count(filters);
+        } else if ("approx".equalsIgnoreCase(count)) {
+            boolean unfiltered = (customerName == null || customerName.isBlank())
+                    && minTotal == null && maxTotal == null && createdAfter == null && createdBefore == null;
+            Long estimate = unfiltered ? estimateOrderCount() : null;
+            out.countApproximate = estimate != null;
+            out.totalCount = estimate != null ? estimate : orderRepo.count(filters);
+        }
+        if (out.totalCount != null && coldFilters != null) out.totalCount += archive.count(coldFilters);
+
+        return out;
+    }
+
+    private Long estimateOrderCount() {
+        try {
+            return orderRepo.estimateRowCount();
+        } catch (RuntimeException ex) {
+            // no table statistics on this database
+            return null;
+        }
+    }
+
+    // Opaque to clients: base64url("v1|D|epochSecond|nanos|id")
+    private static String encodeCursor(boolean descending, Instant createdAt, Long id) {
+        String raw = "v1|" + (descending ? "D" : "A") + "|" + createdAt.getEpochSecond()
+                + "|" + createdAt.getNano() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] p = raw.split("\\|");
+            if (p.length != 5 || !"v1".equals(p[0])) throw new IllegalArgumentException();
+            Long.parseLong(p[2]);
+            Long.parseLong(p[3]);
+            Long.parseLong(p[4]);
+            return Arrays.copyOfRange(p, 1, 5);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // customer is the search index's match for the customer term (may be null)
+    static <T> Specification<T> filters(
+            Specification<T> customer,
+            Double minTotal,
+            Double maxTotal,
+            Instant createdAfter,
+            Instant createdBefore
+    ) {
+        Specification<T> spec = Specification.where(customer);
 
         if (minTotal != null)
             spec = spec.and(OrderSpecification.minTotal(minTotal));
@@ -158,7 +572,7 @@ public class OrderService {
         if (createdBefore != null)
             spec = spec.and(OrderSpecification.createdBefore(createdBefore));
 
-        return orderRepo.findAll(spec, pageable).map(this::toDto);
+        return spec;
     }
     private OrderResponseDto toDto(Order o) {
 
@@ -169,6 +583,7 @@ public class OrderService {
         r.total = o.getTotal();
         r.status = o.getStatus().name();
         r.createdAt = o.getCreatedAt();
+        r.itemCount = (long) o.getItems().size();
 
         r.items = o.getItems().stream().map(i -> {
             OrderResponseDto.Item it = new OrderResponseDto.Item();
@@ -0,0 +1,181 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.BulkStatusRequestDto;
+import com.example.inventory.dto.BulkStatusResultDto;
+import com.example.inventory.exception.InsufficientStockException;
+import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderStatus;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.spec.OrderSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Moves many orders to one status (warehouse waves, mass cancellations).
+ *
+ * - targets are explicit ids or a listing-style filter, walked by id
+ * - each chunk is one transaction: lock the rows, check every move against
+ *   {@link OrderStatus#canTransitionTo}, then one UPDATE for the legal ones
+ * - stock side effects run per chunk: cancellations release all their
+ *   lines with one summed release; re-opened orders reserve per order, so a
+ *   short one is rejected alone
+ */
+@Service
+public class OrderStatusBulkService {
+
+    private static final int MAX_REJECTED_IDS = 100;
+
+    private final OrderRepository orderRepo;
+    private final StockReservationService stockReservations;
+    private final TransactionTemplate tx;
+    private final OrderSearchIndex searchIndex;
+    private final int chunkSize;
+
+    public OrderStatusBulkService(
+            OrderRepository orderRepo,
+            StockReservationService stockReservations,
+            TransactionTemplate tx,
+            OrderSearchIndex searchIndex,
+            @Value("${orders.status.chunk-size:500}") int chunkSize
+    ) {
+        this.orderRepo = orderRepo;
+        this.stockReservations = stockReservations;
+        this.tx = tx;
+        this.searchIndex = searchIndex;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public BulkStatusResultDto apply(BulkStatusRequestDto req) {
+        long started = System.currentTimeMillis();
+
+        if (req == null || req.status == null)
+            throw new IllegalArgumentException("Target status is required");
+        OrderStatus target = OrderStatus.valueOf(req.status);
+
+        BulkStatusResultDto result = new BulkStatusResultDto();
+        result.status = target.name();
+
+        if (req.ids != null && !req.ids.isEmpty()) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(req.ids));
+            for (int i = 0; i < ids.size(); i += chunkSize) {
+                applyChunk(ids.subList(i, Math.min(i + chunkSize, ids.size())), target, result);
+            }
+        } else {
+            Specification<Order> spec = filter(req);
+            long after = 0;
+            List<Long> ids;
+            while (!(ids = orderRepo.findIdsAfter(spec, after, chunkSize)).isEmpty()) {
+                applyChunk(ids, target, result);
+                after = ids.get(ids.size() - 1);
+            }
+        }
+
+        result.millis = System.currentTimeMillis() - started;
+        return result;
+    }
+
+    private void applyChunk(List<Long> ids, OrderStatus target, BulkStatusResultDto result) {
+        result.chunks++;
+
+        tx.executeWithoutResult(status -> {
+            Map<Long, OrderStatus> current = new TreeMap<>();
+            for (Object[] r : orderRepo.lockStatuses(ids)) {
+                current.put(((Number) r[0]).longValue(), OrderStatus.valueOf((String) r[1]));
+            }
+
+            for (Long id : ids) {
+                if (!current.containsKey(id)) reject(result, id, "not found");
+            }
+            result.matched += current.size();
+
+            List<Long> legal = new ArrayList<>();
+            for (Map.Entry<Long, OrderStatus> e : current.entrySet()) {
+                OrderStatus from = e.getValue();
+                if (from == target) result.unchanged++;
+                else if (!from.canTransitionTo(target)) reject(result, e.getKey(), from + " -> " + target);
+                else legal.add(e.getKey());
+            }
+            if (legal.isEmpty()) return;
+
+            boolean targetHolds = OrderService.holdsStock(target);
+            List<Long> moving = new ArrayList<>();
+            List<Long> flip = new ArrayList<>();
+            for (Long id : legal) {
+                if (OrderService.holdsStock(current.get(id)) != targetHolds) flip.add(id);
+                else moving.add(id);
+            }
+
+            if (!flip.isEmpty()) {
+                Map<Long, Map<Long, Integer>> lines = lines(flip);
+                if (targetHolds) {
+                    // re-opened: each order must find its stock again
+                    for (Long id : flip) {
+                        try {
+                            stockReservations.reserve(lines.getOrDefault(id, Map.of()));
+                            moving.add(id);
+                        } catch (InsufficientStockException ex) {
+                            reject(result, id, "insufficient stock");
+                        }
+                    }
+                } else {
+                    // cancelled: one release for everything the chunk gives back
+                    Map<Long, Integer> total = new TreeMap<>();
+                    lines.values().forEach(m -> m.forEach((pid, qty) -> total.merge(pid, qty, Integer::sum)));
+                    stockReservations.release(total);
+                    moving.addAll(flip);
+                }
+            }
+
+            if (!moving.isEmpty()) {
+                result.applied += orderRepo.updateStatuses(moving, target, Instant.now());
+            }
+        });
+    }
+
+    // orderId → (productId → units)
+    private Map<Long, Map<Long, Integer>> lines(Collection<Long> orderIds) {
+        Map<Long, Map<Long, Integer>> out = new HashMap<>();
+        for (Object[] r : orderRepo.findLines(orderIds)) {
+            if (r[1] == null || r[2] == null) continue;
+            out.computeIfAbsent((Long) r[0], k -> new TreeMap<>())
+                    .merge((Long) r[1], (Integer) r[2], Integer::sum);
+        }
+        return out;
+    }
+
+    private static void reject(BulkStatusResultDto result, Long id, String reason) {
+        result.rejected++;
+        result.rejectedReasons.merge(reason, 1, Integer::sum);
+        if (result.rejectedIds.size() < MAX_REJECTED_IDS) result.rejectedIds.add(id);
+    }
+
+    private Specification<Order> filter(BulkStatusRequestDto req) {
+        Instant after = parse(req.createdAfter);
+        Instant before = parse(req.createdBefore);
+        OrderStatus from = req.fromStatus == null ? null : OrderStatus.valueOf(req.fromStatus);
+
+        boolean any = (req.customerName != null && !req.customerName.isBlank())
+                || req.minTotal != null || req.maxTotal != null
+                || after != null || before != null || from != null;
+        if (!any)
+            throw new IllegalArgumentException("Provide ids or at least one filter");
+
+        return OrderService.filters(searchIndex.customerContains(req.customerName), req.minTotal, req.maxTotal, after, before)
+                .and(OrderSpecification.hasStatus(from));
+    }
+
+    private static Instant parse(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid timestamp: " + value);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import com.example.inventory.model.OutboxCursor;
+import com.example.inventory.model.OutboxDeadLetter;
+import com.example.inventory.model.OutboxEvent;
+import com.example.inventory.repository.OutboxCursorRepository;
+import com.example.inventory.repository.OutboxDeadLetterRepository;
+import com.example.inventory.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains the outbox in id order to every StockEventSink, each from its own
+ * OutboxCursor.
+ *
+ * - a sink that fails is retried with exponential backoff (publish
+ *   interval doubling per attempt, at most MAX_BACKOFF) without holding
+ *   back the other sinks
+ * - after {@code stock.events.max-attempts} failures the batch is
+ *   dead-lettered for that sink and its cursor moves on
+ * - a payload that cannot be read is dead-lettered, never dropped
+ * - an event counts as published once every sink's cursor passed it;
+ *   published rows are purged after {@code stock.events.retention-hours}
+ */
+@Service
+public class OutboxPublisher {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxRepo;
+    private final OutboxCursorRepository cursorRepo;
+    private final OutboxDeadLetterRepository deadLetterRepo;
+    private final List<StockEventSink> sinks;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final long intervalMillis;
+    private final long retentionHours;
+
+    private final ReentrantLock draining = new ReentrantLock();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private volatile String lastError;
+    private volatile Instant lastPublishedAt;
+
+    public OutboxPublisher(
+            OutboxEventRepository outboxRepo,
+            OutboxCursorRepository cursorRepo,
+            OutboxDeadLetterRepository deadLetterRepo,
+            List<StockEventSink> sinks,
+            ObjectMapper objectMapper,
+            TransactionTemplate tx,
+            @Value("${stock.events.batch-size:100}") int batchSize,
+            @Value("${stock.events.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${stock.events.max-attempts:8}") int maxAttempts,
+            @Value("${stock.events.publish-interval-ms:1000}") long intervalMillis,
+            @Value("${stock.events.retention-hours:72}") long retentionHours
+    ) {
+        this.outboxRepo = outboxRepo;
+        this.cursorRepo = cursorRepo;
+        this.deadLetterRepo = deadLetterRepo;
+        this.sinks = sinks;
+        this.objectMapper = objectMapper;
+        this.tx = tx;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.intervalMillis = Math.max(1, intervalMillis);
+        this.retentionHours = retentionHours;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.events.publish-interval-ms:1000}")
+    public void drain() {
+        // one drainer at a time keeps delivery in id order
+        if (!draining.tryLock()) return;
+        try {
+            long upTo = Long.MAX_VALUE;
+            for (StockEventSink sink : sinks) {
+                upTo = Math.min(upTo, drain(sink, cursor(sink)));
+            }
+            if (sinks.isEmpty()) upTo = outboxRepo.findMaxId();
+
+            long handled = upTo;
+            Instant now = Instant.now();
+            int marked = tx.execute(s -> outboxRepo.markPublishedUpTo(handled, now));
+            if (marked > 0) {
+                published.addAndGet(marked);
+                lastPublishedAt = now;
+            }
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    // Delivers this sink's batches; returns its cursor afterwards
+    private long drain(StockEventSink sink, OutboxCursor cursor) {
+        if (cursor.getRetryAt() != null && Instant.now().isBefore(cursor.getRetryAt()))
+            return cursor.getLastEventId();
+
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<OutboxEvent> batch = outboxRepo.findAfter(cursor.getLastEventId(), PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) break;
+            if (!publish(sink, cursor, batch)) break;
+            if (batch.size() < batchSize) break;
+        }
+        return cursor.getLastEventId();
+    }
+
+    private boolean publish(StockEventSink sink, OutboxCursor cursor, List<OutboxEvent> batch) {
+        List<StockEventDto> events = new ArrayList<>(batch.size());
+        List<OutboxDeadLetter> dead = new ArrayList<>();
+
+        for (OutboxEvent row : batch) {
+            try {
+                StockEventDto e = objectMapper.readValue(row.getPayload(), StockEventDto.class);
+                e.setEventId(row.getId());
+                events.add(e);
+            } catch (Exception ex) {
+                dead.add(deadLetter(row, sink, "unreadable payload: " + ex.getMessage()));
+            }
+        }
+
+        try {
+            if (!events.isEmpty()) sink.publish(events);
+        } catch (Exception ex) {
+            failedBatches.incrementAndGet();
+            String error = sink.name() + ": " + ex.getMessage();
+            lastError = error;
+            cursor.setAttempts(cursor.getAttempts() + 1);
+            cursor.setLastError(truncate(error));
+
+            if (cursor.getAttempts() < maxAttempts) {
+                cursor.setRetryAt(Instant.now().plus(backoff(cursor.getAttempts())));
+                tx.executeWithoutResult(s -> cursorRepo.save(cursor));
+                return false;
+            }
+
+            // gave up: the batch goes to the dead letters and the sink moves on
+            System.out.println("⚠ Stock events dead-lettered for " + sink.name() + " after "
+                    + cursor.getAttempts() + " attempts: " + ex.getMessage());
+            dead.clear();
+            for (OutboxEvent row : batch) dead.add(deadLetter(row, sink, error));
+        }
+
+        cursor.setLastEventId(batch.get(batch.size() - 1).getId());
+        cursor.setAttempts(0);
+        cursor.setRetryAt(null);
+        tx.executeWithoutResult(s -> {
+            deadLetterRepo.saveAll(dead);
+            cursorRepo.save(cursor);
+        });
+        deadLettered.addAndGet(dead.size());
+        return true;
+    }
+
+    // A new sink starts after the events every existing sink already handled
+    private OutboxCursor cursor(StockEventSink sink) {
+        return cursorRepo.findById(sink.name()).orElseGet(() -> {
+            OutboxCursor c = new OutboxCursor();
+            c.setSink(sink.name());
+            c.setLastEventId(outboxRepo.findMaxPublishedId());
+            return c;
+        });
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = intervalMillis << Math.min(attempts - 1, 20);
+        return millis > MAX_BACKOFF.toMillis() ? MAX_BACKOFF : Duration.ofMillis(millis);
+    }
+
+    private static OutboxDeadLetter deadLetter(OutboxEvent row, StockEventSink sink, String error) {
+        OutboxDeadLetter d = new OutboxDeadLetter();
+        d.setEventId(row.getId());
+        d.setSink(sink.name());
+        d.setPayload(row.getPayload());
+        d.setError(truncate(error));
+        return d;
+    }
+
+    private static String truncate(String s) {
+        return s == null || s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.events.purge-interval-ms:3600000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        tx.executeWithoutResult(s -> outboxRepo.deletePublishedBefore(cutoff));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sinks", sinks.stream().map(StockEventSink::name).toList());
+        out.put("pending", outboxRepo.countByPublishedAtIsNull());
+        out.put("published", published.get());
+        out.put("failedBatches", failedBatches.get());
+        out.put("deadLettered", deadLettered.get());
+        out.put("lastError", lastError);
+        out.put("lastPublishedAt", lastPublishedAt);
+
+        Map<String, Object> cursors = new LinkedHashMap<>();
+        for (OutboxCursor c : cursorRepo.findAll()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("lastEventId", c.getLastEventId());
+            m.put("attempts", c.getAttempts());
+            m.put("retryAt", c.getRetryAt());
+            m.put("lastError", c.getLastError());
+            cursors.put(c.getSink(), m);
+        }
+        out.put("cursors", cursors);
+        return out;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ProductFacetsDto;
+import com.example.inventory.service.ProductSearchIndex.Doc;
+import com.example.inventory.service.ProductSearchIndex.Match;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Category, brand, price range and stock band counts for a product search.
+ *
+ * - text, price and category filters come from ProductSearchIndex, the
+ *   same documents the search pages through
+ * - stock (the stock filter and the bands) is the stock the index keeps
+ *   beside each document, current as of the last committed change, so
+ *   counting never goes back to the products table
+ * - all four facets are counted in one pass over the matching documents
+ */
+@Service
+public class ProductFacetCounter {
+
+    private static final int MAX_FACET_VALUES = 50;
+    // Same ranges as ProductRepository.getPriceSegments
+    private static final List<String> PRICE_RANGES = List.of("0 - 20000", "20000 - 50000", "50000 - 100000", "100000+");
+    private static final List<String> STOCK_BANDS = List.of("OUT_OF_STOCK", "CRITICAL", "LOW", "IN_STOCK");
+
+    private final ProductSearchIndex searchIndex;
+
+    private final ProductSearchIndex.Latency latency = new ProductSearchIndex.Latency();
+
+    public ProductFacetCounter(ProductSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Counts over everything a search with these filters matches (the
+     * whole catalog when q is blank); null while the index is loading.
+     */
+    public ProductFacetsDto facets(String q, Double minPrice, Double maxPrice,
+                                   Integer minStock, Integer maxStock, String category) {
+        if (!searchIndex.isReady()) return null;
+
+        long started = System.nanoTime();
+        List<Match> matching = searchIndex.matching(q, minPrice, maxPrice, category);
+
+        Map<String, Count> categories = new HashMap<>();
+        Map<String, Count> brands = new HashMap<>();
+        long[] prices = new long[PRICE_RANGES.size()];
+        long[] bands = new long[STOCK_BANDS.size()];
+        long total = 0;
+
+        for (Match m : matching) {
+            Doc d = m.doc();
+            Integer s = m.stock();
+            if (minStock != null && (s == null || s < minStock)) continue;
+            if (maxStock != null && (s == null || s > maxStock)) continue;
+
+            total++;
+            categories.computeIfAbsent(d.category(), k -> new Count(d.displayCategory())).n++;
+            brands.computeIfAbsent(d.brand(), k -> new Count(d.displayBrand())).n++;
+            prices[priceRange(d.price())]++;
+            if (s != null) bands[stockBand(s, d.reorderLevel())]++;
+        }
+
+        ProductFacetsDto out = new ProductFacetsDto();
+        out.total = total;
+        out.categories = topValues(categories);
+        out.brands = topValues(brands);
+        out.priceRanges = new LinkedHashMap<>();
+        for (int i = 0; i < prices.length; i++) out.priceRanges.put(PRICE_RANGES.get(i), prices[i]);
+        out.stockBands = new LinkedHashMap<>();
+        for (int i = 0; i < bands.length; i++) out.stockBands.put(STOCK_BANDS.get(i), bands[i]);
+
+        long nanos = System.nanoTime() - started;
+        latency.record(nanos);
+        out.facetMillis = nanos / 1_000_000.0;
+        return out;
+    }
+
+    // One facet value: count, labelled with the first spelling seen
+    private static final class Count {
+        final String label;
+        long n;
+
+        Count(String label) {
+            this.label = label == null || label.isBlank() ? "Unknown" : label.trim();
+        }
+    }
+
+    // Most frequent values first; null / blank as "Unknown" like the analytics counts
+    private static Map<String, Long> topValues(Map<String, Count> counts) {
+        List<Count> sorted = new ArrayList<>(counts.values());
+        sorted.sort(Comparator.<Count>comparingLong(c -> -c.n).thenComparing(c -> c.label));
+
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (Count c : sorted.subList(0, Math.min(MAX_FACET_VALUES, sorted.size()))) out.merge(c.label, c.n, Long::sum);
+        return out;
+    }
+
+    // Index into PRICE_RANGES; a null price lands in the last range, as in getPriceSegments
+    private static int priceRange(Double price) {
+        if (price == null) return 3;
+        if (price <= 20000) return 0;
+        if (price <= 50000) return 1;
+        if (price <= 100000) return 2;
+        return 3;
+    }
+
+    // Index into STOCK_BANDS, using the low-stock thresholds of StockEventService
+    private static int stockBand(int stock, Integer reorderLevel) {
+        if (stock <= 0) return 0;
+        if (stock <= StockEventService.CRITICAL_STOCK) return 1;
+        if (stock <= (reorderLevel == null ? StockEventService.DEFAULT_REORDER_LEVEL : reorderLevel)) return 2;
+        return 3;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        latency.report("facet", out);
+        return out;
+    }
+}
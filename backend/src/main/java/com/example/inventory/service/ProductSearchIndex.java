@@ -0,0 +1,924 @@
+package com.example.inventory.service;
+
+import com.example.inventory.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory n-gram index over product name, sku, category and brand.
+ *
+ * - keys: every 3-character window of each normalized field, plus the 1-
+ *   and 2-character prefix of every word (for short search-as-you-type terms)
+ * - base segment: one posting list per key, document ordinals ascending,
+ *   delta + varint encoded in a byte[] (word prefix postings also mark the
+ *   fields the word starts in, all a lone short term is scored on); beside
+ *   it, per ordinal, the id, price, name length and packed UTF-8 text, so
+ *   ranking a broad term walks arrays instead of a map entry and four
+ *   strings per candidate; rebuilt off-thread when enough changes piled up
+ * - changes since the last build: uncompressed delta postings, plus
+ *   tombstones hiding the base postings of changed / deleted products
+ * - writes from ProductService apply after commit, so a rolled back edit
+ *   never shows up in search
+ * - price, category and sort on the indexed fields are answered here; stock
+ *   filters and sorts of a result page stay in the database (see
+ *   ProductService.search)
+ * - each product's stock is kept beside its document for facet counts;
+ *   every path that moves stock reports it through StockEventService, and
+ *   it applies after commit like the document writes
+ *
+ * Suggestions (product picker autocomplete) are served by ProductSuggestIndex
+ * from the same documents; every change and compaction is passed on to it.
+ *
+ * Facets are counted by ProductFacetCounter over the documents a search
+ * matches (see matching).
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final String WORD = "^";
+    private static final int LATENCY_SAMPLES = 1024;
+    // postings decoded in the time it takes to score one candidate
+    private static final int SCORE_COST = 16;
+    // fields a word prefix marks in the base (see marks)
+    private static final int SKU_IS = 16, SKU_START = 8, NAME_WORD = 4, BRAND_WORD = 2, CATEGORY_WORD = 1;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Set<String> SORTABLE = Set.of("id", "sku", "name", "category", "brand", "price", "reorderLevel");
+
+    // Searchable view of one product: normalized text plus fields filtered / sorted here,
+    // and the original name / sku / brand for suggestions
+    record Doc(long id, String name, String sku, String category, String brand,
+               Double price, Integer reorderLevel,
+               String displayName, String displaySku, String displayCategory, String displayBrand) {}
+
+    // One result page: ids in result order and the number of matches overall
+    public record Hits(long total, List<Long> ids) {}
+
+    // A matching document with its stock (null: the stock column is null)
+    record Match(Doc doc, Integer stock) {}
+
+    /**
+     * Compacted segment. Postings hold ordinals, positions in ids (ascending);
+     * text packs each document's normalized sku, name, brand and category
+     * as UTF-8, field f of ordinal i spanning bounds[4i + f] to
+     * bounds[4i + f + 1]. A null price is NaN.
+     */
+    private record Base(Map<String, byte[]> postings, long[] ids, int[] bounds, byte[] text,
+                        double[] price, int[] nameLength) {
+        static final Base EMPTY = new Base(Map.of(), new long[0], new int[]{0}, new byte[0], new double[0], new int[0]);
+
+        int ordinal(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+    }
+
+    // Ordinals of one base posting list; marks run beside them for word prefix keys, else null
+    private record Postings(int[] ordinals, byte[] marks) {}
+
+    // Base ordinals and delta ids holding the keys of every term; marks are
+    // the base ones' field marks when the query is a single short term
+    private record Candidates(int[] base, byte[] marks, long[] delta) {
+        boolean isEmpty() {
+            return base.length == 0 && delta.length == 0;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final ProductSuggestIndex suggestIndex;
+    private final int compactThreshold;
+    private final int loadChunk;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // --- guarded by lock ---
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // latest committed stock per product; a key with a null value has a null stock
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private Base base = Base.EMPTY;
+    private final Set<Long> tombstones = new HashSet<>();
+    // base ordinals of the tombstones
+    private final BitSet dead = new BitSet();
+    private final Map<String, TreeSet<Long>> delta = new HashMap<>();
+    private final Set<Long> deltaIds = new HashSet<>();
+    private Set<Long> changedDuringBuild;
+    private Set<Long> removedDuringLoad = new HashSet<>();
+
+    private volatile boolean ready;
+    private volatile boolean building;
+    private volatile long lastBuildMillis;
+    private volatile long baseBytes;
+
+    private final Latency searchLatency = new Latency();
+
+    public ProductSearchIndex(
+            JdbcTemplate jdbc,
+            ProductSuggestIndex suggestIndex,
+            @Value("${products.search.compact-threshold:10000}") int compactThreshold,
+            @Value("${products.search.load-chunk:5000}") int loadChunk
+    ) {
+        this.jdbc = jdbc;
+        this.suggestIndex = suggestIndex;
+        this.compactThreshold = Math.max(1, compactThreshold);
+        this.loadChunk = Math.max(1, loadChunk);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean supportsSort(Sort sort) {
+        for (Sort.Order o : sort) {
+            if (!SORTABLE.contains(o.getProperty())) return false;
+        }
+        return true;
+    }
+
+    // ============================================================
+    // WRITES (applied after the surrounding transaction commits)
+    // ============================================================
+    public void put(Product p) {
+        Doc d = doc(p.getId(), p.getName(), p.getSku(), p.getCategory(), p.getBrand(), p.getPrice(), p.getReorderLevel());
+        afterCommit(() -> apply(d.id(), d));
+    }
+
+    public void remove(Collection<Long> ids) {
+        List<Long> copy = List.copyOf(ids);
+        afterCommit(() -> copy.forEach(id -> apply(id, null)));
+    }
+
+    public void stockChanged(long id, Integer value) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                stock.put(id, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void apply(long id, Doc d) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            Doc old = d == null ? docs.remove(id) : docs.put(id, d);
+            if (d == null) stock.remove(id);
+            if (d == null && removedDuringLoad != null) removedDuringLoad.add(id);
+
+            if (deltaIds.remove(id)) {
+                for (String k : keys(old)) {
+                    TreeSet<Long> ids = delta.get(k);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) delta.remove(k);
+                }
+            } else if (old != null) {
+                tombstones.add(id);
+                int ordinal = base.ordinal(id);
+                if (ordinal >= 0) dead.set(ordinal);
+            }
+            if (d != null) addToDelta(d);
+            if (changedDuringBuild != null) changedDuringBuild.add(id);
+            suggestIndex.changed(id, d);
+
+            compact = ready && !building && deltaIds.size() + tombstones.size() >= compactThreshold;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) startBuild();
+    }
+
+    private void addToDelta(Doc d) {
+        for (String k : keys(d)) delta.computeIfAbsent(k, x -> new TreeSet<>()).add(d.id());
+        deltaIds.add(d.id());
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    // ============================================================
+    // QUERY
+    // ============================================================
+
+    /**
+     * Products matching every term of q (substring for terms of 3+ chars,
+     * word prefix below that), within the price / category filters.
+     * Unsorted requests come back by relevance.
+     */
+    public Hits search(String q, Double minPrice, Double maxPrice, String category,
+                       Sort sort, long offset, int limit) {
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            List<String> terms = terms(q);
+            if (terms.isEmpty()) return new Hits(0, List.of());
+
+            Candidates candidates = candidates(terms);
+            if (candidates.isEmpty()) return new Hits(0, List.of());
+
+            Terms query = Terms.of(terms);
+            String cat = category == null || category.isBlank() ? null : normalize(category);
+            byte[] catText = cat == null ? null : utf8(cat);
+            boolean byRelevance = sort.isUnsorted();
+            Comparator<Scored> order = comparator(sort);
+            int keep = (int) Math.min(offset + limit, Integer.MAX_VALUE);
+
+            // the worst kept match on top, so each better one replaces it
+            PriorityQueue<Scored> top = new PriorityQueue<>(Math.max(1, Math.min(keep, 1024)), order.reversed());
+            long total = 0;
+
+            Base b = base;
+            int[] ordinals = candidates.base();
+            byte[] marks = candidates.marks();
+            for (int i = 0; i < ordinals.length; i++) {
+                int ordinal = ordinals[i];
+                if (!passes(b, ordinal, minPrice, maxPrice, catText)) continue;
+                int score = marks != null ? wordScore(marks[i]) : score(b.text(), b.bounds(), 4 * ordinal, query);
+                if (score <= 0) continue;
+
+                total++;
+                if (keep == 0) continue;
+                // worse than every kept match: counted, never ranked
+                if (byRelevance && top.size() == keep && score < top.peek().score()) continue;
+                long id = b.ids()[ordinal];
+                // relevance reads no document fields
+                offer(top, keep, order, new Scored(id, score, b.nameLength()[ordinal], byRelevance ? null : docs.get(id)));
+            }
+            for (long id : candidates.delta()) {
+                Doc d = docs.get(id);
+                if (d == null || !passes(d, minPrice, maxPrice, cat)) continue;
+                int score = score(d, query);
+                if (score <= 0) continue;
+
+                total++;
+                if (keep == 0) continue;
+                offer(top, keep, order, new Scored(id, score, d.name().length(), d));
+            }
+
+            List<Scored> ranked = new ArrayList<>(top);
+            ranked.sort(order);
+            List<Long> ids = new ArrayList<>();
+            for (int i = (int) Math.min(offset, ranked.size()); i < ranked.size(); i++) ids.add(ranked.get(i).id());
+            return new Hits(total, ids);
+        } finally {
+            lock.readLock().unlock();
+            searchLatency.record(System.nanoTime() - started);
+        }
+    }
+
+    private static void offer(PriorityQueue<Scored> top, int keep, Comparator<Scored> order, Scored s) {
+        if (top.size() < keep) top.add(s);
+        else if (order.compare(s, top.peek()) < 0) {
+            top.poll();
+            top.add(s);
+        }
+    }
+
+    /**
+     * Base ordinals and delta ids holding the keys of every term (a
+     * superset: scoring confirms real matches). The rarest key of each term
+     * goes first (the grams of one word mostly hold the same products),
+     * then the rest, rarest first; once few candidates are left, scoring
+     * them is cheaper than decoding the longer lists, so those are skipped.
+     */
+    private Candidates candidates(List<String> terms) {
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> firsts = new ArrayList<>(), rest = new ArrayList<>();
+        for (String t : terms) {
+            List<String> keys = new ArrayList<>();
+            for (String k : termKeys(t)) {
+                if (counts.containsKey(k)) continue;
+                counts.put(k, count(k));
+                keys.add(k);
+            }
+            if (keys.isEmpty()) continue;
+            keys.sort(Comparator.comparingInt(counts::get));
+            firsts.add(keys.get(0));
+            rest.addAll(keys.subList(1, keys.size()));
+        }
+        firsts.sort(Comparator.comparingInt(counts::get));
+        rest.sort(Comparator.comparingInt(counts::get));
+        List<String> rarest = new ArrayList<>(firsts);
+        rarest.addAll(rest);
+
+        int[] fromBase = null;
+        byte[] marks = null;
+        long[] fromDelta = null;
+        for (String k : rarest) {
+            if (fromBase != null && (long) (fromBase.length + fromDelta.length) * SCORE_COST < counts.get(k)) break;
+            Postings b = basePostings(k);
+            long[] d = deltaPostings(k);
+            if (fromBase == null) {
+                fromBase = b.ordinals();
+                if (terms.size() == 1) marks = b.marks();
+            } else {
+                fromBase = intersect(fromBase, b.ordinals());
+                marks = null;
+            }
+            fromDelta = fromDelta == null ? d : intersect(fromDelta, d);
+            if (fromBase.length == 0 && fromDelta.length == 0) break;
+        }
+        return new Candidates(fromBase, marks, fromDelta);
+    }
+
+    // Upper bound of a key's postings, without decoding them
+    private int count(String key) {
+        byte[] b = base.postings().get(key);
+        TreeSet<Long> added = delta.get(key);
+        return (b == null ? 0 : (int) readVarint(b, new int[]{0})) + (added == null ? 0 : added.size());
+    }
+
+    // A match being ranked; doc is only looked up when the sort reads its fields
+    private record Scored(long id, int score, int nameLength, Doc doc) {}
+
+    private static Comparator<Scored> comparator(Sort sort) {
+        Comparator<Scored> c = null;
+        for (Sort.Order o : sort) {
+            Comparator<Scored> next = switch (o.getProperty()) {
+                case "id" -> Comparator.comparingLong(Scored::id);
+                case "sku" -> Comparator.comparing(s -> s.doc().sku());
+                case "name" -> Comparator.comparing(s -> s.doc().name());
+                case "category" -> Comparator.comparing(s -> s.doc().category());
+                case "brand" -> Comparator.comparing(s -> s.doc().brand());
+                case "price" -> Comparator.comparing(s -> s.doc().price(), Comparator.nullsFirst(Comparator.<Double>naturalOrder()));
+                case "reorderLevel" -> Comparator.comparing(s -> s.doc().reorderLevel(), Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+                default -> throw new IllegalArgumentException("Unsupported sort: " + o.getProperty());
+            };
+            if (o.isDescending()) next = next.reversed();
+            c = c == null ? next : c.thenComparing(next);
+        }
+        // relevance; shorter names first among equals, then id for a stable order
+        Comparator<Scored> relevance = Comparator.<Scored>comparingInt(s -> -s.score())
+                .thenComparingInt(Scored::nameLength)
+                .thenComparingLong(Scored::id);
+        return c == null ? relevance : c.thenComparing(relevance);
+    }
+
+    // Query terms as UTF-8, for matching against packed document text
+    private record Terms(byte[][] terms, byte[][] starts, boolean[] inside, byte[] phrase) {
+        static Terms of(List<String> terms) {
+            int n = terms.size();
+            byte[][] t = new byte[n][], starts = new byte[n][];
+            boolean[] inside = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                t[i] = utf8(terms.get(i));
+                // a word start past the first
+                starts[i] = utf8(" " + terms.get(i));
+                inside[i] = terms.get(i).length() >= GRAM;
+            }
+            return new Terms(t, starts, inside, utf8(String.join(" ", terms)));
+        }
+    }
+
+    private static int score(Doc d, Terms q) {
+        TextWriter w = new TextWriter(1);
+        w.add(d);
+        return score(w.buf, w.bounds, 0, q);
+    }
+
+    /**
+     * Best field per term, summed: exact / prefix sku beats a word start in
+     * the name, which beats a match inside brand or category. 0 when a
+     * term does not really occur (trigram false positive). Fields are the
+     * UTF-8 ranges at bounds[at] (sku, name, brand, category, end).
+     */
+    private static int score(byte[] text, int[] bounds, int at, Terms q) {
+        int sku = bounds[at], name = bounds[at + 1], brand = bounds[at + 2], category = bounds[at + 3],
+                end = bounds[at + 4];
+        int total = 0;
+        for (int i = 0; i < q.terms().length; i++) {
+            byte[] t = q.terms()[i], start = q.starts()[i];
+            boolean inside = q.inside()[i];
+            int best = 0;
+
+            if (startsWith(text, sku, name, t)) best = name - sku == t.length ? 100 : 60;
+            else if (inside && indexOf(text, sku, name, t) >= 0) best = 30;
+
+            // a field is only read while it could still beat best
+            if (best < 40) best = Math.max(best, fieldScore(text, name, brand, t, start, inside, 40, 25));
+            if (best < 20) best = Math.max(best, fieldScore(text, brand, category, t, start, inside, 20, 12));
+            if (best < 15) best = Math.max(best, fieldScore(text, category, end, t, start, inside, 15, 8));
+
+            if (best == 0) return 0;
+            total += best;
+        }
+        if (q.terms().length > 1 && indexOf(text, name, brand, q.phrase()) >= 0) total += 30;
+        return total;
+    }
+
+    // score of a lone short term from its field marks: the best field, as score rates it
+    private static int wordScore(int marks) {
+        if ((marks & SKU_IS) != 0) return 100;
+        if ((marks & SKU_START) != 0) return 60;
+        if ((marks & NAME_WORD) != 0) return 40;
+        if ((marks & BRAND_WORD) != 0) return 20;
+        return (marks & CATEGORY_WORD) != 0 ? 15 : 0;
+    }
+
+    private static int fieldScore(byte[] text, int from, int to, byte[] term, byte[] start, boolean inside,
+                                  int wordStart, int contains) {
+        if (startsWith(text, from, to, term) || indexOf(text, from, to, start) >= 0) return wordStart;
+        return inside && indexOf(text, from, to, term) >= 0 ? contains : 0;
+    }
+
+    private static boolean startsWith(byte[] text, int from, int to, byte[] t) {
+        if (to - from < t.length) return false;
+        for (int i = 0; i < t.length; i++) {
+            if (text[from + i] != t[i]) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] text, int from, int to, byte[] t) {
+        if (t.length == 0) return from;
+        byte first = t[0];
+        for (int i = from, last = to - t.length; i <= last; i++) {
+            if (text[i] == first && startsWith(text, i, to, t)) return i;
+        }
+        return -1;
+    }
+
+    // Base postings minus tombstones; ascending ordinals
+    private Postings basePostings(String key) {
+        Postings all = decode(base.postings().get(key), key.startsWith(WORD));
+        if (dead.isEmpty()) return all;
+        int[] ordinals = all.ordinals();
+        byte[] marks = all.marks();
+        int n = 0;
+        for (int i = 0; i < ordinals.length; i++) {
+            if (dead.get(ordinals[i])) continue;
+            if (marks != null) marks[n] = marks[i];
+            ordinals[n++] = ordinals[i];
+        }
+        if (n == ordinals.length) return all;
+        return new Postings(Arrays.copyOf(ordinals, n), marks == null ? null : Arrays.copyOf(marks, n));
+    }
+
+    // Delta postings; ascending ids
+    private long[] deltaPostings(String key) {
+        TreeSet<Long> added = delta.get(key);
+        if (added == null) return new long[0];
+        long[] out = new long[added.size()];
+        int n = 0;
+        for (Long id : added) out[n++] = id;
+        return out;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return new long[0];
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // ============================================================
+    // FACETS
+    // ============================================================
+
+    /**
+     * Documents a search with these filters matches, the whole catalog
+     * when q is blank, with their current stock; the set
+     * ProductFacetCounter counts over.
+     */
+    List<Match> matching(String q, Double minPrice, Double maxPrice, String category) {
+        lock.readLock().lock();
+        try {
+            List<String> terms = terms(q);
+            String cat = category == null || category.isBlank() ? null : normalize(category);
+
+            List<Match> out = new ArrayList<>();
+            if (terms.isEmpty()) {
+                for (Doc d : docs.values()) {
+                    if (passes(d, minPrice, maxPrice, cat)) out.add(new Match(d, stock.get(d.id())));
+                }
+                return out;
+            }
+            Candidates candidates = candidates(terms);
+            Terms query = Terms.of(terms);
+            byte[] catText = cat == null ? null : utf8(cat);
+            Base b = base;
+            int[] ordinals = candidates.base();
+            byte[] marks = candidates.marks();
+            for (int i = 0; i < ordinals.length; i++) {
+                int ordinal = ordinals[i];
+                if (!passes(b, ordinal, minPrice, maxPrice, catText)) continue;
+                if (marks != null ? marks[i] != 0 : score(b.text(), b.bounds(), 4 * ordinal, query) > 0) {
+                    long id = b.ids()[ordinal];
+                    out.add(new Match(docs.get(id), stock.get(id)));
+                }
+            }
+            for (long id : candidates.delta()) {
+                Doc d = docs.get(id);
+                if (d != null && passes(d, minPrice, maxPrice, cat) && score(d, query) > 0)
+                    out.add(new Match(d, stock.get(id)));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean passes(Doc d, Double minPrice, Double maxPrice, String cat) {
+        if (cat != null && !cat.equals(d.category())) return false;
+        if (minPrice != null && (d.price() == null || d.price() < minPrice)) return false;
+        return maxPrice == null || (d.price() != null && d.price() <= maxPrice);
+    }
+
+    // The same filters over a base ordinal's columns (NaN fails both price bounds, like null)
+    private static boolean passes(Base b, int ordinal, Double minPrice, Double maxPrice, byte[] cat) {
+        if (cat != null) {
+            int from = b.bounds()[4 * ordinal + 3], to = b.bounds()[4 * ordinal + 4];
+            if (to - from != cat.length || !startsWith(b.text(), from, to, cat)) return false;
+        }
+        double price = b.price()[ordinal];
+        if (minPrice != null && !(price >= minPrice)) return false;
+        return maxPrice == null || price <= maxPrice;
+    }
+
+    // ============================================================
+    // BUILD
+    // ============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoad() {
+        Thread t = new Thread(this::load, "product-search-load");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void load() {
+        try {
+            long last = 0;
+            while (true) {
+                List<Match> chunk = jdbc.query(
+                        "SELECT id, name, sku, category, brand, price, reorder_level, stock FROM products WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> new Match(doc(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                                (Double) rs.getObject(6, Double.class), (Integer) rs.getObject(7, Integer.class)),
+                                (Integer) rs.getObject(8, Integer.class)),
+                        last, loadChunk);
+                if (chunk.isEmpty()) break;
+
+                lock.writeLock().lock();
+                try {
+                    // a live write already holds the newer version
+                    for (Match m : chunk) {
+                        long id = m.doc().id();
+                        if (removedDuringLoad.contains(id)) continue;
+                        docs.putIfAbsent(id, m.doc());
+                        if (!stock.containsKey(id)) stock.put(id, m.stock());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                last = chunk.get(chunk.size() - 1).doc().id();
+            }
+
+            lock.writeLock().lock();
+            try {
+                removedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            suggestIndex.loadSales();
+            build();
+            ready = true;
+            System.out.println("✔ Product search index ready: " + size() + " products, "
+                    + baseBytes / 1024 + " KB postings (" + lastBuildMillis + " ms)");
+        } catch (RuntimeException ex) {
+            System.out.println("⚠ Product search index not built (LIKE search stays on): " + ex.getMessage());
+        }
+    }
+
+    private void startBuild() {
+        Thread t = new Thread(() -> {
+            try {
+                build();
+            } catch (RuntimeException ex) {
+                building = false;
+                System.out.println("⚠ Product search compaction failed: " + ex.getMessage());
+            }
+        }, "product-search-compact");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Encodes a snapshot into a new base, then swaps it in with the changes made meanwhile as delta
+    private void build() {
+        long started = System.currentTimeMillis();
+        List<Doc> snapshot;
+
+        lock.writeLock().lock();
+        try {
+            if (building && changedDuringBuild != null) return;
+            building = true;
+            snapshot = new ArrayList<>(docs.values());
+            changedDuringBuild = new HashSet<>();
+            suggestIndex.beginBuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        snapshot.sort(Comparator.comparingLong(Doc::id));
+        int n = snapshot.size();
+        long[] ids = new long[n];
+        double[] price = new double[n];
+        int[] nameLength = new int[n];
+        TextWriter text = new TextWriter(n);
+        Map<String, PostingWriter> writers = new HashMap<>();
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            Doc d = snapshot.get(ordinal);
+            ids[ordinal] = d.id();
+            price[ordinal] = d.price() == null ? Double.NaN : d.price();
+            nameLength[ordinal] = d.name().length();
+            text.add(d);
+            for (String k : keys(d)) {
+                PostingWriter w = writers.computeIfAbsent(k, x -> new PostingWriter());
+                w.add(ordinal);
+                if (k.startsWith(WORD)) w.mark(marks(d, k.substring(WORD.length())));
+            }
+        }
+        Map<String, byte[]> postings = new HashMap<>(writers.size() * 2);
+        long bytes = 0;
+        for (Map.Entry<String, PostingWriter> e : writers.entrySet()) {
+            byte[] b = e.getValue().toBytes();
+            bytes += b.length;
+            postings.put(e.getKey(), b);
+        }
+        Base built = new Base(postings, ids, text.bounds, Arrays.copyOf(text.buf, text.len), price, nameLength);
+
+        suggestIndex.build(snapshot);
+
+        lock.writeLock().lock();
+        try {
+            base = built;
+            tombstones.clear();
+            dead.clear();
+            delta.clear();
+            deltaIds.clear();
+            for (Long id : changedDuringBuild) {
+                tombstones.add(id);
+                int ordinal = built.ordinal(id);
+                if (ordinal >= 0) dead.set(ordinal);
+                Doc d = docs.get(id);
+                if (d != null) addToDelta(d);
+            }
+            changedDuringBuild = null;
+            baseBytes = bytes;
+            lastBuildMillis = System.currentTimeMillis() - started;
+        } finally {
+            building = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Streams ascending ordinals as varint deltas, each followed by its
+    // field marks for word prefix keys; the count leads the finished list
+    private static final class PostingWriter {
+        private byte[] buf = new byte[8];
+        private int len;
+        private int count;
+        private int last;
+
+        void add(int ordinal) {
+            int gap = ordinal - last;
+            last = ordinal;
+            count++;
+            while (len + 10 > buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            len = putVarint(buf, len, gap);
+        }
+
+        void mark(int marks) {
+            buf[len++] = (byte) marks;
+        }
+
+        byte[] toBytes() {
+            byte[] head = new byte[5];
+            int h = putVarint(head, 0, count);
+            byte[] out = new byte[h + len];
+            System.arraycopy(head, 0, out, 0, h);
+            System.arraycopy(buf, 0, out, h, len);
+            return out;
+        }
+    }
+
+    private static int putVarint(byte[] buf, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static Postings decode(byte[] b, boolean marked) {
+        if (b == null) return new Postings(new int[0], marked ? new byte[0] : null);
+        int[] pos = {0};
+        int n = (int) readVarint(b, pos);
+        int[] out = new int[n];
+        byte[] marks = marked ? new byte[n] : null;
+        int ordinal = 0;
+        for (int i = 0; i < n; i++) {
+            ordinal += (int) readVarint(b, pos);
+            out[i] = ordinal;
+            if (marked) marks[i] = b[pos[0]++];
+        }
+        return new Postings(out, marks);
+    }
+
+    // Appends documents' normalized fields to one UTF-8 buffer (see Base)
+    private static final class TextWriter {
+        private byte[] buf = new byte[64];
+        private int len;
+        private final int[] bounds;
+        private int fields;
+
+        TextWriter(int docs) {
+            bounds = new int[4 * docs + 1];
+        }
+
+        void add(Doc d) {
+            for (String f : new String[]{d.sku(), d.name(), d.brand(), d.category()}) {
+                bounds[fields++] = len;
+                byte[] b = utf8(f);
+                while (len + b.length > buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                System.arraycopy(b, 0, buf, len, b.length);
+                len += b.length;
+            }
+            bounds[fields] = len;
+        }
+    }
+
+    private static long readVarint(byte[] b, int[] pos) {
+        long v = 0;
+        int shift = 0;
+        byte x;
+        do {
+            x = b[pos[0]++];
+            v |= (long) (x & 0x7F) << shift;
+            shift += 7;
+        } while ((x & 0x80) != 0);
+        return v;
+    }
+
+    // ============================================================
+    // TEXT
+    // ============================================================
+    private static Doc doc(long id, String name, String sku, String category, String brand,
+                           Double price, Integer reorderLevel) {
+        return new Doc(id, normalize(name), normalize(sku), normalize(category), normalize(brand), price, reorderLevel,
+                name, sku, category, brand);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String s = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        s = MARKS.matcher(s).replaceAll("");
+        return SPACES.matcher(s).replaceAll(" ");
+    }
+
+    private static List<String> terms(String q) {
+        String s = normalize(q);
+        if (s.isEmpty()) return List.of();
+        return List.of(s.split(" "));
+    }
+
+    private static Set<String> termKeys(String term) {
+        if (term.length() < GRAM) return Set.of(WORD + term);
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) out.add(term.substring(i, i + GRAM));
+        return out;
+    }
+
+    // Fields where word prefix p scores for d (see wordScore)
+    private static int marks(Doc d, String p) {
+        int marks = 0;
+        if (d.sku().equals(p)) marks |= SKU_IS;
+        if (d.sku().startsWith(p)) marks |= SKU_START;
+        if (hasWordStart(d.name(), p)) marks |= NAME_WORD;
+        if (hasWordStart(d.brand(), p)) marks |= BRAND_WORD;
+        if (hasWordStart(d.category(), p)) marks |= CATEGORY_WORD;
+        return marks;
+    }
+
+    private static boolean hasWordStart(String field, String p) {
+        for (int i = field.indexOf(p); i >= 0; i = field.indexOf(p, i + 1)) {
+            if (i == 0 || field.charAt(i - 1) == ' ') return true;
+        }
+        return false;
+    }
+
+    private static Set<String> keys(Doc d) {
+        if (d == null) return Set.of();
+        Set<String> out = new HashSet<>();
+        for (String f : new String[]{d.name(), d.sku(), d.category(), d.brand()}) {
+            for (int i = 0; i + GRAM <= f.length(); i++) out.add(f.substring(i, i + GRAM));
+            for (String w : f.split(" ")) {
+                if (w.isEmpty()) continue;
+                out.add(WORD + w.charAt(0));
+                if (w.length() >= 2) out.add(WORD + w.substring(0, 2));
+            }
+        }
+        return out;
+    }
+
+    // ============================================================
+    // STATS
+    // ============================================================
+    // Ring of the most recent query times (shared with the suggest index and facet counter)
+    static final class Latency {
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private final AtomicInteger pos = new AtomicInteger();
+        private final AtomicLong count = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            samples[Math.floorMod(pos.getAndIncrement(), LATENCY_SAMPLES)] = nanos;
+        }
+
+        void report(String prefix, Map<String, Object> out) {
+            int n = (int) Math.min(count.get(), LATENCY_SAMPLES);
+            long[] sample = Arrays.copyOf(samples, n);
+            Arrays.sort(sample);
+            out.put(prefix + "Queries", count.get());
+            out.put(prefix + "P50Micros", n == 0 ? 0 : sample[n / 2] / 1000);
+            out.put(prefix + "P99Micros", n == 0 ? 0 : sample[Math.min(n - 1, (int) Math.ceil(n * 0.99) - 1)] / 1000);
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            out.put("ready", ready);
+            out.put("products", docs.size());
+            out.put("keys", base.postings().size());
+            out.put("postingBytes", baseBytes);
+            out.put("deltaProducts", deltaIds.size());
+            out.put("tombstones", tombstones.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        out.put("lastBuildMillis", lastBuildMillis);
+        searchLatency.report("search", out);
+        return out;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.inventory.service;
 
 import com.example.inventory.dto.AnalyticsSummaryDto;
+import com.example.inventory.dto.LowStockItemDto;
 import com.example.inventory.dto.MonthlyRevenueDto;
 import com.example.inventory.dto.TopProductDto;
 import com.example.inventory.dto.ProductDTO;
+import com.example.inventory.dto.ProductSearchResponseDto;
+import com.example.inventory.dto.ProductSuggestionDto;
 import com.example.inventory.model.Order;
 import com.example.inventory.model.Product;
 import com.example.inventory.repository.OrderRepository;
@@ -14,12 +17,15 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.itextpdf.text.Document;
 import com.itextpdf.text.PageSize;
@@ -35,8 +41,11 @@ import com.itextpdf.text.Image;
 import java.io.ByteArrayOutputStream;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -50,15 +59,43 @@ import org.jfree.data.general.DefaultPieDataset;
 @Service
 public class ProductService {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final ProductRepository repo;
     private final OrderRepository orderRepo;
     private final AnalyticsService analyticsService;
-
-    public ProductService(ProductRepository repo, OrderRepository orderRepo, AnalyticsService analyticsService) {
+    private final AnalyticsCache analyticsCache;
+    private final StockEventService stockEvents;
+    private final HotStockService hotStock;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final ProductFacetCounter facetCounter;
+    private final int maxDbCandidates;
+
+    public ProductService(
+            ProductRepository repo,
+            OrderRepository orderRepo,
+            AnalyticsService analyticsService,
+            AnalyticsCache analyticsCache,
+            StockEventService stockEvents,
+            HotStockService hotStock,
+            ProductSearchIndex searchIndex,
+            ProductSuggestIndex suggestIndex,
+            ProductFacetCounter facetCounter,
+            @Value("${products.search.max-db-candidates:10000}") int maxDbCandidates
+    ) {
         this.repo = repo;
         this.orderRepo = orderRepo;
         this.analyticsService = analyticsService;
+        this.analyticsCache = analyticsCache;
+        this.stockEvents = stockEvents;
+        this.hotStock = hotStock;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+        this.facetCounter = facetCounter;
+        this.maxDbCandidates = Math.max(1, maxDbCandidates);
     }
+    @Transactional
     public Product create(ProductDTO dto) {
         Product p = new Product();
         p.setName(dto.getName());
@@ -70,31 +107,88 @@ public class ProductService {
         p.setSku(dto.getSku() == null || dto.getSku().isBlank()
                 ? "SKU-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase()
                 : dto.getSku());
-        return repo.save(p);
+
+        Product saved = repo.save(p);
+        searchIndex.put(saved);
+        stockEvents.stockChanged(saved, null, null, "PRODUCT_CREATE");
+        invalidateAnalytics();
+        return saved;
     }
 
+    @Transactional
     public Product update(Long id, ProductDTO dto) {
-        return repo.findById(id).map(p -> {
+        return repo.findByIdForUpdate(id).map(p -> {
+            Integer oldStock = p.getHotSlots() != null ? hotStock.total(id) : p.getStock();
+            Integer oldReorderLevel = p.getReorderLevel();
+
             p.setName(dto.getName());
             p.setCategory(dto.getCategory());
             p.setBrand(dto.getBrand());
             p.setPrice(dto.getPrice());
             p.setStock(dto.getStock());
             p.setReorderLevel(dto.getReorderLevel() == null ? 5 : dto.getReorderLevel());
-            return repo.save(p);
+
+            Product saved = repo.save(p);
+            searchIndex.put(saved);
+            if (saved.getHotSlots() != null && saved.getStock() != null)
+                hotStock.rebalance(id, saved.getStock());
+            stockEvents.stockChanged(saved, oldStock, oldReorderLevel, "PRODUCT_UPDATE");
+            invalidateAnalytics();
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
+    // Relative stock change (receiving, shrinkage, manual corrections)
+    @Transactional
+    public void adjustStock(Long id, int delta) {
+        Product p = repo.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        // hot product: the slots move; reconcile updates the row and raises events
+        if (p.getHotSlots() != null) {
+            hotStock.register(id, p.getHotSlots());
+            if (delta < 0 ? !hotStock.take(id, -delta) : !hotStock.give(id, delta))
+                throw new IllegalStateException("Stock slots missing for hot product " + id);
+            invalidateAnalytics();
+            return;
+        }
+
+        Integer oldStock = p.getStock();
+        int newStock = (oldStock == null ? 0 : oldStock) + delta;
+        if (newStock < 0)
+            throw new IllegalArgumentException("Stock cannot be negative (current " + oldStock + ", delta " + delta + ")");
+
+        p.setStock(newStock);
+        Product saved = repo.save(p);
+        stockEvents.stockChanged(saved, oldStock, saved.getReorderLevel(), "STOCK_ADJUSTMENT");
+        invalidateAnalytics();
+    }
+
+    @Transactional
     public void delete(Long id) {
+        hotStock.forget(List.of(id));
         repo.deleteById(id);
+        searchIndex.remove(List.of(id));
+        invalidateAnalytics();
     }
 
+    @Transactional
     public void deleteMany(List<Long> ids) {
+        hotStock.forget(ids);
         repo.deleteAllById(ids);
+        searchIndex.remove(ids);
+        invalidateAnalytics();
+    }
+
+    // Product rows feed the summary (counts, categories, low stock) and low-stock views
+    private void invalidateAnalytics() {
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.LOW_STOCK);
     }
 
     public Product get(Long id) {
-        return repo.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+        Product p = repo.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+        hotStock.overlay(List.of(p));
+        return p;
     }
 
     // ---------------- Search / Pagination ----------------
@@ -127,57 +221,141 @@ public class ProductService {
 
         Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size), s);
 
+        if (q != null && !q.isBlank() && searchIndex.isReady()) {
+            Page<Product> indexed = searchIndexed(q, minPrice, maxPrice, minStock, maxStock, category, pageable);
+            if (indexed != null) {
+                hotStock.overlay(indexed.getContent());
+                return indexed;
+            }
+        }
+
         Specification<Product> spec = Specification.where(ProductSpecification.search(q))
                 .and(ProductSpecification.priceBetween(minPrice, maxPrice))
                 .and(ProductSpecification.stockBetween(minStock, maxStock))
                 .and(ProductSpecification.categoryEquals(category));
 
-        return repo.findAll(spec, pageable);
+        Page<Product> result = repo.findAll(spec, pageable);
+        hotStock.overlay(result.getContent());
+        return result;
+    }
+
+    // Same search plus facet counts over everything it matched
+    public ProductSearchResponseDto searchWithFacets(
+            String q,
+            Double minPrice, Double maxPrice,
+            Integer minStock, Integer maxStock,
+            String category, String sort,
+            int page, int size
+    ) {
+        ProductSearchResponseDto out = new ProductSearchResponseDto();
+        out.results = search(q, minPrice, maxPrice, minStock, maxStock, category, sort, page, size);
+        out.facets = facetCounter.facets(q, minPrice, maxPrice, minStock, maxStock, category);
+        return out;
     }
+
     /**
-     * Return products whose stock is less than or equal to the provided threshold.
-     * This implementation is defensive:
-     *  - ignores products with null stock
-     *  - treats null reorderLevel as a configurable default (5)
-     *  - computes severity / reorder flag / suggestion safely
+     * Text search through the in-memory index; null = too many candidates
+     * for the database step, use the LIKE query instead.
+     *  - no stock filter, sort on indexed fields (or relevance): the index
+     *    picks the page, one findAllById loads it
+     *  - stock filter or stock sort: stock is only current in the database,
+     *    so it filters / sorts the index's candidate ids there
      */
-    public List<Product> lowStock(int threshold) {
-        // sensible default
-        if (threshold < 0) threshold = 5;
+    private Page<Product> searchIndexed(
+            String q,
+            Double minPrice, Double maxPrice,
+            Integer minStock, Integer maxStock,
+            String category, Pageable pageable
+    ) {
+        Sort s = pageable.getSort();
+        boolean stockFilter = minStock != null || maxStock != null;
 
-        List<Product> all = repo.findAll();
-        List<Product> result = new ArrayList<>();
+        if (!stockFilter && searchIndex.supportsSort(s)) {
+            ProductSearchIndex.Hits hits = searchIndex.search(
+                    q, minPrice, maxPrice, category, s, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
+        }
 
-        for (Product p : all) {
-            Integer stock = p.getStock();
-            if (stock == null) {
-                // If stock unknown, do not include it in low-stock list
-                continue;
-            }
+        ProductSearchIndex.Hits hits = searchIndex.search(
+                q, minPrice, maxPrice, category, Sort.unsorted(), 0, maxDbCandidates);
+        if (hits.total() > maxDbCandidates) return null;
+        if (hits.ids().isEmpty()) return Page.empty(pageable);
+
+        if (s.isSorted()) {
+            Specification<Product> spec = Specification.where(ProductSpecification.idIn(hits.ids()))
+                    .and(ProductSpecification.stockBetween(minStock, maxStock));
+            return repo.findAll(spec, pageable);
+        }
 
-            // If product stock <= threshold, include it
-            if (stock <= threshold) {
-                // compute reorderLevel safely (if null default to 5)
-                int reorderLevel = p.getReorderLevel() == null ? 5 : p.getReorderLevel();
+        // relevance order, keeping the candidates the stock range lets through
+        Set<Long> inRange = new HashSet<>(repo.findIdsInStockRange(hits.ids(), minStock, maxStock));
+        List<Long> ranked = hits.ids().stream().filter(inRange::contains).toList();
 
-                // severity
-                if (stock <= 2) {
-                    p.setSeverity("CRITICAL");
-                } else if (stock <= Math.max(1, threshold / 2)) {
-                    p.setSeverity("LOW");
-                } else {
-                    p.setSeverity("MEDIUM");
-                }
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        List<Long> pageIds = ranked.subList(from, Math.min(from + pageable.getPageSize(), ranked.size()));
+        return new PageImpl<>(loadInOrder(pageIds), pageable, ranked.size());
+    }
 
-                // reorder flag & suggestion
-                p.setReorderFlag(stock <= reorderLevel);
-                p.setReorderSuggestion(Math.max(reorderLevel - stock, 0));
+    private List<Product> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : repo.findAllById(ids)) byId.put(p.getId(), p);
 
-                result.add(p);
-            }
+        List<Product> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product p = byId.get(id);
+            if (p != null) out.add(p);
         }
+        return out;
+    }
 
-        return result;
+    // ---------------- Suggest (product picker) ----------------
+
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (prefix == null || prefix.isBlank()) return List.of();
+        if (suggestIndex.isReady()) return suggestIndex.suggest(prefix, n);
+
+        // index still loading: the plain search, without sales ranking
+        List<ProductSuggestionDto> out = new ArrayList<>();
+        for (Product p : repo.findAll(ProductSpecification.search(prefix), PageRequest.of(0, n)).getContent()) {
+            ProductSuggestionDto s = new ProductSuggestionDto();
+            s.id = p.getId();
+            s.sku = p.getSku();
+            s.name = p.getName();
+            s.brand = p.getBrand();
+            s.price = p.getPrice();
+            s.matched = "name";
+            out.add(s);
+        }
+        return out;
+    }
+
+    public Map<String, Object> searchStats() {
+        Map<String, Object> out = searchIndex.stats();
+        out.putAll(suggestIndex.stats());
+        out.putAll(facetCounter.stats());
+        return out;
+    }
+    /**
+     * Return products whose stock is less than or equal to the provided threshold,
+     * most severe first. Served by the index on stock; severity, reorder flag
+     * and suggestion are computed by the query:
+     *  - products with null stock are never included
+     *  - null reorderLevel is treated as 5
+     */
+    public List<LowStockItemDto> lowStock(int threshold) {
+        // sensible default
+        if (threshold < 0) threshold = 5;
+
+        return repo.findLowStock(threshold, Pageable.unpaged()).getContent();
+    }
+
+    public Page<LowStockItemDto> lowStock(int threshold, int page, int size) {
+        if (threshold < 0) threshold = 5;
+
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size));
+        return repo.findLowStock(threshold, pageable);
     }
     public void exportExcel(HttpServletResponse response) throws Exception {
 
@@ -231,7 +409,7 @@ public class ProductService {
 
             int lRowIndex = 1;
             // Use computed lowStock with default threshold 5
-            for (Product lowP : lowStock(5)) {
+            for (LowStockItemDto lowP : lowStock(5)) {
                 Row r = lowSheet.createRow(lRowIndex++);
                 r.createCell(0).setCellValue(lowP.getId() == null ? 0L : lowP.getId());
                 r.createCell(1).setCellValue(lowP.getName() == null ? "" : lowP.getName());
@@ -0,0 +1,461 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ProductSuggestionDto;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import com.example.inventory.service.ProductSearchIndex.Doc;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Product picker autocomplete, ranked by units sold.
+ *
+ * - base: every word start of the name, the sku and the brand as one
+ *   entry, sorted by key, so a prefix is one contiguous range found by
+ *   binary search; entries point into the documents instead of copying text
+ * - a max segment tree over the entries' units sold returns the best
+ *   sellers of a range best-first, without visiting the rest of it
+ * - products changed since the build: a small sorted map of their keys,
+ *   their base entries hidden by tombstones
+ * - units sold start from the sales rollup and follow order writes; a
+ *   write already in the rollup when it was read is not applied twice
+ *
+ * ProductSearchIndex owns the documents: it reports every product change
+ * and rebuilds the base with each compaction. Its lock is always taken
+ * before this one.
+ */
+@Service
+public class ProductSuggestIndex {
+
+    private static final int NAME = 0, SKU = 1, BRAND = 2;
+
+    private final ProductSalesRollupRepository salesRepo;
+    private final OrderRepository orderRepo;
+    private final TransactionTemplate readTx;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // --- guarded by lock ---
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // entries: document + (field << 24 | offset of the key in it), sorted by (key, id)
+    private Doc[] entryDocs = new Doc[0];
+    private int[] entryRefs = new int[0];
+    // max segment tree over entry units sold; leaf i at popularity[leaves + i]
+    private int[] popularity = {-1, -1};
+    private int leaves = 1;
+    private final Set<Long> tombstones = new HashSet<>();
+    private final TreeMap<String, Set<Long>> delta = new TreeMap<>();
+    private final Set<Long> deltaIds = new HashSet<>();
+    // latest document of each product changed since the build started (null = removed)
+    private Map<Long, Doc> changedDuringBuild;
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+    private boolean salesLoaded;
+    // highest order id the rollup read could see; see applySales
+    private long salesMark;
+    private Map<Long, Long> soldAtBuild;
+    private Set<Long> resoldDuringBuild;
+
+    private volatile boolean ready;
+    // set once the rollup has been read: later order writes cannot be in it
+    private volatile boolean salesRead;
+
+    private final ProductSearchIndex.Latency latency = new ProductSearchIndex.Latency();
+
+    public ProductSuggestIndex(ProductSalesRollupRepository salesRepo,
+                               OrderRepository orderRepo,
+                               TransactionTemplate tx) {
+        this.salesRepo = salesRepo;
+        this.orderRepo = orderRepo;
+        // the totals and the mark must come from one snapshot
+        this.readTx = new TransactionTemplate(tx.getTransactionManager());
+        this.readTx.setReadOnly(true);
+        this.readTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ============================================================
+    // WRITES
+    // ============================================================
+
+    // A product was written (d) or deleted (null); called by ProductSearchIndex after commit
+    void changed(long id, Doc d) {
+        lock.writeLock().lock();
+        try {
+            Doc old = d == null ? docs.remove(id) : docs.put(id, d);
+            if (deltaIds.remove(id)) {
+                for (String k : keys(old)) {
+                    Set<Long> ids = delta.get(k);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) delta.remove(k);
+                }
+            } else if (old != null) {
+                tombstones.add(id);
+            }
+            if (d != null) addToDelta(d);
+            if (changedDuringBuild != null) changedDuringBuild.put(id, d);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addToDelta(Doc d) {
+        for (String k : keys(d)) delta.computeIfAbsent(k, x -> new HashSet<>()).add(d.id());
+        deltaIds.add(d.id());
+    }
+
+    // Units sold per product (negative to retract) by the given orders, applied once they commit
+    public void addSales(Collection<Long> orderIds, Map<Long, Long> units) {
+        if (units.isEmpty()) return;
+        Map<Long, Long> copy = Map.copyOf(units);
+        long maxOrderId = orderIds.stream().filter(Objects::nonNull).mapToLong(Long::longValue).max().orElse(0L);
+        // written before the rollup read ended: may already be in its totals
+        boolean beforeRead = !salesRead;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applySales(copy, maxOrderId, beforeRead);
+                }
+            });
+        } else {
+            applySales(copy, maxOrderId, beforeRead);
+        }
+    }
+
+    private void applySales(Map<Long, Long> units, long maxOrderId, boolean beforeRead) {
+        lock.writeLock().lock();
+        try {
+            // until the rollup has been read, its totals already include these
+            if (!salesLoaded) return;
+            // committed around the read: orders up to the mark were counted by it
+            if (beforeRead && maxOrderId <= salesMark) return;
+            units.forEach((id, n) -> {
+                if (unitsSold.merge(id, n, Long::sum) <= 0) unitsSold.remove(id);
+                if (resoldDuringBuild != null) resoldDuringBuild.add(id);
+                reweigh(id);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves a base product's leaves to its current units sold
+    private void reweigh(long id) {
+        if (tombstones.contains(id) || deltaIds.contains(id)) return;
+        Doc d = docs.get(id);
+        if (d == null) return;
+
+        int value = weight(unitsSold, id);
+        for (int ref : refs(d)) {
+            int pos = find(d, ref);
+            if (pos < 0) continue;
+            int node = leaves + pos;
+            popularity[node] = value;
+            for (node >>= 1; node >= 1; node >>= 1)
+                popularity[node] = Math.max(popularity[2 * node], popularity[2 * node + 1]);
+        }
+    }
+
+    private static int weight(Map<Long, Long> sold, long id) {
+        return (int) Math.min(Integer.MAX_VALUE, sold.getOrDefault(id, 0L));
+    }
+
+    // ============================================================
+    // QUERY
+    // ============================================================
+
+    /**
+     * Up to limit products with a name word, sku or brand starting with
+     * prefix, best selling first.
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            String p = ProductSearchIndex.normalize(prefix);
+            if (p.isEmpty() || limit < 1) return List.of();
+
+            // base: walk the tree from the range's best seller down, one hit per product
+            Map<Long, Doc> picked = new LinkedHashMap<>();
+            int lo = bound(p, false);
+            int hi = bound(p, true);
+            if (lo < hi) {
+                PriorityQueue<Integer> nodes = new PriorityQueue<>((a, b) -> Integer.compare(popularity[b], popularity[a]));
+                for (int l = lo + leaves, r = hi + leaves; l < r; l >>= 1, r >>= 1) {
+                    if ((l & 1) == 1) nodes.add(l++);
+                    if ((r & 1) == 1) nodes.add(--r);
+                }
+                while (!nodes.isEmpty() && picked.size() < limit) {
+                    int node = nodes.poll();
+                    if (node < leaves) {
+                        nodes.add(2 * node);
+                        nodes.add(2 * node + 1);
+                        continue;
+                    }
+                    Doc d = entryDocs[node - leaves];
+                    if (!tombstones.contains(d.id())) picked.putIfAbsent(d.id(), d);
+                }
+            }
+
+            // products changed since the build (their base entries are tombstoned)
+            for (Set<Long> ids : delta.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    Doc d = docs.get(id);
+                    if (d != null) picked.putIfAbsent(id, d);
+                }
+            }
+
+            List<Doc> ranked = new ArrayList<>(picked.values());
+            ranked.sort(Comparator.<Doc>comparingLong(d -> -unitsSold.getOrDefault(d.id(), 0L))
+                    .thenComparingInt(d -> d.name().length())
+                    .thenComparingLong(Doc::id));
+
+            List<ProductSuggestionDto> out = new ArrayList<>();
+            for (Doc d : ranked.subList(0, Math.min(limit, ranked.size()))) {
+                ProductSuggestionDto s = new ProductSuggestionDto();
+                s.id = d.id();
+                s.sku = d.displaySku();
+                s.name = d.displayName();
+                s.brand = d.displayBrand();
+                s.price = d.price();
+                s.matched = d.sku().startsWith(p) ? "sku"
+                        : d.name().startsWith(p) || d.name().contains(" " + p) ? "name" : "brand";
+                s.unitsSold = unitsSold.getOrDefault(d.id(), 0L);
+                out.add(s);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+            latency.record(System.nanoTime() - started);
+        }
+    }
+
+    // First entry whose key starts with p (or sorts after it); with after, first one past the p range
+    private int bound(String p, boolean after) {
+        int lo = 0, hi = entryDocs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = comparePrefix(field(entryDocs[mid], entryRefs[mid]), offset(entryRefs[mid]), p);
+            if (after ? c <= 0 : c < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Position of one of d's entries in the base, or -1
+    private int find(Doc d, int ref) {
+        int lo = 0, hi = entryDocs.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compareEntries(entryDocs[mid], entryRefs[mid], d, ref);
+            if (c == 0) return mid;
+            if (c < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    // key at s[off..] against p, looking at p.length() chars at most
+    private static int comparePrefix(String s, int off, String p) {
+        int n = Math.min(s.length() - off, p.length());
+        for (int i = 0; i < n; i++) {
+            int c = s.charAt(off + i) - p.charAt(i);
+            if (c != 0) return c;
+        }
+        return n < p.length() ? -1 : 0;
+    }
+
+    private static int compareEntries(Doc a, int ra, Doc b, int rb) {
+        String sa = field(a, ra), sb = field(b, rb);
+        int ai = offset(ra), bi = offset(rb);
+        int n = Math.min(sa.length() - ai, sb.length() - bi);
+        for (int i = 0; i < n; i++) {
+            int c = sa.charAt(ai + i) - sb.charAt(bi + i);
+            if (c != 0) return c;
+        }
+        int c = Integer.compare(sa.length() - ai, sb.length() - bi);
+        return c != 0 ? c : Long.compare(a.id(), b.id());
+    }
+
+    private static String field(Doc d, int ref) {
+        return switch (ref >>> 24) {
+            case NAME -> d.name();
+            case SKU -> d.sku();
+            default -> d.brand();
+        };
+    }
+
+    private static int offset(int ref) {
+        return ref & 0xFFFFFF;
+    }
+
+    // Each word start of the name, the sku, the brand
+    private static int[] refs(Doc d) {
+        int[] out = new int[8];
+        int n = 0;
+        String name = d.name();
+        for (int i = 0; i < name.length() && i <= 0xFFFFFF; i++) {
+            if (name.charAt(i) == ' ' || (i > 0 && name.charAt(i - 1) != ' ')) continue;
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            out[n++] = NAME << 24 | i;
+        }
+        if (n + 2 > out.length) out = Arrays.copyOf(out, n + 2);
+        if (!d.sku().isEmpty()) out[n++] = SKU << 24;
+        if (!d.brand().isEmpty()) out[n++] = BRAND << 24;
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Set<String> keys(Doc d) {
+        if (d == null) return Set.of();
+        Set<String> out = new HashSet<>();
+        for (int ref : refs(d)) out.add(field(d, ref).substring(offset(ref)));
+        return out;
+    }
+
+    // ============================================================
+    // BUILD (driven by ProductSearchIndex)
+    // ============================================================
+
+    /**
+     * Reads units sold from the rollup, with the highest order id in the
+     * same snapshot as a high-water mark. Writes whose afterCommit runs
+     * after the read are applied live, except those started before it
+     * ended for orders at or below the mark, which the totals include.
+     */
+    void loadSales() {
+        lock.writeLock().lock();
+        try {
+            salesLoaded = true;
+            readTx.executeWithoutResult(status -> {
+                salesMark = orderRepo.findMaxId();
+                for (Object[] r : salesRepo.getUnitsSoldPerProduct()) {
+                    unitsSold.merge((Long) r[0], ((Number) r[3]).longValue(), Long::sum);
+                }
+            });
+            salesRead = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The rollup was rebuilt: units sold are read from it again
+    public void reloadSales() {
+        lock.writeLock().lock();
+        try {
+            // not read yet: the first build reads the rebuilt rollup
+            if (!salesLoaded) return;
+            Set<Long> touched = new HashSet<>(unitsSold.keySet());
+            unitsSold.clear();
+            salesRead = false;
+            loadSales();
+            touched.addAll(unitsSold.keySet());
+            for (Long id : touched) reweigh(id);
+            if (soldAtBuild != null) {
+                soldAtBuild = new HashMap<>(unitsSold);
+                resoldDuringBuild.addAll(touched);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the index's snapshot taken: changes from here on are replayed onto the new base
+    void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new HashMap<>();
+            resoldDuringBuild = new HashSet<>();
+            soldAtBuild = new HashMap<>(unitsSold);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sorts the snapshot's entries into a new base, then swaps it in
+    void build(List<Doc> snapshot) {
+        Map<Long, Long> sold;
+        lock.readLock().lock();
+        try {
+            sold = soldAtBuild;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        record Entry(Doc doc, int ref) {}
+        List<Entry> entries = new ArrayList<>();
+        for (Doc d : snapshot) {
+            for (int ref : refs(d)) entries.add(new Entry(d, ref));
+        }
+        entries.sort((a, b) -> compareEntries(a.doc(), a.ref(), b.doc(), b.ref()));
+
+        int n = entries.size();
+        Doc[] eDocs = new Doc[n];
+        int[] eRefs = new int[n];
+        int size = 1;
+        while (size < n) size <<= 1;
+        int[] tree = new int[2 * size];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < n; i++) {
+            Entry e = entries.get(i);
+            eDocs[i] = e.doc();
+            eRefs[i] = e.ref();
+            tree[size + i] = weight(sold, e.doc().id());
+        }
+        for (int i = size - 1; i >= 1; i--) tree[i] = Math.max(tree[2 * i], tree[2 * i + 1]);
+
+        lock.writeLock().lock();
+        try {
+            entryDocs = eDocs;
+            entryRefs = eRefs;
+            popularity = tree;
+            leaves = size;
+            docs.clear();
+            for (Doc d : snapshot) docs.put(d.id(), d);
+            tombstones.clear();
+            delta.clear();
+            deltaIds.clear();
+            changedDuringBuild.forEach((id, d) -> {
+                tombstones.add(id);
+                docs.remove(id);
+                if (d != null) {
+                    docs.put(id, d);
+                    addToDelta(d);
+                }
+            });
+            for (Long id : resoldDuringBuild) reweigh(id);
+            changedDuringBuild = null;
+            resoldDuringBuild = null;
+            soldAtBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // STATS
+    // ============================================================
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            out.put("suggestEntries", entryDocs.length);
+            // arrays of references / ints only; the text is the documents' own
+            out.put("suggestBytes", 4L * entryDocs.length + 4L * entryRefs.length + 4L * popularity.length);
+            out.put("deltaSuggestKeys", delta.size());
+            out.put("productsWithSales", unitsSold.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        latency.report("suggest", out);
+        return out;
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.PurchaseOrderDto;
+import com.example.inventory.dto.ReorderRequestDto;
+import com.example.inventory.model.Product;
+import com.example.inventory.model.PurchaseOrder;
+import com.example.inventory.model.PurchaseOrderLine;
+import com.example.inventory.model.PurchaseOrderStatus;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.PurchaseOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Turns products at or below their reorder level into purchase orders.
+ *
+ * - evaluation walks the stock_margin index with an id cursor, one chunk
+ *   per transaction, so cost follows the low-stock set, not the catalog
+ * - suggestions are grouped by supplier (brand) into the open AUTO draft
+ * - products already on an open draft are not suggested twice
+ * - receiving locks the purchase order first, then applies all stock
+ *   increases with one JDBC batch; hot products get theirs through their
+ *   slots, with the same stock change events
+ */
+@Service
+public class ReplenishmentService {
+
+    public static final String SOURCE_AUTO = "AUTO";
+    public static final String SOURCE_MANUAL = "MANUAL";
+    private static final String UNKNOWN_SUPPLIER = "Unknown";
+    private static final int MAX_RUN_HISTORY = 20;
+
+    private final ProductRepository productRepo;
+    private final PurchaseOrderRepository poRepo;
+    private final StockEventService stockEvents;
+    private final HotStockService hotStock;
+    private final AnalyticsCache analyticsCache;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int targetFactor;
+    private final int minOrderQty;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private final Deque<Map<String, Object>> runs = new ArrayDeque<>();
+
+    public ReplenishmentService(
+            ProductRepository productRepo,
+            PurchaseOrderRepository poRepo,
+            StockEventService stockEvents,
+            HotStockService hotStock,
+            AnalyticsCache analyticsCache,
+            JdbcTemplate jdbc,
+            TransactionTemplate tx,
+            @Value("${replenishment.enabled:true}") boolean enabled,
+            @Value("${replenishment.chunk-size:500}") int chunkSize,
+            @Value("${replenishment.target-factor:2}") int targetFactor,
+            @Value("${replenishment.min-order-qty:1}") int minOrderQty
+    ) {
+        this.productRepo = productRepo;
+        this.poRepo = poRepo;
+        this.stockEvents = stockEvents;
+        this.hotStock = hotStock;
+        this.analyticsCache = analyticsCache;
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.targetFactor = targetFactor;
+        this.minOrderQty = minOrderQty;
+    }
+
+    // ============================================================
+    // EVALUATION RUN
+    // ============================================================
+    @Scheduled(
+            fixedDelayString = "${replenishment.interval-ms:300000}",
+            initialDelayString = "${replenishment.initial-delay-ms:60000}"
+    )
+    public void scheduledRun() {
+        if (enabled) evaluate();
+    }
+
+    public Map<String, Object> evaluate() {
+        if (!running.tryLock())
+            throw new IllegalStateException("A replenishment run is already in progress");
+
+        try {
+            long started = System.nanoTime();
+            RunStats st = new RunStats();
+            long after = 0L;
+
+            while (true) {
+                long cursor = after;
+                List<Long> ids = tx.execute(s -> productRepo.findIdsAtOrBelowReorderLevelAfter(
+                        cursor, PageRequest.of(0, chunkSize)));
+                if (ids == null || ids.isEmpty()) break;
+
+                tx.executeWithoutResult(s -> evaluateChunk(ids, st));
+                st.chunks++;
+                st.scanned += ids.size();
+                after = ids.get(ids.size() - 1);
+
+                if (ids.size() < chunkSize) break;
+            }
+
+            long millis = (System.nanoTime() - started) / 1_000_000;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("startedAt", Instant.now().minusMillis(millis));
+            result.put("millis", millis);
+            result.put("productsScanned", st.scanned);
+            result.put("chunks", st.chunks);
+            result.put("linesAdded", st.linesAdded);
+            result.put("skippedOnOpenOrder", st.skipped);
+            result.put("purchaseOrdersTouched", st.purchaseOrders.size());
+            result.put("productsPerSecond", millis == 0 ? st.scanned : st.scanned * 1000.0 / millis);
+
+            synchronized (runs) {
+                runs.addFirst(result);
+                while (runs.size() > MAX_RUN_HISTORY) runs.removeLast();
+            }
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void evaluateChunk(List<Long> ids, RunStats st) {
+        Set<Long> alreadyOrdered = new HashSet<>(
+                poRepo.findProductIdsOnOpenOrders(ids, PurchaseOrderStatus.DRAFT));
+
+        Map<String, List<Product>> bySupplier = new TreeMap<>();
+        for (Product p : productRepo.findAllById(ids)) {
+            if (alreadyOrdered.contains(p.getId())) {
+                st.skipped++;
+                continue;
+            }
+            bySupplier.computeIfAbsent(supplierOf(p), k -> new ArrayList<>()).add(p);
+        }
+
+        for (Map.Entry<String, List<Product>> e : bySupplier.entrySet()) {
+            PurchaseOrder po = poRepo
+                    .findFirstByStatusAndSourceAndSupplierOrderByIdDesc(PurchaseOrderStatus.DRAFT, SOURCE_AUTO, e.getKey())
+                    .orElseGet(() -> newPurchaseOrder(e.getKey(), SOURCE_AUTO));
+
+            for (Product p : e.getValue()) {
+                po.addLine(line(p, suggestedQuantity(p)));
+                st.linesAdded++;
+            }
+            st.purchaseOrders.add(poRepo.save(po).getId());
+        }
+    }
+
+    // Order back up to targetFactor × reorder level
+    private int suggestedQuantity(Product p) {
+        int level = p.getReorderLevel() == null ? StockEventService.DEFAULT_REORDER_LEVEL : p.getReorderLevel();
+        int stock = p.getStock() == null ? 0 : p.getStock();
+        return Math.max(level * targetFactor - stock, minOrderQty);
+    }
+
+    public List<Map<String, Object>> recentRuns() {
+        synchronized (runs) {
+            return new ArrayList<>(runs);
+        }
+    }
+
+    // ============================================================
+    // MANUAL PURCHASE ORDERS (ReorderRequestDto)
+    // ============================================================
+    @Transactional
+    public List<PurchaseOrderDto> createManual(List<ReorderRequestDto> requests) {
+        if (requests == null || requests.isEmpty())
+            throw new IllegalArgumentException("At least one reorder line is required");
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ReorderRequestDto r : requests) {
+            if (r.productId == null || r.productId <= 0)
+                throw new IllegalArgumentException("productId is required");
+            if (r.quantity == null || r.quantity <= 0)
+                throw new IllegalArgumentException("quantity must be positive for product " + r.productId);
+            quantities.merge(r.productId, r.quantity, Integer::sum);
+        }
+
+        Map<Long, Product> products = productRepo.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+
+        List<Long> unknown = quantities.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!unknown.isEmpty())
+            throw new IllegalArgumentException("Unknown product ids: " + unknown);
+
+        Map<String, PurchaseOrder> bySupplier = new TreeMap<>();
+        quantities.forEach((id, qty) -> {
+            Product p = products.get(id);
+            bySupplier.computeIfAbsent(supplierOf(p), s -> newPurchaseOrder(s, SOURCE_MANUAL))
+                    .addLine(line(p, qty));
+        });
+
+        return poRepo.saveAll(bySupplier.values()).stream().map(this::toDto).toList();
+    }
+
+    // ============================================================
+    // RECEIVE / CANCEL
+    // ============================================================
+    @Transactional
+    public PurchaseOrderDto receive(Long id) {
+        PurchaseOrder po = draft(id);
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (PurchaseOrderLine l : po.getLines()) {
+            quantities.merge(l.getProductId(), l.getQuantity(), Integer::sum);
+        }
+
+        // lock in id order, then one batched UPDATE for every line
+        List<Product> locked = new ArrayList<>(productRepo.findAllByIdForUpdate(quantities.keySet()));
+
+        // hot products receive into their stock slots instead of the row
+        List<Long> hot = new ArrayList<>();
+        locked.removeIf(p -> {
+            if (p.getHotSlots() == null || !hotStock.give(p.getId(), quantities.get(p.getId()))) return false;
+            hot.add(p.getId());
+            return true;
+        });
+
+        List<Object[]> args = new ArrayList<>(locked.size());
+        for (Product p : locked) {
+            args.add(new Object[]{quantities.get(p.getId()), p.getId()});
+        }
+        jdbc.batchUpdate("UPDATE products SET stock = COALESCE(stock, 0) + ? WHERE id = ? AND hot_slots IS NULL", args);
+
+        // the managed entities keep their pre-update stock, which is the "old" value
+        for (Product p : locked) {
+            int oldStock = p.getStock() == null ? 0 : p.getStock();
+            stockEvents.stockChanged(p.getId(), p.getSku(), p.getName(),
+                    p.getStock(), oldStock + quantities.get(p.getId()),
+                    p.getReorderLevel(), p.getReorderLevel(), "PURCHASE_ORDER");
+        }
+        // their products.stock follows the slots now, with this receipt's crossing events
+        if (!hot.isEmpty()) hotStock.reconcileNow(hot, "PURCHASE_ORDER");
+
+        po.setStatus(PurchaseOrderStatus.RECEIVED);
+        po.setReceivedAt(Instant.now());
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.LOW_STOCK);
+
+        return toDto(poRepo.save(po));
+    }
+
+    @Transactional
+    public PurchaseOrderDto cancel(Long id) {
+        PurchaseOrder po = draft(id);
+        po.setStatus(PurchaseOrderStatus.CANCELLED);
+        return toDto(poRepo.save(po));
+    }
+
+    // Locked until commit: a concurrent receive / cancel waits, then sees the new status
+    private PurchaseOrder draft(Long id) {
+        PurchaseOrder po = poRepo.findForUpdate(id)
+                .orElseThrow(() -> new NoSuchElementException("Purchase order not found"));
+        if (po.getStatus() != PurchaseOrderStatus.DRAFT)
+            throw new IllegalArgumentException("Purchase order " + id + " is already " + po.getStatus());
+        return po;
+    }
+
+    // ============================================================
+    // READ
+    // ============================================================
+    @Transactional(readOnly = true)
+    public Page<PurchaseOrderDto> list(String status, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
+        Page<PurchaseOrder> result = (status == null || status.isBlank())
+                ? poRepo.findAll(pageable)
+                : poRepo.findByStatus(PurchaseOrderStatus.valueOf(status.trim().toUpperCase()), pageable);
+        return result.map(this::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public PurchaseOrderDto get(Long id) {
+        return poRepo.findById(id)
+                .map(this::toDto)
+                .orElseThrow(() -> new NoSuchElementException("Purchase order not found"));
+    }
+
+    // ============================================================
+    // HELPERS
+    // ============================================================
+    private static String supplierOf(Product p) {
+        return p.getBrand() == null || p.getBrand().isBlank() ? UNKNOWN_SUPPLIER : p.getBrand();
+    }
+
+    private static PurchaseOrder newPurchaseOrder(String supplier, String source) {
+        PurchaseOrder po = new PurchaseOrder();
+        po.setSupplier(supplier);
+        po.setSource(source);
+        return po;
+    }
+
+    private static PurchaseOrderLine line(Product p, int quantity) {
+        PurchaseOrderLine l = new PurchaseOrderLine();
+        l.setProductId(p.getId());
+        l.setSku(p.getSku());
+        l.setProductName(p.getName());
+        l.setQuantity(quantity);
+        l.setStockAtSuggestion(p.getStock());
+        return l;
+    }
+
+    private PurchaseOrderDto toDto(PurchaseOrder po) {
+        PurchaseOrderDto d = new PurchaseOrderDto();
+        d.id = po.getId();
+        d.supplier = po.getSupplier();
+        d.status = po.getStatus().name();
+        d.source = po.getSource();
+        d.createdAt = po.getCreatedAt();
+        d.receivedAt = po.getReceivedAt();
+
+        d.lines = po.getLines().stream().map(l -> {
+            PurchaseOrderDto.Line it = new PurchaseOrderDto.Line();
+            it.id = l.getId();
+            it.productId = l.getProductId();
+            it.sku = l.getSku();
+            it.productName = l.getProductName();
+            it.quantity = l.getQuantity();
+            it.stockAtSuggestion = l.getStockAtSuggestion();
+            return it;
+        }).collect(Collectors.toList());
+        d.totalUnits = d.lines.stream().mapToInt(l -> l.quantity).sum();
+
+        return d;
+    }
+
+    private static class RunStats {
+        long scanned;
+        int chunks;
+        int linesAdded;
+        int skipped;
+        final Set<Long> purchaseOrders = new HashSet<>();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.inventory.service;
+
+import java.util.*;
+
+/**
+ * Weighted Space-Saving heavy-hitters sketch.
+ *
+ * Holds at most {@code capacity} counters regardless of how many distinct
+ * keys are offered. A tracked count never underestimates the true count and
+ * overestimates it by at most the counter's {@code error}, which itself is
+ * bounded by totalWeight / capacity.
+ */
+public class SpaceSavingSketch {
+
+    // Serializable counter state (also used for persistence)
+    public static class Entry {
+        public long key;
+        public String label;
+        public long count;
+        public long error;
+
+        public Entry() {}
+
+        public Entry(long key, String label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Entry> BY_COUNT =
+            Comparator.<Entry>comparingLong(e -> e.count).thenComparingLong(e -> e.key);
+
+    private final int capacity;
+    private final Map<Long, Entry> counters = new HashMap<>();
+    private final TreeSet<Entry> byCount = new TreeSet<>(BY_COUNT);
+    private long totalWeight;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    public synchronized void offer(long key, String label, long weight) {
+        if (weight <= 0) return;
+        totalWeight += weight;
+
+        Entry e = counters.get(key);
+        if (e != null) {
+            byCount.remove(e);
+            e.count += weight;
+            if (label != null) e.label = label;
+            byCount.add(e);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            e = new Entry(key, label, weight, 0);
+        } else {
+            // evict the smallest counter; the newcomer inherits its count as error
+            Entry min = byCount.pollFirst();
+            counters.remove(min.key);
+            e = new Entry(key, label, min.count + weight, min.count);
+        }
+        counters.put(key, e);
+        byCount.add(e);
+    }
+
+    /**
+     * Takes back weight offered earlier. A tracked counter drops by it and
+     * keeps its error; an evicted key's weight already sits in other
+     * counters' errors, so only the total shrinks.
+     */
+    public synchronized void retract(long key, long weight) {
+        if (weight <= 0) return;
+        totalWeight = Math.max(0, totalWeight - weight);
+
+        Entry e = counters.get(key);
+        if (e == null) return;
+        byCount.remove(e);
+        e.count = Math.max(0, e.count - weight);
+        byCount.add(e);
+    }
+
+    // Top k counters, highest first (copies)
+    public synchronized List<Entry> top(int k) {
+        List<Entry> out = new ArrayList<>(Math.min(k, counters.size()));
+        for (Entry e : byCount.descendingSet()) {
+            if (out.size() >= k) break;
+            out.add(new Entry(e.key, e.label, e.count, e.error));
+        }
+        return out;
+    }
+
+    // Count of the (k+1)-th counter, 0 if fewer are tracked
+    public synchronized long countAfter(int k) {
+        int i = 0;
+        for (Entry e : byCount.descendingSet()) {
+            if (i++ == k) return e.count;
+        }
+        return 0L;
+    }
+
+    // Upper bound on the overestimate of any tracked count
+    public synchronized long maxError() {
+        return counters.size() < capacity ? 0L : byCount.first().count;
+    }
+
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized List<Entry> snapshot() {
+        return top(counters.size());
+    }
+
+    public synchronized void restore(List<Entry> entries, long totalWeight) {
+        counters.clear();
+        byCount.clear();
+        this.totalWeight = totalWeight;
+
+        entries.stream()
+                .sorted(BY_COUNT.reversed())
+                .limit(capacity)
+                .forEach(e -> {
+                    Entry copy = new Entry(e.key, e.label, e.count, e.error);
+                    counters.put(copy.key, copy);
+                    byCount.add(copy);
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes stock events to browsers subscribed on /api/low-stock/events.
+ * A disconnected client is dropped; it never blocks the batch.
+ */
+@Component
+public class SseStockEventSink implements StockEventSink {
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final long timeoutMillis;
+
+    public SseStockEventSink(@Value("${stock.events.sse-timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(ex -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public int subscribers() {
+        return emitters.size();
+    }
+
+    @Override
+    public String name() {
+        return "sse";
+    }
+
+    @Override
+    public void publish(List<StockEventDto> events) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                for (StockEventDto e : events) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(e.getEventId()))
+                            .name(e.getType())
+                            .data(e, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                emitters.remove(emitter);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import com.example.inventory.model.OutboxEvent;
+import com.example.inventory.model.Product;
+import com.example.inventory.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects low-stock threshold crossings and writes them to the outbox.
+ *
+ * Every path that changes Product.stock (or reorderLevel) reports the
+ * before/after values here inside its own transaction, so an event exists
+ * exactly when the stock change commits. {@link OutboxPublisher} delivers.
+ * The new stock is also passed to ProductSearchIndex for its facet counts.
+ */
+@Service
+public class StockEventService {
+
+    // Same CRITICAL band as ProductService.lowStock
+    public static final int CRITICAL_STOCK = 2;
+    public static final int DEFAULT_REORDER_LEVEL = 5;
+
+    public static final String REORDER_LEVEL_REACHED = "REORDER_LEVEL_REACHED";
+    public static final String REORDER_LEVEL_RECOVERED = "REORDER_LEVEL_RECOVERED";
+    public static final String CRITICAL_REACHED = "CRITICAL_REACHED";
+    public static final String CRITICAL_RECOVERED = "CRITICAL_RECOVERED";
+
+    private final OutboxEventRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchIndex searchIndex;
+
+    public StockEventService(OutboxEventRepository outboxRepo, ObjectMapper objectMapper,
+                             ProductSearchIndex searchIndex) {
+        this.outboxRepo = outboxRepo;
+        this.objectMapper = objectMapper;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Compare the product's current stock with what it had before the change.
+     *
+     * @param oldStock        stock before the change (null for a new product)
+     * @param oldReorderLevel reorder level before the change (null → default)
+     * @param source          PRODUCT_CREATE / PRODUCT_UPDATE / STOCK_ADJUSTMENT / PURCHASE_ORDER / ORDER / RECONCILE
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockChanged(Product p, Integer oldStock, Integer oldReorderLevel, String source) {
+        stockChanged(p.getId(), p.getSku(), p.getName(), oldStock, p.getStock(),
+                oldReorderLevel, p.getReorderLevel(), source);
+    }
+
+    // Variant for bulk SQL paths that never load the entity
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockChanged(Long productId, String sku, String name,
+                             Integer oldStock, Integer stock,
+                             Integer oldReorderLevel, Integer reorderLevel, String source) {
+        searchIndex.stockChanged(productId, stock);
+        if (stock == null) return;
+
+        int newStock = stock;
+        int newLevel = level(reorderLevel);
+
+        boolean wasBelow = oldStock != null && oldStock <= level(oldReorderLevel);
+        boolean isBelow = newStock <= newLevel;
+        boolean wasCritical = oldStock != null && oldStock <= CRITICAL_STOCK;
+        boolean isCritical = newStock <= CRITICAL_STOCK;
+
+        List<String> types = new ArrayList<>(2);
+        if (!wasBelow && isBelow) types.add(REORDER_LEVEL_REACHED);
+        if (wasBelow && !isBelow) types.add(REORDER_LEVEL_RECOVERED);
+        if (!wasCritical && isCritical) types.add(CRITICAL_REACHED);
+        if (wasCritical && !isCritical) types.add(CRITICAL_RECOVERED);
+
+        if (types.isEmpty()) return;
+
+        Instant now = Instant.now();
+        String severity = isCritical ? "CRITICAL" : isBelow ? "LOW" : "OK";
+
+        for (String type : types) {
+            StockEventDto e = new StockEventDto(
+                    null, type, productId, sku, name,
+                    oldStock, newStock, newLevel, severity, source, now);
+
+            OutboxEvent row = new OutboxEvent();
+            row.setEventType(type);
+            row.setAggregateId(productId);
+            row.setPayload(write(e));
+            row.setCreatedAt(now);
+            outboxRepo.save(row);
+        }
+    }
+
+    private String write(StockEventDto e) {
+        try {
+            return objectMapper.writeValueAsString(e);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to serialize stock event", ex);
+        }
+    }
+
+    private static int level(Integer reorderLevel) {
+        return reorderLevel == null ? DEFAULT_REORDER_LEVEL : reorderLevel;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+
+import java.util.List;
+
+/**
+ * Destination for published stock events. Each sink reads the outbox from
+ * its own cursor and delivery is at-least-once: implementations throw to
+ * have the batch retried (with backoff, then dead-lettered), and consumers
+ * dedupe on eventId. name() keys the cursor, so it must stay stable.
+ */
+public interface StockEventSink {
+
+    String name();
+
+    void publish(List<StockEventDto> events) throws Exception;
+}
@@ -0,0 +1,160 @@
+package com.example.inventory.service;
+
+import com.example.inventory.exception.InsufficientStockException;
+import com.example.inventory.model.OrderItem;
+import com.example.inventory.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Moves Product.stock for orders with conditional atomic SQL instead of
+ * read-modify-write, so concurrent checkouts can never oversell.
+ *
+ * - decrements use UPDATE ... WHERE stock >= qty; 0 rows → rejected
+ * - rows are touched in ascending product id order, so two orders sharing
+ *   products always lock them in the same sequence (no deadlock cycles)
+ * - runs inside the caller's transaction; a rejection first gives back
+ *   what it already took for that call, and does not mark the transaction
+ *   rollback-only, so batch callers can skip one order and keep going
+ */
+@Service
+public class StockReservationService {
+
+    private final ProductRepository productRepo;
+    private final StockEventService stockEvents;
+    private final AnalyticsCache analyticsCache;
+    private final HotStockService hotStock;
+
+    public StockReservationService(
+            ProductRepository productRepo,
+            StockEventService stockEvents,
+            AnalyticsCache analyticsCache,
+            HotStockService hotStock
+    ) {
+        this.productRepo = productRepo;
+        this.stockEvents = stockEvents;
+        this.analyticsCache = analyticsCache;
+        this.hotStock = hotStock;
+    }
+
+    // Units per product for a set of order lines (repeated products merged)
+    public static Map<Long, Integer> quantities(Collection<OrderItem> items) {
+        Map<Long, Integer> out = new TreeMap<>();
+        for (OrderItem i : items) {
+            if (i.getProductId() == null || i.getQuantity() == null) continue;
+            out.merge(i.getProductId(), i.getQuantity(), Integer::sum);
+        }
+        return out;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = InsufficientStockException.class)
+    public void reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> delta = new TreeMap<>();
+        quantities.forEach((id, qty) -> delta.put(id, -qty));
+        apply(delta);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        apply(new TreeMap<>(quantities));
+    }
+
+    /**
+     * Move from one reservation to another (order edit): only the per-product
+     * difference touches the database.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = InsufficientStockException.class)
+    public void adjust(Map<Long, Integer> before, Map<Long, Integer> after) {
+        Map<Long, Integer> delta = new TreeMap<>();
+        before.forEach((id, qty) -> delta.merge(id, qty, Integer::sum));
+        after.forEach((id, qty) -> delta.merge(id, -qty, Integer::sum));
+        delta.values().removeIf(d -> d == 0);
+        apply(delta);
+    }
+
+    // delta < 0 takes stock, delta > 0 gives it back; keys visited in id order
+    private void apply(Map<Long, Integer> delta) {
+        if (delta.isEmpty()) return;
+
+        // hot products move their slots; the reconcile reports their events
+        Set<Long> viaRow = new TreeSet<>();
+        Map<Long, Integer> applied = new LinkedHashMap<>();
+
+        try {
+            for (Map.Entry<Long, Integer> e : delta.entrySet()) {
+                Long id = e.getKey();
+                int d = e.getValue();
+
+                if (d < 0) {
+                    if (hotStock.take(id, -d)) {
+                        applied.put(id, d);
+                        continue;
+                    }
+                    if (productRepo.decrementStockIfAvailable(id, -d) == 0) {
+                        // hot mode may have been switched on since; otherwise really short
+                        if (!rerouteToHot(id) || !hotStock.take(id, -d))
+                            throw new InsufficientStockException(id, -d, availableStock(id));
+                        applied.put(id, d);
+                        continue;
+                    }
+                } else if (d > 0) {
+                    if (hotStock.give(id, d)) {
+                        applied.put(id, d);
+                        continue;
+                    }
+                    if (productRepo.incrementStock(id, d) == 0) {
+                        if (rerouteToHot(id) && hotStock.give(id, d)) applied.put(id, d);
+                        continue;
+                    }
+                }
+                applied.put(id, d);
+                viaRow.add(id);
+            }
+        } catch (InsufficientStockException ex) {
+            // undo this call's earlier steps before reporting the shortage;
+            // our row updates still hold their locks, so the reverse always fits
+            applied.forEach(this::revert);
+            throw ex;
+        }
+
+        if (!viaRow.isEmpty()) {
+            // rows are locked by our updates, so these reads are the committed result
+            for (Object[] r : productRepo.findStockLevels(viaRow)) {
+                Long id = (Long) r[0];
+                Integer stock = (Integer) r[3];
+                Integer reorderLevel = (Integer) r[4];
+                Integer oldStock = stock == null ? null : stock - delta.get(id);
+
+                stockEvents.stockChanged(id, (String) r[1], (String) r[2],
+                        oldStock, stock, reorderLevel, reorderLevel, "ORDER");
+            }
+        }
+
+        analyticsCache.invalidate(AnalyticsCache.Metric.SUMMARY, AnalyticsCache.Metric.LOW_STOCK);
+    }
+
+    private void revert(Long id, int d) {
+        if (d < 0) {
+            if (!hotStock.give(id, -d)) productRepo.incrementStock(id, -d);
+        } else {
+            if (!hotStock.take(id, d)) productRepo.decrementStockIfAvailable(id, d);
+        }
+    }
+
+    // products.hot_slots set by another node / a just-committed enable
+    private boolean rerouteToHot(Long id) {
+        List<Object[]> rows = productRepo.findStockLevels(List.of(id));
+        if (rows.isEmpty() || rows.get(0)[5] == null) return false;
+        hotStock.register(id, (Integer) rows.get(0)[5]);
+        return true;
+    }
+
+    private Integer availableStock(Long id) {
+        List<Object[]> rows = productRepo.findStockLevels(List.of(id));
+        if (rows.isEmpty()) throw new IllegalArgumentException("Unknown product id: " + id);
+        return (Integer) rows.get(0)[3];
+    }
+}
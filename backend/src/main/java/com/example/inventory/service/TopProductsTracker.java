@@ -0,0 +1,310 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.TopProductEstimateDto;
+import com.example.inventory.dto.TopProductsDto;
+import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderItem;
+import com.example.inventory.model.Product;
+import com.example.inventory.model.TopProductsSnapshot;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import com.example.inventory.repository.TopProductsSnapshotRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Streaming top-K products backed by bounded-memory Space-Saving sketches.
+ *
+ * Scopes: all-time and per UTC day, each overall and per category.
+ * Every scope holds at most {@code analytics.topk.capacity} counters, so
+ * memory does not grow with the number of SKUs sold.
+ *
+ * - sketches follow the rollups: order lines are counted on commit and
+ *   taken back when an update or delete retracts them
+ * - sketches are persisted periodically; at startup the orders created
+ *   since a scope's snapshot was saved are replayed into it
+ */
+@Service
+public class TopProductsTracker {
+
+    private static final String ALL_TIME = "all";
+    private static final Instant EXACT_MIN = Instant.EPOCH;
+    private static final Instant EXACT_MAX = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final TopProductsSnapshotRepository snapshotRepo;
+    private final ProductSalesRollupRepository productRollupRepo;
+    private final ProductRepository productRepo;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbc;
+    private final int capacity;
+    private final int retainedDays;
+
+    private final Map<String, SpaceSavingSketch> sketches = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public TopProductsTracker(
+            TopProductsSnapshotRepository snapshotRepo,
+            ProductSalesRollupRepository productRollupRepo,
+            ProductRepository productRepo,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbc,
+            @Value("${analytics.topk.capacity:200}") int capacity,
+            @Value("${analytics.topk.retained-days:7}") int retainedDays
+    ) {
+        this.snapshotRepo = snapshotRepo;
+        this.productRollupRepo = productRollupRepo;
+        this.productRepo = productRepo;
+        this.objectMapper = objectMapper;
+        this.jdbc = jdbc;
+        this.capacity = capacity;
+        this.retainedDays = retainedDays;
+    }
+
+    // ============================================================
+    // FEED (called from the order write path)
+    // ============================================================
+
+    /**
+     * Counts the order's lines once its transaction commits, so rolled back
+     * orders never reach the sketches.
+     */
+    public void recordOrder(Order o, Map<Long, String> categories) {
+        afterCommit(o, categories, 1);
+    }
+
+    // Takes back the lines the order has now (before an update replaces them, or a delete)
+    public void retractOrder(Order o) {
+        Set<Long> ids = new HashSet<>();
+        for (OrderItem i : o.getItems()) if (i.getProductId() != null) ids.add(i.getProductId());
+        Map<Long, String> categories = new HashMap<>();
+        for (Product p : productRepo.findAllById(ids)) categories.put(p.getId(), p.getCategory());
+        afterCommit(o, categories, -1);
+    }
+
+    private void afterCommit(Order o, Map<Long, String> categories, int sign) {
+        List<Object[]> lines = new ArrayList<>();
+        for (OrderItem i : o.getItems()) {
+            if (i.getProductId() == null || i.getQuantity() == null) continue;
+            lines.add(new Object[]{i.getProductId(), i.getProductName(), categories.get(i.getProductId()), i.getQuantity()});
+        }
+        LocalDate day = (o.getCreatedAt() == null ? Instant.now() : o.getCreatedAt())
+                .atZone(ZoneOffset.UTC).toLocalDate();
+
+        Runnable feed = () -> {
+            for (Object[] l : lines) {
+                long units = ((Integer) l[3]).longValue();
+                if (sign > 0) offer(day, (Long) l[0], (String) l[1], (String) l[2], units, scope -> true);
+                else retract(day, (Long) l[0], (String) l[2], units);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    feed.run();
+                }
+            });
+        } else {
+            feed.run();
+        }
+    }
+
+    private void offer(LocalDate day, long productId, String name, String category, long units,
+                       Predicate<String> into) {
+        for (String scope : scopes(day, category)) {
+            if (!into.test(scope)) continue;
+            sketch(scope).offer(productId, name, units);
+            dirty.add(scope);
+        }
+    }
+
+    private void retract(LocalDate day, long productId, String category, long units) {
+        for (String scope : scopes(day, category)) {
+            SpaceSavingSketch s = sketches.get(scope);
+            if (s == null) continue;
+            s.retract(productId, units);
+            dirty.add(scope);
+        }
+    }
+
+    // All-time and the day, each overall and for the category
+    private static List<String> scopes(LocalDate day, String category) {
+        List<String> out = new ArrayList<>(4);
+        for (String period : List.of(ALL_TIME, day.toString())) {
+            out.add(scope(period, null));
+            if (category != null) out.add(scope(period, category));
+        }
+        return out;
+    }
+
+    // ============================================================
+    // QUERY
+    // ============================================================
+    public TopProductsDto top(int k, LocalDate day, String category, boolean exact) {
+        if (k < 1 || k > capacity)
+            throw new IllegalArgumentException("k must be between 1 and " + capacity);
+
+        String cat = (category == null || category.isBlank()) ? null : category.trim();
+        String dayLabel = day == null ? null : day.toString();
+
+        if (exact) return topExact(k, day, cat);
+
+        SpaceSavingSketch s = sketches.get(scope(day == null ? ALL_TIME : dayLabel, cat));
+        if (s == null) {
+            return new TopProductsDto(k, dayLabel, cat, false, 0L, 0L, List.of());
+        }
+
+        long threshold = s.countAfter(k);
+        List<TopProductEstimateDto> items = new ArrayList<>();
+        for (SpaceSavingSketch.Entry e : s.top(k)) {
+            items.add(new TopProductEstimateDto(e.key, e.label, e.count, e.error, e.count - e.error >= threshold));
+        }
+
+        return new TopProductsDto(k, dayLabel, cat, false, s.getTotalWeight(), s.maxError(), items);
+    }
+
+    // Exact fallback for audits: aggregates the rollup tables
+    private TopProductsDto topExact(int k, LocalDate day, String category) {
+        Instant from = day == null ? EXACT_MIN : day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = day == null ? EXACT_MAX : day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        List<TopProductEstimateDto> items = new ArrayList<>();
+        for (Object[] r : productRollupRepo.getTopProductsExact(from, to, category, PageRequest.of(0, k))) {
+            items.add(new TopProductEstimateDto(
+                    (Long) r[0], (String) r[1], ((Number) r[2]).longValue(), 0L, true));
+        }
+
+        Long total = productRollupRepo.sumUnitsSold(from, to, category);
+        return new TopProductsDto(k, day == null ? null : day.toString(), category, true,
+                total == null ? 0L : total, 0L, items);
+    }
+
+    // ============================================================
+    // PERSISTENCE
+    // ============================================================
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<String, Instant> savedAt = new HashMap<>();
+        for (TopProductsSnapshot snap : snapshotRepo.findAll()) {
+            try {
+                List<SpaceSavingSketch.Entry> entries = objectMapper.readValue(
+                        snap.getPayload(), new TypeReference<List<SpaceSavingSketch.Entry>>() {});
+                sketch(snap.getScope()).restore(entries, snap.getTotalUnits());
+                savedAt.put(snap.getScope(), snap.getSavedAt());
+            } catch (Exception ex) {
+                System.out.println("⚠ Skipping unreadable top-products snapshot " + snap.getScope());
+            }
+        }
+
+        // First start: seed all-time scopes from the rollups
+        if (!sketches.containsKey(ALL_TIME)) {
+            for (Object[] r : productRollupRepo.getUnitsSoldPerProduct()) {
+                long productId = (Long) r[0];
+                String name = (String) r[1];
+                String category = (String) r[2];
+                long units = ((Number) r[3]).longValue();
+
+                sketch(ALL_TIME).offer(productId, name, units);
+                dirty.add(ALL_TIME);
+                if (category != null) {
+                    sketch(scope(ALL_TIME, category)).offer(productId, name, units);
+                    dirty.add(scope(ALL_TIME, category));
+                }
+            }
+            return;
+        }
+        if (!savedAt.isEmpty()) replay(savedAt);
+    }
+
+    /**
+     * Orders created after the oldest snapshot, each line offered to the
+     * scopes saved before it was created. Edits made since to older orders
+     * are not in the snapshots and stay lost.
+     */
+    private void replay(Map<String, Instant> savedAt) {
+        long[] lines = {0};
+        jdbc.query("SELECT o.created_at, i.product_id, i.product_name, p.category, i.quantity " +
+                        "FROM orders o JOIN order_items i ON i.order_id = o.id " +
+                        "LEFT JOIN products p ON p.id = i.product_id " +
+                        "WHERE o.created_at > ? AND i.product_id IS NOT NULL AND i.quantity IS NOT NULL",
+                rs -> {
+                    Instant at = rs.getTimestamp(1).toInstant();
+                    offer(at.atZone(ZoneOffset.UTC).toLocalDate(), rs.getLong(2), rs.getString(3), rs.getString(4),
+                            rs.getLong(5), scope -> at.isAfter(savedAt.getOrDefault(scope, Instant.EPOCH)));
+                    lines[0]++;
+                },
+                Timestamp.from(Collections.min(savedAt.values())));
+        if (lines[0] > 0)
+            System.out.println("✔ Top products: replayed " + lines[0] + " order lines since the last snapshot");
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.topk.persist-interval-ms:60000}")
+    public void persist() {
+        pruneExpiredDays();
+
+        for (String scope : new ArrayList<>(dirty)) {
+            dirty.remove(scope);
+            SpaceSavingSketch s = sketches.get(scope);
+            if (s == null) continue;
+
+            try {
+                TopProductsSnapshot snap = new TopProductsSnapshot();
+                snap.setScope(scope);
+                snap.setPayload(objectMapper.writeValueAsString(s.snapshot()));
+                snap.setTotalUnits(s.getTotalWeight());
+                snap.setSavedAt(Instant.now());
+                snapshotRepo.save(snap);
+            } catch (Exception ex) {
+                dirty.add(scope); // retry next round
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        persist();
+    }
+
+    private void pruneExpiredDays() {
+        LocalDate oldest = LocalDate.now(ZoneOffset.UTC).minusDays(retainedDays - 1L);
+        List<String> expired = new ArrayList<>();
+
+        for (String scope : sketches.keySet()) {
+            String period = scope.split("\\|", 2)[0];
+            if (ALL_TIME.equals(period)) continue;
+            if (LocalDate.parse(period).isBefore(oldest)) expired.add(scope);
+        }
+
+        if (expired.isEmpty()) return;
+        expired.forEach(sketches::remove);
+        expired.forEach(dirty::remove);
+        snapshotRepo.deleteAllById(expired);
+    }
+
+    private SpaceSavingSketch sketch(String scope) {
+        return sketches.computeIfAbsent(scope, k -> new SpaceSavingSketch(capacity));
+    }
+
+    private static String scope(String period, String category) {
+        return category == null ? period : period + "|" + category;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as a JSON array to {@code stock.events.webhook.url}.
+ * Any non-2xx answer fails the batch so the publisher retries it.
+ */
+@Component
+@ConditionalOnProperty(name = "stock.events.webhook.url")
+public class WebhookStockEventSink implements StockEventSink {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final ObjectMapper objectMapper;
+    private final URI url;
+
+    public WebhookStockEventSink(
+            ObjectMapper objectMapper,
+            @Value("${stock.events.webhook.url}") String url
+    ) {
+        this.objectMapper = objectMapper;
+        this.url = URI.create(url);
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<StockEventDto> events) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(events)))
+                .build();
+
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new RuntimeException("Webhook answered " + response.statusCode());
+        }
+    }
+}
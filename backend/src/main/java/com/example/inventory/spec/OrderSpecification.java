@@ -1,13 +1,23 @@
 package com.example.inventory.spec;
 
 import com.example.inventory.model.Order;
+import com.example.inventory.model.OrderSearchGram;
+import com.example.inventory.model.OrderStatus;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.Instant;
+import java.util.Collection;
 
+/**
+ * Listing filters. Apart from the trigram lookup they only name columns
+ * that orders and orders_archive share, so they are generic over the tier.
+ */
 public class OrderSpecification {
 
-    public static Specification<Order> customerNameContains(String name) {
+    // Scans every row (leading wildcard); OrderSearchIndex uses the gram index instead once it is built
+    public static <T> Specification<T> customerNameContains(String name) {
         return (root, query, cb) -> {
             if (name == null || name.isBlank()) return null;
             String like = "%" + name.toLowerCase().trim() + "%";
@@ -19,30 +29,108 @@ public class OrderSpecification {
         };
     }
 
-    public static Specification<Order> minTotal(Double minTotal) {
+    /**
+     * Substring match through the trigram table: candidates must carry every
+     * gram of the term, then the LIKE confirms them (only candidates are read).
+     */
+    public static Specification<Order> customerGramsMatch(String name, Collection<String> grams) {
+        return (root, query, cb) -> {
+            if (name == null || name.isBlank() || grams == null || grams.isEmpty()) return null;
+
+            Subquery<Long> candidates = query.subquery(Long.class);
+            Root<OrderSearchGram> g = candidates.from(OrderSearchGram.class);
+            candidates.select(g.get("orderId"))
+                    .where(g.get("gram").in(grams))
+                    .groupBy(g.get("orderId"))
+                    .having(cb.equal(cb.count(g), (long) grams.size()));
+
+            return cb.and(
+                    root.get("id").in(candidates),
+                    OrderSpecification.<Order>customerNameContains(name).toPredicate(root, query, cb)
+            );
+        };
+    }
+
+    // Index range scans on customer_name / customer_email (case follows the column collation)
+    public static <T> Specification<T> customerPrefix(String prefix) {
+        return (root, query, cb) -> {
+            if (prefix == null || prefix.isBlank()) return null;
+            String like = escapeLike(prefix.trim()) + "%";
+            return cb.or(
+                    cb.like(root.get("customerName"), like, '\\'),
+                    cb.like(root.get("customerEmail"), like, '\\')
+            );
+        };
+    }
+
+    public static <T> Specification<T> customerEmailEquals(String email) {
+        return (root, query, cb) ->
+                email == null || email.isBlank() ? null : cb.equal(root.get("customerEmail"), email.trim());
+    }
+
+    public static <T> Specification<T> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static <T> Specification<T> hasCustomer(Long customerId) {
+        return (root, query, cb) ->
+                customerId == null ? null : cb.equal(root.get("customerId"), customerId);
+    }
+
+    public static <T> Specification<T> hasStatus(OrderStatus status) {
+        return (root, query, cb) ->
+                status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static <T> Specification<T> minTotal(Double minTotal) {
         return (root, query, cb) ->
                 minTotal == null ? null : cb.ge(root.get("total"), minTotal);
     }
 
-    public static Specification<Order> maxTotal(Double maxTotal) {
+    public static <T> Specification<T> maxTotal(Double maxTotal) {
         return (root, query, cb) ->
                 maxTotal == null ? null : cb.le(root.get("total"), maxTotal);
     }
 
-    public static Specification<Order> createdAfter(Instant from) {
+    public static <T> Specification<T> createdAfter(Instant from) {
         return (root, query, cb) ->
                 from == null ? null : cb.greaterThanOrEqualTo(root.get("createdAt"), from);
     }
 
-    public static Specification<Order> createdBefore(Instant to) {
+    public static <T> Specification<T> createdBefore(Instant to) {
         return (root, query, cb) ->
                 to == null ? null : cb.lessThanOrEqualTo(root.get("createdAt"), to);
     }
-}
-
-
-
-
-
-
 
+    /**
+     * Rows strictly after the cursor row in (createdAt, id) order, so a
+     * listing can continue from the index instead of skipping an offset.
+     */
+    public static <T> Specification<T> seekAfter(Instant createdAt, Long id, boolean descending) {
+        return (root, query, cb) -> {
+            if (createdAt == null || id == null) return null;
+            // the redundant bound on createdAt alone is what the index range seeks to;
+            // behind the OR, the database would walk the index from the first row
+            if (descending) {
+                return cb.and(
+                        cb.lessThanOrEqualTo(root.get("createdAt"), createdAt),
+                        cb.or(
+                                cb.lessThan(root.get("createdAt"), createdAt),
+                                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))
+                        )
+                );
+            }
+            return cb.and(
+                    cb.greaterThanOrEqualTo(root.get("createdAt"), createdAt),
+                    cb.or(
+                            cb.greaterThan(root.get("createdAt"), createdAt),
+                            cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id))
+                    )
+            );
+        };
+    }
+}
@@ -3,6 +3,8 @@ package com.example.inventory.spec;
 import com.example.inventory.model.Product;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 public class ProductSpecification {
 
     // MAIN SEARCH → name, sku, category, brand
@@ -21,6 +23,11 @@ public class ProductSpecification {
         };
     }
 
+    // ID SET (candidates from the search index)
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
     // PRICE RANGE FILTER
     public static Specification<Product> priceBetween(Double minPrice, Double maxPrice) {
         return (root, query, cb) -> {
@@ -0,0 +1,47 @@
+package com.example.inventory;
+
+import com.example.inventory.dto.OrderRequestDto;
+import com.example.inventory.dto.ProductDTO;
+import com.example.inventory.service.ProductService;
+
+import java.util.ArrayList;
+
+/**
+ * Products and order requests for the service tests and benchmarks.
+ * Names carry a label so rows from different tests in the shared
+ * in-memory database can be told apart.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    // A product created through ProductService, so the search index sees it
+    public static Long product(ProductService products, String label, double price, int stock) {
+        ProductDTO d = new ProductDTO();
+        d.setName(label + " " + System.nanoTime());
+        d.setCategory(label);
+        d.setBrand(label);
+        d.setPrice(price);
+        d.setStock(stock);
+        return products.create(d).getId();
+    }
+
+    /**
+     * Order n of a run: qty of each product. Every n is its own customer,
+     * since a shared customers row would serialize concurrent checkouts.
+     */
+    public static OrderRequestDto order(String label, int n, int qty, Long... productIds) {
+        OrderRequestDto r = new OrderRequestDto();
+        r.customerName = label + " " + n;
+        r.customerEmail = label.toLowerCase().replace(' ', '-') + n + "@example.com";
+        r.items = new ArrayList<>();
+        for (Long id : productIds) {
+            OrderRequestDto.Item it = new OrderRequestDto.Item();
+            it.productId = id;
+            it.quantity = qty;
+            r.items.add(it);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A rebuild empties the rollups and backfills them from the orders while
+ * orders keep being written: every order ends up counted exactly once.
+ */
+@SpringBootTest
+class AnalyticsRollupRebuildTest {
+
+    @Autowired AnalyticsRollupService rollups;
+    @Autowired OrderService orders;
+    @Autowired ProductService products;
+    @Autowired ProductSalesRollupRepository productRollupRepo;
+
+    @Test
+    void writesDuringARebuildAreCountedOnce() throws Exception {
+        Long before = product(products, "Rebuild", 10.0, 10_000);
+        Long during = product(products, "Rebuild", 10.0, 10_000);
+
+        for (int i = 0; i < 20; i++) orders.createOrder(order("Rebuild", i, 2, before));
+        // an update moves units from one product to the other
+        Long updated = orders.createOrder(order("Rebuild", 20, 5, before)).id;
+        orders.update(updated, order("Rebuild", 20, 3, during));
+        assertThat(unitsSold(before, during)).containsEntry(before, 40L).containsEntry(during, 3L);
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = writer.submit(() -> {
+                for (int i = 0; i < 30; i++) orders.createOrder(order("Rebuild", 100 + i, 1, before, during));
+            });
+            rollups.rebuild();
+            writes.get();
+        } finally {
+            writer.shutdown();
+        }
+
+        assertThat(unitsSold(before, during)).containsEntry(before, 70L).containsEntry(during, 33L);
+    }
+
+    private Map<Long, Long> unitsSold(Long... ids) {
+        Map<Long, Long> out = new HashMap<>();
+        for (Object[] r : productRollupRepo.getUnitsSoldPerProduct()) {
+            if (List.of(ids).contains((Long) r[0])) out.put((Long) r[0], ((Number) r[3]).longValue());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.AnalyticsSummaryDto;
+import com.example.inventory.dto.OrderRequestDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Uncached analytics summary latency as order history grows. Orders are
+ * written through OrderBatchWriter, so the rollups and the top-products
+ * sketch the summary reads are the ones the write path maintains; the
+ * summary must report every order written and must not get slower with
+ * their number. Batch-written orders are stamped now and so land in the
+ * current hour's buckets: the rollups grow with hours, not orders, and a
+ * year of history is at most 8,760 hourly rows. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=AnalyticsSummaryBenchmark
+ * Point spring.datasource.url at MySQL for InnoDB numbers.
+ *
+ * bench.orders (10000,50000,250000), bench.batch (500), bench.runs (200)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class AnalyticsSummaryBenchmark {
+
+    private static final String LABEL = "Summary bench";
+    private static final int PRODUCTS = 20;
+    private static final int CUSTOMERS = 50;
+
+    @Autowired AnalyticsService analytics;
+    @Autowired ProductService products;
+    @Autowired OrderBatchWriter writer;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void summaryLatencyByOrderCount() {
+        int runs = Integer.getInteger("bench.runs", 200);
+        int batch = Integer.getInteger("bench.batch", 500);
+        Random random = new Random(42);
+
+        Long[] ids = new Long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) ids[i] = product(products, LABEL, 5 + i * 2.5, 1_000_000_000);
+
+        AnalyticsSummaryDto before = analytics.summary();
+        long seeded = 0;
+        double revenue = 0;
+
+        System.out.println("   orders   p50 ms   p95 ms");
+        List<Double> medians = new ArrayList<>();
+        for (String s : System.getProperty("bench.orders", "10000,50000,250000").split(",")) {
+            long target = Long.parseLong(s.trim());
+            while (seeded < target) {
+                int n = (int) Math.min(batch, target - seeded);
+                revenue += write(seeded, n, ids, random);
+                seeded += n;
+            }
+
+            // the rollups are the write path's: every order and its revenue is counted once
+            AnalyticsSummaryDto summary = analytics.summary();
+            assertThat(summary.getTotalOrders() - before.getTotalOrders()).as("orders at %d", target).isEqualTo(seeded);
+            assertThat(summary.getTotalRevenue() - before.getTotalRevenue()).as("revenue at %d", target)
+                    .isCloseTo(revenue, offset(revenue * 1e-9 + 0.01));
+
+            for (int i = 0; i < 200; i++) analytics.summary();
+            long[] nanos = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long started = System.nanoTime();
+                analytics.summary();
+                nanos[i] = System.nanoTime() - started;
+            }
+            Arrays.sort(nanos);
+            double p50 = nanos[runs / 2] / 1e6;
+            double p95 = nanos[Math.min(runs - 1, (int) (runs * 0.95))] / 1e6;
+            medians.add(p50);
+            System.out.printf("%9d  %7.2f  %7.2f%n", target, p50, p95);
+        }
+
+        // flat in the number of orders; the constant absorbs timer noise on millisecond reads
+        assertThat(Collections.max(medians)).isLessThan(2 * Collections.min(medians) + 2.0);
+    }
+
+    // n orders of one or two products, written as one batch; returns their revenue
+    private double write(long first, int n, Long[] ids, Random random) {
+        List<OrderRequestDto> requests = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Long a = ids[random.nextInt(PRODUCTS)];
+            Long b = ids[random.nextInt(PRODUCTS)];
+            OrderRequestDto r = order(LABEL, (int) ((first + i) % CUSTOMERS), 1 + random.nextInt(3),
+                    a.equals(b) ? new Long[]{a} : new Long[]{a, b});
+            r.status = "DELIVERED";
+            requests.add(r);
+        }
+
+        List<OrderBatchWriter.Result> results = tx.execute(status -> writer.write(requests));
+        double revenue = 0;
+        for (OrderBatchWriter.Result r : results) {
+            assertThat(r.error()).isNull();
+            revenue += r.order().getTotal();
+        }
+        return revenue;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.inventory.service;
+
+import com.example.inventory.model.Order;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.spec.OrderSpecification;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Customer search latency per mode on a large orders table, against the
+ * LIKE '%term%' scan it replaced. Orders and their gram rows are seeded
+ * through JDBC, as the backfill would leave them. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=CustomerSearchBenchmark -Dbench.orders=10000000
+ * Point spring.datasource.url at MySQL for InnoDB numbers; H2 in memory
+ * does not fit ten million orders.
+ *
+ * bench.orders (1000000), bench.runs (50)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class CustomerSearchBenchmark {
+
+    private static final long FIRST_ID = 2_000_000_000L;
+    private static final int CHUNK = 5_000;
+
+    private static final String[] FIRST = {"anna", "bruno", "chiara", "dmitri", "elena", "farid", "greta",
+            "hiro", "ines", "jonas", "kaveh", "lucia", "marek", "nadia", "oskar", "priya", "quentin", "rosa"};
+    // surnames are built from three syllables, ~27k of them, so a term matches a small share of orders
+    private static final String[] SYLLABLES = {"al", "ber", "cas", "do", "en", "fa", "gal", "hor", "iv", "jan",
+            "ko", "lin", "mo", "nov", "or", "pel", "qui", "ros", "sten", "tur", "ul", "var", "wen", "xa",
+            "yor", "zel", "bri", "kra", "lo", "mar"};
+
+    @Autowired OrderService orders;
+    @Autowired OrderSearchIndex searchIndex;
+    @Autowired OrderRepository orderRepo;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void searchLatencyByMode() {
+        int total = Integer.getInteger("bench.orders", 1_000_000);
+        int runs = Integer.getInteger("bench.runs", 50);
+        assertThat(searchIndex.isReady()).isTrue();
+
+        Random random = new Random(7);
+        List<String[]> sample = new ArrayList<>();
+        for (int done = 0; done < total; done += CHUNK) {
+            seed(FIRST_ID + done, Math.min(CHUNK, total - done), random, sample);
+        }
+
+        Sort newest = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        Map<String, Function<String, Integer>> modes = new LinkedHashMap<>();
+        modes.put("like", q -> orderRepo.findSummaries(
+                OrderSpecification.<Order>customerNameContains(q), newest, 0, 20).size());
+        modes.put("contains", q -> orders.searchCustomers(q, "contains", 20).size());
+        modes.put("prefix", q -> orders.searchCustomers(q, "prefix", 20).size());
+        modes.put("email", q -> orders.searchCustomers(q, "email", 20).size());
+        modes.put("fuzzy", q -> orders.searchCustomers(q, "fuzzy", 20).size());
+
+        System.out.println("orders=" + total);
+        System.out.println("mode       p50 ms   p95 ms   avg hits");
+        for (Map.Entry<String, Function<String, Integer>> m : modes.entrySet()) {
+            long[] nanos = new long[runs];
+            long hits = 0;
+            for (int i = 0; i < runs + 5; i++) {
+                String q = term(m.getKey(), sample.get(random.nextInt(sample.size())));
+                long started = System.nanoTime();
+                int n = m.getValue().apply(q);
+                if (i < 5) continue;
+                nanos[i - 5] = System.nanoTime() - started;
+                hits += n;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-9s  %7.1f  %7.1f  %9.1f%n", m.getKey(),
+                    nanos[runs / 2] / 1e6, nanos[Math.min(runs - 1, (int) (runs * 0.95))] / 1e6, (double) hits / runs);
+        }
+    }
+
+    // a term each mode is meant for, taken from a seeded order (name, email)
+    private static String term(String mode, String[] order) {
+        String last = order[0].substring(order[0].indexOf(' ') + 1);
+        switch (mode) {
+            case "prefix":
+                return order[0].substring(0, order[0].indexOf(' ') + 3);
+            case "email":
+                return order[1];
+            case "fuzzy":
+                // one typo in the surname
+                return last.substring(0, last.length() - 1) + "x";
+            default:
+                // middle of the surname, not reachable by a prefix
+                return last.substring(1, Math.min(last.length(), 6));
+        }
+    }
+
+    private void seed(long firstId, int n, Random random, List<String[]> sample) {
+        List<Object[]> rows = new ArrayList<>(n);
+        List<Object[]> grams = new ArrayList<>(n * 24);
+        Instant now = Instant.now();
+        for (int i = 0; i < n; i++) {
+            long id = firstId + i;
+            String last = SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)];
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + last;
+            // repeat customers: a few orders per email on average
+            String email = last + (id % 5) + "@example.com";
+            Timestamp at = Timestamp.from(now.minusSeconds(random.nextInt(730 * 24 * 3600)));
+            rows.add(new Object[]{id, name, email, 10.0, "DELIVERED", at, at});
+            for (String g : OrderSearchIndex.grams(name, email)) grams.add(new Object[]{g, id});
+            if (i % 1_000 == 0) sample.add(new String[]{name, email});
+        }
+
+        tx.executeWithoutResult(status -> {
+            jdbc.batchUpdate("INSERT INTO orders (id, customer_name, customer_email, total, status, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+            jdbc.batchUpdate("INSERT INTO order_search_grams (gram, order_id) VALUES (?, ?)", grams);
+        });
+    }
+}
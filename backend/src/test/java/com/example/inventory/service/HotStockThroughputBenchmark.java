@@ -0,0 +1,81 @@
+package com.example.inventory.service;
+
+import com.example.inventory.exception.InsufficientStockException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout throughput on one SKU against its slot count (0 = plain
+ * products row). Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=HotStockThroughputBenchmark
+ * Point spring.datasource.url at MySQL for InnoDB numbers; H2 locks differently.
+ *
+ * bench.slots (0,2,4,8,16), bench.threads (16), bench.orders (2000)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class HotStockThroughputBenchmark {
+
+    @Autowired ProductService products;
+    @Autowired OrderService orders;
+    @Autowired HotStockService hotStock;
+
+    @Test
+    void throughputBySlotCount() throws InterruptedException {
+        int threads = Integer.getInteger("bench.threads", 16);
+        int count = Integer.getInteger("bench.orders", 2000);
+
+        System.out.println("slots  orders/s  sold  rejected  fastTakes%");
+        for (String s : System.getProperty("bench.slots", "0,2,4,8,16").split(",")) {
+            int slots = Integer.parseInt(s.trim());
+            Long id = product(products, "Bench Hot", 10.0, count);
+            if (slots > 0) hotStock.enable(id, slots);
+
+            long fastBefore = takes("fastTakes");
+            long allBefore = takes("fastTakes") + takes("probedTakes") + takes("lockedTakes");
+
+            AtomicInteger sold = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int n = i;
+                pool.submit(() -> {
+                    try {
+                        orders.createOrder(order("Bench", n, 1, id));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+            pool.shutdown();
+            assertThat(pool.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            long fast = takes("fastTakes") - fastBefore;
+            long all = takes("fastTakes") + takes("probedTakes") + takes("lockedTakes") - allBefore;
+            System.out.printf("%5d  %8.0f  %4d  %8d  %9.1f%n",
+                    slots, sold.get() / seconds, sold.get(), rejected.get(), all == 0 ? 0.0 : 100.0 * fast / all);
+
+            assertThat(sold.get()).isEqualTo(count);
+            if (slots > 0) hotStock.disable(id);
+        }
+    }
+
+    private long takes(String key) {
+        Object v = hotStock.stats().get(key);
+        return v instanceof Number n ? n.longValue() : 0;
+    }
+}
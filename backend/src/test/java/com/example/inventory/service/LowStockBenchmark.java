@@ -0,0 +1,83 @@
+package com.example.inventory.service;
+
+import com.example.inventory.StatementCounter;
+import com.example.inventory.dto.LowStockItemDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * First low-stock page on a catalog-sized products table: one page query
+ * and one count, both range scans on the stock index, so the time must
+ * not depend on the number of products. 1% of the seeded products are at
+ * or below the threshold. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=LowStockBenchmark
+ * Point spring.datasource.url at MySQL for InnoDB numbers.
+ *
+ * bench.products (500000), bench.runs (200)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class LowStockBenchmark {
+
+    private static final int CHUNK = 10_000;
+    private static final int THRESHOLD = 5;
+    private static final int PAGE = 50;
+
+    @Autowired ProductService products;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void firstPageInMillisecondsOnLargeCatalog() {
+        int total = Integer.getInteger("bench.products", 500_000);
+        int runs = Integer.getInteger("bench.runs", 200);
+        Random random = new Random(7);
+
+        for (int done = 0; done < total; done += CHUNK) seed(done, Math.min(CHUNK, total - done), random);
+        long low = jdbc.queryForObject("SELECT COUNT(*) FROM products WHERE stock <= ?", Long.class, THRESHOLD);
+
+        StatementCounter.reset();
+        Page<LowStockItemDto> first = products.lowStock(THRESHOLD, 0, PAGE);
+        assertThat(StatementCounter.count()).as("page + count").isEqualTo(2);
+        assertThat(first.getTotalElements()).isEqualTo(low);
+        assertThat(first.getContent()).hasSize(PAGE);
+        // most severe first
+        assertThat(first.getContent()).isSortedAccordingTo(Comparator.comparing(LowStockItemDto::getStock));
+        assertThat(first.getContent().get(0).getSeverity()).isEqualTo("CRITICAL");
+
+        for (int i = 0; i < 200; i++) products.lowStock(THRESHOLD, 0, PAGE);
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long started = System.nanoTime();
+            products.lowStock(THRESHOLD, 0, PAGE);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[runs / 2] / 1e6;
+        double p99 = nanos[Math.min(runs - 1, (int) (runs * 0.99))] / 1e6;
+        System.out.printf("products=%d low=%d first page p50 %.2f ms p99 %.2f ms%n", total, low, p50, p99);
+
+        assertThat(p50).isLessThan(5.0);
+    }
+
+    private void seed(int first, int n, Random random) {
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int stock = random.nextInt(100) == 0 ? random.nextInt(THRESHOLD + 1) : 20 + random.nextInt(500);
+            rows.add(new Object[]{"BLS-" + (first + i), "Low stock bench " + (first + i), "Bench", "Bench",
+                    5 + random.nextInt(20_000) / 100.0, stock, 10});
+        }
+        tx.executeWithoutResult(status -> jdbc.batchUpdate(
+                "INSERT INTO products (sku, name, category, brand, price, stock, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows));
+    }
+}
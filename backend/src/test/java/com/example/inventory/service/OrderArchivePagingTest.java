@@ -0,0 +1,116 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderSummaryDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offset pages over the hot and archived tiers: any page equals the same
+ * slice of both tiers merged, and a deep page reads O(size) rows instead
+ * of offset + size from each tier.
+ */
+@SpringBootTest
+class OrderArchivePagingTest {
+
+    private static final long FIRST_ID = 3_000_000_000L;
+    private static final int PER_TIER = 300;
+    // totals only these rows have, so the listing filter isolates them
+    private static final double MIN_TOTAL = 777_000, MAX_TOTAL = 778_000;
+
+    @Autowired OrderService orders;
+    @Autowired OrderArchiveService archive;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired EntityManagerFactory emf;
+
+    @BeforeEach
+    void seed() {
+        Random random = new Random(3);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Object[]> hot = new ArrayList<>();
+        List<Object[]> cold = new ArrayList<>();
+        for (int i = 0; i < 2 * PER_TIER; i++) {
+            // both tiers spread over the same days, a few on the same second
+            Timestamp at = Timestamp.from(now.minusSeconds(400 * 24 * 3600L + random.nextInt(30 * 24 * 3600) / 60 * 60));
+            Object[] row = {FIRST_ID + i, "Paging " + i, "paging" + i + "@example.com",
+                    MIN_TOTAL + random.nextInt(1000), i % 2 == 0 ? "PENDING" : "DELIVERED", at, at};
+            (i % 2 == 0 ? hot : cold).add(row);
+        }
+        jdbc.batchUpdate("INSERT INTO orders (id, customer_name, customer_email, total, status, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", hot);
+        jdbc.batchUpdate("INSERT INTO orders_archive (id, customer_name, customer_email, total, status, created_at, updated_at, archived_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)", cold);
+        archive.loadWatermark();
+    }
+
+    // the database is shared with the other tests, which expect an empty archive
+    @AfterEach
+    void clean() {
+        jdbc.update("DELETE FROM orders WHERE id >= ?", FIRST_ID);
+        jdbc.update("DELETE FROM orders_archive WHERE id >= ?", FIRST_ID);
+        archive.loadWatermark();
+    }
+
+    @Test
+    void anyPageIsTheSameSliceOfBothTiersMerged() {
+        List<Long> expected = jdbc.queryForList(
+                "SELECT id FROM (SELECT id, created_at FROM orders WHERE total BETWEEN ? AND ? " +
+                        "UNION ALL SELECT id, created_at FROM orders_archive WHERE total BETWEEN ? AND ?) t " +
+                        "ORDER BY created_at DESC, id DESC",
+                Long.class, MIN_TOTAL, MAX_TOTAL, MIN_TOTAL, MAX_TOTAL);
+        assertThat(expected).hasSize(2 * PER_TIER);
+
+        for (int page : new int[]{0, 1, 7, 29, 30, 59}) {
+            List<Long> ids = page(page, 10).stream().map(r -> r.id).toList();
+            int from = Math.min(page * 10, expected.size());
+            assertThat(ids).as("page %d", page).isEqualTo(expected.subList(from, Math.min(from + 10, expected.size())));
+        }
+    }
+
+    @Test
+    void deepPageReadsSizeRowsNotOffset() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+        try {
+            stats.clear();
+            assertThat(page(0, 10)).hasSize(10);
+            long shallow = rowsRead(stats);
+
+            stats.clear();
+            assertThat(page(58, 10)).hasSize(10);
+            long deep = rowsRead(stats);
+
+            // size rows per tier, one row per tier for each of ~log2(580) probes, two counts
+            assertThat(deep).isLessThanOrEqualTo(2 * 10 + 2 * 10 + 2);
+            assertThat(deep).isLessThan(shallow + 2 * 10 + 1);
+        } finally {
+            stats.setStatisticsEnabled(false);
+        }
+    }
+
+    private List<OrderSummaryDto> page(int page, int size) {
+        return orders.listOrdersPaged(null, MIN_TOTAL, MAX_TOTAL, null, null, page, size, "createdAt", "DESC", false)
+                .getContent();
+    }
+
+    private static long rowsRead(Statistics stats) {
+        long rows = 0;
+        for (String q : stats.getQueries()) rows += stats.getQueryStatistics(q).getExecutionRowCount();
+        return rows;
+    }
+}
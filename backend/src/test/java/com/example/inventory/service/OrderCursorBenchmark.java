@@ -0,0 +1,106 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.OrderSliceDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cursor listing latency at page 1 and page 10,000: the slice seeks to
+ * (createdAt, id) on the composite index, so a deep page must cost what
+ * the first one does. The offset listing of the same deep page is timed
+ * beside it for reference. Orders are seeded over the past 300 days
+ * through JDBC (the listing only reads the orders table). The walk is
+ * ascending by default because H2 cannot read an index backwards and sorts
+ * every DESC listing; InnoDB can, so use bench.dir=DESC there. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=OrderCursorBenchmark
+ * Point spring.datasource.url at MySQL for InnoDB numbers.
+ *
+ * bench.pages (10000), bench.size (50), bench.runs (200), bench.dir (ASC)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class OrderCursorBenchmark {
+
+    private static final long FIRST_ID = 2_000_000_000L;
+    private static final int CHUNK = 10_000;
+
+    @Autowired OrderService orders;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void deepPageCostsWhatTheFirstDoes() {
+        int pages = Integer.getInteger("bench.pages", 10_000);
+        int size = Integer.getInteger("bench.size", 50);
+        int runs = Integer.getInteger("bench.runs", 200);
+        String dir = System.getProperty("bench.dir", "ASC");
+        long total = (long) pages * size + size;
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Random random = new Random(16);
+        for (long done = 0; done < total; done += CHUNK) seed(FIRST_ID + done, (int) Math.min(CHUNK, total - done), now, random);
+
+        // walk to the last page through the cursors a client would pass back
+        String cursor = null;
+        for (int page = 1; page < pages; page++) {
+            cursor = slice(cursor, size, dir).nextCursor;
+            assertThat(cursor).as("page %d", page).isNotNull();
+        }
+        String deep = cursor;
+        assertThat(slice(deep, size, dir).content).hasSize(size);
+
+        System.out.println("orders=" + total + " size=" + size + " " + dir);
+        System.out.println("listing                p50 ms   p99 ms");
+        double first = time("cursor page 1", runs, () -> slice(null, size, dir));
+        double last = time("cursor page " + pages, runs, () -> slice(deep, size, dir));
+        time("offset page " + pages, Math.max(1, runs / 20), () -> orders.listOrdersPaged(
+                null, null, null, null, null, pages - 1, size, "createdAt", dir, false));
+
+        // the same work either way; the constant absorbs timer noise on sub-millisecond reads
+        assertThat(last).isLessThan(2 * first + 1.0);
+    }
+
+    private OrderSliceDto slice(String cursor, int size, String dir) {
+        return orders.listOrdersCursor(null, null, null, null, null, cursor, size, dir, null, false);
+    }
+
+    // p50 in ms
+    private static double time(String label, int runs, Supplier<?> call) {
+        for (int i = 0; i < Math.min(runs, 50); i++) call.get();
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long started = System.nanoTime();
+            call.get();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[runs / 2] / 1e6;
+        System.out.printf("%-20s %8.2f %8.2f%n", label, p50, nanos[Math.min(runs - 1, (int) (runs * 0.99))] / 1e6);
+        return p50;
+    }
+
+    // n delivered orders with ids from firstId, spread over the past 300 days (short of the archive cutoff)
+    private void seed(long firstId, int n, Instant now, Random random) {
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Timestamp at = Timestamp.from(now.minusSeconds(random.nextInt(300 * 24 * 3600)));
+            rows.add(new Object[]{firstId + i, "Cursor " + i, "cursor" + (firstId + i) + "@example.com",
+                    5 + random.nextInt(20_000) / 100.0, "DELIVERED", at, at});
+        }
+        tx.executeWithoutResult(status -> jdbc.batchUpdate(
+                "INSERT INTO orders (id, customer_name, customer_email, total, status, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", rows));
+    }
+}
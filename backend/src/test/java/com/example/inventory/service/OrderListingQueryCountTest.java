@@ -0,0 +1,77 @@
+package com.example.inventory.service;
+
+import com.example.inventory.StatementCounter;
+import com.example.inventory.dto.OrderSliceDto;
+import com.example.inventory.dto.OrderSummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order listings read summaries from one projection query, so the number
+ * of statements per page must not grow with the page size (no N+1 on
+ * items); includeItems adds exactly one query.
+ */
+@SpringBootTest
+class OrderListingQueryCountTest {
+
+    private static final int ORDERS = 50;
+
+    @Autowired ProductService products;
+    @Autowired OrderService orders;
+
+    @BeforeEach
+    void seed() {
+        Long a = product(products, "Listing", 5.0, ORDERS * 10);
+        Long b = product(products, "Listing", 5.0, ORDERS * 10);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.createOrder(order("Listing", i, 1, a, b));
+        }
+    }
+
+    @Test
+    void offsetPageCostsTheSameAtAnySize() {
+        int small = pageStatements(5, false);
+        int large = pageStatements(40, false);
+        assertThat(small).isEqualTo(large).isEqualTo(2);
+
+        int smallWithItems = pageStatements(5, true);
+        int largeWithItems = pageStatements(40, true);
+        assertThat(smallWithItems).isEqualTo(largeWithItems).isEqualTo(small + 1);
+    }
+
+    @Test
+    void cursorSliceCostsTheSameAtAnySize() {
+        int small = sliceStatements(5, false);
+        int large = sliceStatements(40, false);
+        assertThat(small).isEqualTo(large).isEqualTo(1);
+
+        int smallWithItems = sliceStatements(5, true);
+        int largeWithItems = sliceStatements(40, true);
+        assertThat(smallWithItems).isEqualTo(largeWithItems).isEqualTo(2);
+    }
+
+    private int pageStatements(int size, boolean includeItems) {
+        StatementCounter.reset();
+        Page<OrderSummaryDto> page = orders.listOrdersPaged(
+                null, null, null, null, null, 0, size, "createdAt", "DESC", includeItems);
+        int statements = StatementCounter.count();
+        assertThat(page.getContent()).hasSize(size);
+        return statements;
+    }
+
+    private int sliceStatements(int size, boolean includeItems) {
+        StatementCounter.reset();
+        OrderSliceDto slice = orders.listOrdersCursor(
+                null, null, null, null, null, null, size, "DESC", null, includeItems);
+        int statements = StatementCounter.count();
+        assertThat(slice.content).hasSize(size);
+        return statements;
+    }
+}
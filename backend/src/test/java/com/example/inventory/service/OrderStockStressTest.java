@@ -0,0 +1,125 @@
+package com.example.inventory.service;
+
+import com.example.inventory.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stock under concurrent order writes.
+ *
+ * - many threads check out one SKU with less stock than the orders ask
+ *   for: every order is either created or rejected, stock never drops
+ *   below zero (also sampled while the run is in flight) and ends at the
+ *   initial stock minus the units sold
+ * - two cancels of the same order give its stock back once
+ *
+ * stress.threads (8), stress.orders (60), stress.stock (40); raise them
+ * for a longer run.
+ */
+@SpringBootTest
+class OrderStockStressTest {
+
+    @Autowired ProductService products;
+    @Autowired OrderService orders;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void hotSkuNeverOversells() throws InterruptedException {
+        int threads = Integer.getInteger("stress.threads", 8);
+        int count = Integer.getInteger("stress.orders", 60);
+        int initial = Integer.getInteger("stress.stock", 40);
+        Long id = product(products, "Stress Hot", 10.0, initial);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger unitsSold = new AtomicInteger();
+        AtomicInteger lowestSeen = new AtomicInteger(initial);
+        List<Throwable> errors = new ArrayList<>();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                lowestSeen.accumulateAndGet(stock(id), Math::min);
+            }
+        });
+        sampler.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < count; i++) {
+            int n = i;
+            pool.submit(() -> {
+                int qty = ThreadLocalRandom.current().nextInt(1, 3);
+                try {
+                    orders.createOrder(order("Stress", n, qty, id));
+                    created.incrementAndGet();
+                    unitsSold.addAndGet(qty);
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                } catch (Throwable t) {
+                    synchronized (errors) { errors.add(t); }
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        running.set(false);
+        sampler.join();
+
+        assertThat(errors).isEmpty();
+        assertThat(created.get() + rejected.get()).isEqualTo(count);
+        assertThat(lowestSeen.get()).isGreaterThanOrEqualTo(0);
+        assertThat(stock(id)).isEqualTo(initial - unitsSold.get()).isGreaterThanOrEqualTo(0);
+        // every order asks for at least one unit and there are more orders than units
+        assertThat(rejected.get()).isPositive();
+    }
+
+    @Test
+    void concurrentCancelsReleaseStockOnce() throws Exception {
+        Long id = product(products, "Stress Cancel", 10.0, 100);
+
+        for (int round = 0; round < 10; round++) {
+            Long orderId = orders.createOrder(order("Cancel", round, 3, id)).id;
+            int held = stock(id);
+
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                pool.submit(() -> {
+                    try {
+                        start.await();
+                        orders.updateStatus(orderId, "CANCELLED");
+                    } catch (Throwable t) {
+                        synchronized (errors) { errors.add(t); }
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+            assertThat(errors).isEmpty();
+            assertThat(stock(id)).isEqualTo(held + 3);
+        }
+    }
+
+    private int stock(Long id) {
+        return jdbc.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, id);
+    }
+}
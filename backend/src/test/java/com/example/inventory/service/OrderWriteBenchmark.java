@@ -0,0 +1,70 @@
+package com.example.inventory.service;
+
+import com.example.inventory.StatementCounter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate statements and latency per createOrder by number of lines.
+ * Products are resolved with one query and item inserts go out as JDBC
+ * batches, so statements per order should not follow the line count.
+ * Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=OrderWriteBenchmark
+ * and again with -Dspring.jpa.properties.hibernate.jdbc.batch_size=1 for
+ * the unbatched baseline. JdbcTemplate statements (stock, rollups) are not
+ * counted.
+ *
+ * bench.lines (1,10,50), bench.orders (200)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class OrderWriteBenchmark {
+
+    @Autowired ProductService products;
+    @Autowired OrderService orders;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    int batchSize;
+
+    @Test
+    void statementsAndLatencyByLineCount() {
+        int count = Integer.getInteger("bench.orders", 200);
+        String[] lineCounts = System.getProperty("bench.lines", "1,10,50").split(",");
+
+        int maxLines = 0;
+        for (String s : lineCounts) maxLines = Math.max(maxLines, Integer.parseInt(s.trim()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < maxLines; i++) ids.add(product(products, "Bench Line", 3.0, (count + 20) * lineCounts.length));
+
+        System.out.println("batch_size=" + batchSize);
+        System.out.println("lines  statements/order  ms/order");
+        for (String s : lineCounts) {
+            int lines = Integer.parseInt(s.trim());
+            Long[] picked = ids.subList(0, lines).toArray(Long[]::new);
+
+            for (int i = 0; i < 20; i++) orders.createOrder(order("Bench Writer", 0, 1, picked));
+
+            long statements = 0;
+            long started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                StatementCounter.reset();
+                orders.createOrder(order("Bench Writer", 0, 1, picked));
+                statements += StatementCounter.count();
+            }
+            double millis = (System.nanoTime() - started) / 1e6 / count;
+            System.out.printf("%5d  %16.1f  %8.2f%n", lines, (double) statements / count, millis);
+
+            assertThat(statements).isPositive();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockEventDto;
+import com.example.inventory.model.OutboxCursor;
+import com.example.inventory.model.OutboxDeadLetter;
+import com.example.inventory.model.OutboxEvent;
+import com.example.inventory.repository.OutboxCursorRepository;
+import com.example.inventory.repository.OutboxDeadLetterRepository;
+import com.example.inventory.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One sink that is down must not stall or repeat delivery to the others:
+ * each sink keeps its own cursor, the failing one backs off and finally
+ * dead-letters its batch, and an unreadable payload is dead-lettered
+ * instead of dropped.
+ */
+@SpringBootTest
+class OutboxPublisherTest {
+
+    @Autowired OutboxEventRepository outboxRepo;
+    @Autowired OutboxCursorRepository cursorRepo;
+    @Autowired OutboxDeadLetterRepository deadLetterRepo;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void failingSinkDoesNotStallOrRepeatTheOthers() throws Exception {
+        Recording ok = new Recording("test-ok");
+        StockEventSink down = new StockEventSink() {
+            @Override
+            public String name() {
+                return "test-down";
+            }
+
+            @Override
+            public void publish(List<StockEventDto> events) throws Exception {
+                throw new IllegalStateException("connection refused");
+            }
+        };
+        // 1 ms interval: the backoff between attempts stays in milliseconds
+        OutboxPublisher publisher = new OutboxPublisher(outboxRepo, cursorRepo, deadLetterRepo,
+                List.of(ok, down), objectMapper, tx, 100, 20, 3, 1, 72);
+
+        // both cursors start behind the rows this test writes
+        long start = outboxRepo.findMaxId();
+        for (String sink : List.of("test-ok", "test-down")) {
+            OutboxCursor c = new OutboxCursor();
+            c.setSink(sink);
+            c.setLastEventId(start);
+            cursorRepo.save(c);
+        }
+        List<Long> good = new ArrayList<>();
+        for (int i = 0; i < 3; i++) good.add(event(objectMapper.writeValueAsString(stockEvent(i))));
+        Long unreadable = event("{not json");
+
+        for (int i = 0; i < 50 && cursorRepo.findById("test-down").orElseThrow().getLastEventId() < unreadable; i++) {
+            publisher.drain();
+            Thread.sleep(10);
+        }
+
+        assertThat(ok.received).containsExactlyElementsOf(good);
+        assertThat(cursorRepo.findById("test-ok").orElseThrow().getLastEventId()).isEqualTo(unreadable);
+        assertThat(deadLetters("test-ok")).containsExactly(unreadable);
+
+        OutboxCursor downCursor = cursorRepo.findById("test-down").orElseThrow();
+        assertThat(downCursor.getLastEventId()).isEqualTo(unreadable);
+        assertThat(downCursor.getAttempts()).isZero();
+        assertThat(deadLetters("test-down")).containsExactlyInAnyOrder(good.get(0), good.get(1), good.get(2), unreadable);
+    }
+
+    private Long event(String payload) {
+        OutboxEvent row = new OutboxEvent();
+        row.setEventType("TEST");
+        row.setPayload(payload);
+        row.setCreatedAt(Instant.now());
+        return outboxRepo.save(row).getId();
+    }
+
+    private List<Long> deadLetters(String sink) {
+        return deadLetterRepo.findAll().stream()
+                .filter(d -> d.getSink().equals(sink))
+                .map(OutboxDeadLetter::getEventId)
+                .sorted()
+                .toList();
+    }
+
+    private static StockEventDto stockEvent(int n) {
+        StockEventDto e = new StockEventDto();
+        e.setType("REORDER_LEVEL_REACHED");
+        e.setProductId((long) n);
+        e.setSource("TEST");
+        return e;
+    }
+
+    private static final class Recording implements StockEventSink {
+        private final String name;
+        final List<Long> received = new ArrayList<>();
+
+        Recording(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void publish(List<StockEventDto> events) {
+            for (StockEventDto e : events) received.add(e.getEventId());
+        }
+    }
+}
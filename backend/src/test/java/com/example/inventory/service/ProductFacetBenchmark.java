@@ -0,0 +1,111 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ProductFacetsDto;
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Facet latency on a catalog-sized index: the whole catalog (blank q), a
+ * broad term and a stock filter, each counted from the documents and
+ * stock the index holds. Products are seeded through JDBC, then a fresh
+ * index pair is loaded from the table the way startup does. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=ProductFacetBenchmark
+ *
+ * bench.products (250000), bench.runs (200)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ProductFacetBenchmark {
+
+    private static final int CHUNK = 10_000;
+
+    private static final String[] BRANDS = {"Aurelia", "Borealis", "Cobalt", "Duraflex", "Everline", "Fjord",
+            "Granite", "Halcyon", "Ionic", "Juniper"};
+    private static final String[] KINDS = {"Laptop", "Monitor", "Keyboard", "Blender", "Kettle", "Jacket",
+            "Desk", "Chair", "Lamp", "Router"};
+    private static final String[] CATEGORIES = {"Electronics", "Home Appliances", "Clothing", "Furniture"};
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+    @Autowired ProductSalesRollupRepository salesRepo;
+    @Autowired OrderRepository orderRepo;
+
+    @Test
+    void facetsOnCatalogScale() throws InterruptedException {
+        int total = Integer.getInteger("bench.products", 250_000);
+        int runs = Integer.getInteger("bench.runs", 200);
+        Random random = new Random(25);
+
+        for (int done = 0; done < total; done += CHUNK) seed(done, Math.min(CHUNK, total - done), random);
+
+        ProductSearchIndex search = new ProductSearchIndex(jdbc, new ProductSuggestIndex(salesRepo, orderRepo, tx),
+                10_000, 5_000);
+        long started = System.currentTimeMillis();
+        search.startLoad();
+        // a failed load only logs, so bound the wait
+        while (!search.isReady() && System.currentTimeMillis() - started < 600_000) Thread.sleep(50);
+        assertThat(search.isReady()).isTrue();
+        ProductFacetCounter facets = new ProductFacetCounter(search);
+
+        ProductFacetsDto all = facets.facets(null, null, null, null, null, null);
+        assertThat(all.total).isGreaterThanOrEqualTo(total);
+        assertThat(all.stockBands.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(all.total);
+
+        // a stock change moves one product between bands without reading the table
+        Long id = jdbc.queryForObject("SELECT MIN(id) FROM products WHERE sku LIKE 'BFC-%' AND stock > 10", Long.class);
+        search.stockChanged(id, 0);
+        ProductFacetsDto moved = facets.facets(null, null, null, null, null, null);
+        assertThat(moved.stockBands.get("OUT_OF_STOCK")).isEqualTo(all.stockBands.get("OUT_OF_STOCK") + 1);
+        assertThat(moved.stockBands.get("IN_STOCK")).isEqualTo(all.stockBands.get("IN_STOCK") - 1);
+
+        System.out.println("products=" + total + " load ms=" + (System.currentTimeMillis() - started));
+        System.out.println("query                 matches    p50 ms    p99 ms");
+        double p99 = 0;
+        p99 = Math.max(p99, time("blank", runs, () -> facets.facets(null, null, null, null, null, null)));
+        p99 = Math.max(p99, time("q=aurelia", runs, () -> facets.facets("aurelia", null, null, null, null, null)));
+        p99 = Math.max(p99, time("q=lamp minStock=50", runs, () -> facets.facets("lamp", null, null, 50, null, null)));
+        p99 = Math.max(p99, time("category", runs, () -> facets.facets(null, null, null, null, null, "Furniture")));
+
+        // in memory: at most a microsecond per product, even for the whole catalog
+        assertThat(p99).isLessThan(total / 1000.0);
+    }
+
+    private static double time(String label, int runs, Supplier<ProductFacetsDto> call) {
+        for (int i = 0; i < 10; i++) call.get();
+        long[] nanos = new long[runs];
+        long matches = 0;
+        for (int i = 0; i < runs; i++) {
+            long t = System.nanoTime();
+            matches = call.get().total;
+            nanos[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(nanos);
+        double p99 = nanos[Math.min(runs - 1, (int) (runs * 0.99))] / 1e6;
+        System.out.printf("%-20s %9d  %8.2f  %8.2f%n", label, matches, nanos[runs / 2] / 1e6, p99);
+        return p99;
+    }
+
+    private void seed(int first, int n, Random random) {
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + KINDS[random.nextInt(KINDS.length)] + " " + (100 + random.nextInt(900));
+            rows.add(new Object[]{"BFC-" + (first + i), name, CATEGORIES[random.nextInt(CATEGORIES.length)], brand,
+                    5 + random.nextInt(200_000) / 100.0, random.nextInt(120), 10});
+        }
+        tx.executeWithoutResult(status -> jdbc.batchUpdate(
+                "INSERT INTO products (sku, name, category, brand, price, stock, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency on a million-SKU catalog: the kinds of terms the product
+ * search box gets (a brand and product kind, a model code, an sku, a short
+ * prefix), first page by relevance. Products are seeded through JDBC, then
+ * a fresh index pair is loaded from the table the way startup does. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=ProductSearchBenchmark -DargLine=-Xmx3g
+ *
+ * bench.products (1000000), bench.runs (2000)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ProductSearchBenchmark {
+
+    private static final int CHUNK = 10_000;
+
+    private static final String[] BRANDS = {"Aurelia", "Borealis", "Cobalt", "Duraflex", "Everline", "Fjord",
+            "Granite", "Halcyon", "Ionic", "Juniper", "Kestrel", "Lumen", "Meridian", "Northwind", "Orchid",
+            "Paragon", "Quartz", "Redwood", "Summit", "Tundra"};
+    private static final String[] KINDS = {"Laptop", "Monitor", "Keyboard", "Mouse", "Headphones", "Speaker",
+            "Blender", "Kettle", "Toaster", "Jacket", "Sneakers", "Backpack", "Desk", "Chair", "Lamp", "Router",
+            "Tablet", "Camera", "Charger", "Heater"};
+    private static final String[] CATEGORIES = {"Electronics", "Home Appliances", "Clothing", "Furniture"};
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+    @Autowired ProductSalesRollupRepository salesRepo;
+    @Autowired OrderRepository orderRepo;
+
+    @Test
+    void p99UnderTwentyMillisOnMillionSkus() throws InterruptedException {
+        int total = Integer.getInteger("bench.products", 1_000_000);
+        int runs = Integer.getInteger("bench.runs", 2_000);
+        Random random = new Random(23);
+
+        List<String> names = new ArrayList<>();
+        for (int done = 0; done < total; done += CHUNK) seed(done, Math.min(CHUNK, total - done), random, names);
+
+        ProductSearchIndex search = new ProductSearchIndex(jdbc, new ProductSuggestIndex(salesRepo, orderRepo, tx),
+                10_000, 5_000);
+        long started = System.currentTimeMillis();
+        search.startLoad();
+        // a failed load only logs, so bound the wait
+        while (!search.isReady() && System.currentTimeMillis() - started < 1_200_000) Thread.sleep(50);
+        assertThat(search.isReady()).isTrue();
+        System.out.println("products=" + total + " load ms=" + (System.currentTimeMillis() - started));
+
+        Map<String, Function<String, String>> kinds = new LinkedHashMap<>();
+        kinds.put("brand + kind", n -> n.substring(0, n.lastIndexOf(' ')));
+        kinds.put("model code", n -> n.substring(n.lastIndexOf(' ') + 1));
+        kinds.put("full name", n -> n);
+        kinds.put("sku", n -> "BSR-" + random.nextInt(total));
+        kinds.put("2-char prefix", n -> n.substring(0, 2));
+
+        System.out.println("term            p50 ms   p99 ms   avg matches");
+        long[] all = new long[runs * kinds.size()];
+        int k = 0;
+        for (Map.Entry<String, Function<String, String>> e : kinds.entrySet()) {
+            for (int i = 0; i < 200; i++) query(search, e.getValue().apply(pick(names, random)));
+            long[] nanos = new long[runs];
+            long matches = 0;
+            for (int i = 0; i < runs; i++) {
+                String q = e.getValue().apply(pick(names, random));
+                long t = System.nanoTime();
+                matches += query(search, q);
+                nanos[i] = System.nanoTime() - t;
+                all[k++] = nanos[i];
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-14s %7.2f  %7.2f  %12.1f%n", e.getKey(),
+                    nanos[runs / 2] / 1e6, nanos[(int) (runs * 0.99)] / 1e6, (double) matches / runs);
+        }
+
+        Arrays.sort(all);
+        double p99 = all[(int) (all.length * 0.99)] / 1e6;
+        System.out.printf("overall p99 %.2f ms%n", p99);
+        assertThat(p99).isLessThan(20.0);
+    }
+
+    private static long query(ProductSearchIndex search, String q) {
+        return search.search(q, null, null, null, Sort.unsorted(), 0, 20).total();
+    }
+
+    private static String pick(List<String> names, Random random) {
+        return names.get(random.nextInt(names.size()));
+    }
+
+    private void seed(int first, int n, Random random, List<String> names) {
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + KINDS[random.nextInt(KINDS.length)] + " " + (char) ('A' + random.nextInt(26))
+                    + (100 + random.nextInt(900));
+            rows.add(new Object[]{"BSR-" + (first + i), name, CATEGORIES[random.nextInt(CATEGORIES.length)], brand,
+                    5 + random.nextInt(200_000) / 100.0, 50, 10});
+            if (i % 100 == 0) names.add(name);
+        }
+        tx.executeWithoutResult(status -> jdbc.batchUpdate(
+                "INSERT INTO products (sku, name, category, brand, price, stock, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.OrderRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Suggest memory and latency on a catalog of about a million suggest
+ * entries (name word starts, sku and brand: ~4 per product). Products and
+ * their sales rollups are seeded through JDBC, then a fresh index pair is
+ * loaded from the table the way startup does. Run with
+ * mvn test -Dgroups=benchmark -Dbenchmarks.excluded=none -Dtest=ProductSuggestBenchmark
+ * The heap delta covers the whole index pair (documents, n-gram postings
+ * and suggest arrays); suggestBytes is the suggest arrays alone.
+ *
+ * bench.products (250000), bench.runs (2000)
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ProductSuggestBenchmark {
+
+    private static final int CHUNK = 10_000;
+
+    private static final String[] BRANDS = {"Aurelia", "Borealis", "Cobalt", "Duraflex", "Everline", "Fjord",
+            "Granite", "Halcyon", "Ionic", "Juniper", "Kestrel", "Lumen", "Meridian", "Northwind", "Orchid",
+            "Paragon", "Quartz", "Redwood", "Summit", "Tundra"};
+    private static final String[] KINDS = {"Laptop", "Monitor", "Keyboard", "Mouse", "Headphones", "Speaker",
+            "Blender", "Kettle", "Toaster", "Jacket", "Sneakers", "Backpack", "Desk", "Chair", "Lamp", "Router",
+            "Tablet", "Camera", "Charger", "Heater"};
+    private static final String[] CATEGORIES = {"Electronics", "Home Appliances", "Clothing", "Furniture"};
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+    @Autowired ProductSalesRollupRepository salesRepo;
+    @Autowired OrderRepository orderRepo;
+
+    @Test
+    void memoryAndLatencyOnMillionEntries() throws InterruptedException {
+        int total = Integer.getInteger("bench.products", 250_000);
+        int runs = Integer.getInteger("bench.runs", 2_000);
+        Random random = new Random(11);
+
+        List<String> names = new ArrayList<>();
+        for (int done = 0; done < total; done += CHUNK) {
+            seed(done, Math.min(CHUNK, total - done), random, names);
+        }
+        // sales for every third product, so ranking has work to do
+        jdbc.update("INSERT INTO product_sales_rollup_hourly (bucket_start, product_id, product_name, category, units_sold, revenue) " +
+                "SELECT ?, id, name, category, MOD(id, 97) + 1, 0 FROM products WHERE sku LIKE 'BSG-%' AND MOD(id, 3) = 0",
+                Timestamp.from(Instant.now().truncatedTo(ChronoUnit.HOURS)));
+
+        long before = usedHeap();
+        ProductSuggestIndex suggest = new ProductSuggestIndex(salesRepo, orderRepo, tx);
+        ProductSearchIndex search = new ProductSearchIndex(jdbc, suggest, 10_000, 5_000);
+        long started = System.currentTimeMillis();
+        search.startLoad();
+        // a failed load only logs, so bound the wait
+        while (!search.isReady() && System.currentTimeMillis() - started < 600_000) Thread.sleep(50);
+        assertThat(search.isReady()).isTrue();
+        long loadMillis = System.currentTimeMillis() - started;
+        long heap = usedHeap() - before;
+
+        Map<String, Object> stats = suggest.stats();
+        System.out.println("products=" + total + " entries=" + stats.get("suggestEntries") + " load ms=" + loadMillis);
+        System.out.printf("suggestBytes=%d KB  heap delta=%d KB%n", (Long) stats.get("suggestBytes") / 1024, heap / 1024);
+
+        System.out.println("prefix   p50 us   p99 us   avg hits");
+        for (int len = 1; len <= 4; len++) {
+            for (int i = 0; i < 200; i++) suggest.suggest(prefix(names, random, len), 10);
+            long[] nanos = new long[runs];
+            long hits = 0;
+            for (int i = 0; i < runs; i++) {
+                String p = prefix(names, random, len);
+                long t = System.nanoTime();
+                hits += suggest.suggest(p, 10).size();
+                nanos[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%6d  %7.1f  %7.1f  %9.1f%n", len,
+                    nanos[runs / 2] / 1e3, nanos[Math.min(runs - 1, (int) (runs * 0.99))] / 1e3, (double) hits / runs);
+        }
+
+        assertThat((Integer) stats.get("suggestEntries")).isGreaterThanOrEqualTo(total);
+    }
+
+    // a prefix of some word of a seeded name
+    private static String prefix(List<String> names, Random random, int len) {
+        String[] words = names.get(random.nextInt(names.size())).split(" ");
+        String w = words[random.nextInt(words.length)];
+        return w.substring(0, Math.min(len, w.length()));
+    }
+
+    private void seed(int first, int n, Random random, List<String> names) {
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + KINDS[random.nextInt(KINDS.length)] + " " + (char) ('A' + random.nextInt(26))
+                    + (100 + random.nextInt(900));
+            rows.add(new Object[]{"BSG-" + (first + i), name, CATEGORIES[random.nextInt(CATEGORIES.length)], brand,
+                    5 + random.nextInt(200_000) / 100.0, 50, 10});
+            if (i % 100 == 0) names.add(name);
+        }
+        tx.executeWithoutResult(status -> jdbc.batchUpdate(
+                "INSERT INTO products (sku, name, category, brand, price, stock, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
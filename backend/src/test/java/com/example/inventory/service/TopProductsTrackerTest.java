@@ -0,0 +1,75 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.TopProductEstimateDto;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.ProductSalesRollupRepository;
+import com.example.inventory.repository.TopProductsSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.inventory.TestFixtures.order;
+import static com.example.inventory.TestFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The sketches agree with the exact rollup counts after updates and
+ * deletes, and a restart replays the orders created since the snapshot.
+ */
+@SpringBootTest
+class TopProductsTrackerTest {
+
+    @Autowired TopProductsTracker tracker;
+    @Autowired OrderService orders;
+    @Autowired ProductService products;
+    @Autowired TopProductsSnapshotRepository snapshotRepo;
+    @Autowired ProductSalesRollupRepository productRollupRepo;
+    @Autowired ProductRepository productRepo;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void updatesAndDeletesTakeUnitsBack() {
+        String category = "TopK " + System.nanoTime();
+        Long a = product(products, category, 10.0, 1000);
+        Long b = product(products, category, 10.0, 1000);
+
+        Long first = orders.createOrder(order(category, 1, 10, a)).id;
+        Long second = orders.createOrder(order(category, 2, 4, a, b)).id;
+        orders.update(first, order(category, 1, 3, b));
+        orders.delete(second);
+
+        Map<Long, Long> estimated = counts(tracker, category, false);
+        assertThat(estimated).isEqualTo(counts(tracker, category, true));
+        assertThat(estimated).isEqualTo(Map.of(b, 3L));
+    }
+
+    @Test
+    void restartReplaysOrdersSinceTheSnapshot() throws Exception {
+        String category = "TopK " + System.nanoTime();
+        Long a = product(products, category, 10.0, 1000);
+        orders.createOrder(order(category, 1, 5, a));
+        tracker.persist();
+
+        Thread.sleep(20);
+        orders.createOrder(order(category, 2, 7, a));
+
+        TopProductsTracker restarted = new TopProductsTracker(snapshotRepo, productRollupRepo, productRepo,
+                objectMapper, jdbc, 200, 7);
+        restarted.load();
+        assertThat(counts(restarted, category, false)).isEqualTo(Map.of(a, 12L));
+    }
+
+    private static Map<Long, Long> counts(TopProductsTracker t, String category, boolean exact) {
+        Map<Long, Long> out = new HashMap<>();
+        for (TopProductEstimateDto e : t.top(10, null, category, exact).getItems()) {
+            if (e.getQuantitySold() > 0) out.put(e.getProductId(), e.getQuantitySold());
+        }
+        return out;
+    }
+}